@@ -0,0 +1,177 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the batch operations addAll and removeAll of the AVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLBatchTests {
+    private static final int TIMEOUT = 200;
+    private AVL<Integer> avlTree;
+
+    @Before
+    public void setup() {
+        avlTree = new AVL<>(Arrays.asList(
+                10, 6, 7, 4, 12, 5, 1, 13, 11, 15, 17, 19, 22, 24, 14));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testAddAll() {
+        assertTrue(avlTree.addAll(Arrays.asList(30, 2, 8, 2, 13, 0)));
+        assertEquals(19, avlTree.size());
+        assertEquals(new ArrayList<>(new TreeSet<>(Arrays.asList(10, 6, 7, 4,
+                12, 5, 1, 13, 11, 15, 17, 19, 22, 24, 14, 30, 2, 8, 0))),
+                avlTree.inorder());
+        assertBalanced(avlTree.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testAddAllKeepsStoredData() {
+        Integer stored = 1000;
+        Integer equal = Integer.valueOf(1000);
+        assertNotSame(stored, equal);
+        avlTree.add(stored);
+        avlTree.addAll(Arrays.asList(equal, 3));
+        assertSame(stored, avlTree.get(1000));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testAddAllNothingNew() {
+        assertFalse(avlTree.addAll(Arrays.asList(1, 10, 24)));
+        assertFalse(avlTree.addAll(new ArrayList<Integer>()));
+        assertEquals(15, avlTree.size());
+        assertBalanced(avlTree.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRemoveAll() {
+        assertTrue(avlTree.removeAll(Arrays.asList(7, 2, 24, 1, 1, 100)));
+        assertEquals(12, avlTree.size());
+        assertEquals(Arrays.asList(4, 5, 6, 10, 11, 12, 13, 14, 15, 17, 19,
+                22), avlTree.inorder());
+        assertBalanced(avlTree.getRoot());
+        assertFalse(avlTree.removeAll(Arrays.asList(2, 3)));
+        assertTrue(avlTree.removeAll(avlTree.inorder()));
+        assertEquals(0, avlTree.size());
+        assertEquals(null, avlTree.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testIntoEmpty() {
+        avlTree.clear();
+        assertTrue(avlTree.addAll(new TreeSet<>(Arrays.asList(3, 1, 2))));
+        assertEquals(Arrays.asList(1, 2, 3), avlTree.inorder());
+        assertEquals(3, avlTree.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRandomAgainstTreeSet() {
+        Random random = new Random(1332);
+        TreeSet<Integer> expected = new TreeSet<>();
+        avlTree.clear();
+        for (int round = 0; round < 100; round++) {
+            List<Integer> batch = new ArrayList<>();
+            int batchSize = random.nextInt(round % 10 == 0 ? 500 : 40);
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(random.nextInt(2000));
+            }
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.removeAll(batch),
+                        avlTree.removeAll(batch));
+            } else {
+                assertEquals(expected.addAll(batch), avlTree.addAll(batch));
+            }
+            assertEquals(expected.size(), avlTree.size());
+            assertBalanced(avlTree.getRoot());
+        }
+        assertEquals(new ArrayList<>(expected), avlTree.inorder());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testOrderStatisticCounts() {
+        OrderStatisticAVL<Integer> tree = new OrderStatisticAVL<>();
+        Random random = new Random(1332);
+        for (int round = 0; round < 30; round++) {
+            List<Integer> batch = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                batch.add(random.nextInt(1000));
+            }
+            if (round % 3 == 2) {
+                tree.removeAll(batch);
+            } else {
+                tree.addAll(batch);
+            }
+            assertEquals(tree.size(),
+                    OrderStatisticRotateRotate.assertCounts(tree.getRoot()));
+        }
+    }
+
+    @Test(timeout = TIMEOUT, expected = ConcurrentModificationException.class)
+    public void testFailFast() {
+        Iterator<Integer> iterator = avlTree.iterator();
+        avlTree.addAll(Arrays.asList(100, 101));
+        iterator.next();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testFailFastWhenNothingChanges() {
+        for (int i = 0; i < 2; i++) {
+            Iterator<Integer> iterator = avlTree.iterator();
+            iterator.next();
+            if (i == 0) {
+                assertFalse(avlTree.addAll(Arrays.asList(5, 13, 22)));
+            } else {
+                assertFalse(avlTree.removeAll(Arrays.asList(2, 16, 30)));
+            }
+            try {
+                iterator.next();
+                fail("the iterator missed the rebuild");
+            } catch (ConcurrentModificationException e) {
+                assertEquals(15, avlTree.size());
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testAddAllNullElement() {
+        avlTree.addAll(Arrays.asList(1, null));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testRemoveAllNull() {
+        avlTree.removeAll(null);
+    }
+
+    /**
+     * Checks the heights and balance factors of a subtree.
+     * @param node the subtree root
+     * @return the height of the subtree
+     */
+    private int assertBalanced(AVLNode<Integer> node) {
+        if (node == null) {
+            return -1;
+        }
+        int lh = assertBalanced(node.getLeft());
+        int rh = assertBalanced(node.getRight());
+        assertEquals(Math.max(lh, rh) + 1, node.getHeight());
+        assertEquals(lh - rh, node.getBalanceFactor());
+        assertTrue(Math.abs(lh - rh) <= 1);
+        return node.getHeight();
+    }
+}
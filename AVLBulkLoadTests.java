@@ -0,0 +1,131 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Tests for the sorted bulk-load builders of the AVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLBulkLoadTests {
+    private static final int TIMEOUT = 200;
+
+    @Test(timeout = TIMEOUT)
+    public void testFromSortedArray() {
+        Integer[] data = {1, 2, 3, 4, 5, 6, 7};
+        AVL<Integer> avlTree = AVL.fromSorted(data);
+
+        assertEquals(7, avlTree.size());
+        assertEquals(2, avlTree.height());
+        assertEquals(Arrays.asList(4, 2, 6, 1, 3, 5, 7), avlTree.levelorder());
+        assertBalanced(avlTree.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testFromSortedEveryCount() {
+        List<Integer> data = new ArrayList<>();
+        for (int count = 0; count < 200; count++) {
+            AVL<Integer> avlTree = AVL.fromSorted(data.iterator(), count);
+            assertEquals(count, avlTree.size());
+            assertEquals(data, avlTree.inorder());
+            assertEquals(count == 0 ? -1 : 31 - Integer.numberOfLeadingZeros(count),
+                    avlTree.height());
+            assertBalanced(avlTree.getRoot());
+            avlTree.add(-1);
+            avlTree.add(1000);
+            assertBalanced(avlTree.getRoot());
+            data.add(count);
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testBulkLoadUnsorted() {
+        List<Integer> data = Arrays.asList(10, 6, 7, 4, 12, 5, 1, 13, 11, 15,
+                17, 19, 22, 24, 14, 7, 1);
+        AVL<Integer> avlTree = AVL.bulkLoad(data);
+
+        List<Integer> expected = new ArrayList<>(new TreeSet<>(data));
+        assertEquals(15, avlTree.size());
+        assertEquals(expected, avlTree.inorder());
+        assertEquals(3, avlTree.height());
+        assertBalanced(avlTree.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testBulkLoadSortedSet() {
+        TreeSet<Integer> data = new TreeSet<>();
+        for (int i = 0; i < 1000; i++) {
+            data.add(i * 3);
+        }
+        AVL<Integer> avlTree = AVL.bulkLoad(data);
+        assertEquals(1000, avlTree.size());
+        assertEquals(new ArrayList<>(data), avlTree.inorder());
+        assertBalanced(avlTree.getRoot());
+
+        TreeSet<Integer> reversed = new TreeSet<>(Collections.reverseOrder());
+        reversed.addAll(data);
+        avlTree = AVL.bulkLoad(reversed);
+        assertEquals(new ArrayList<>(data), avlTree.inorder());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testBulkLoadEmpty() {
+        AVL<Integer> avlTree = AVL.bulkLoad(new ArrayList<Integer>());
+        assertEquals(0, avlTree.size());
+        assertNull(avlTree.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testFromSortedNotAscending() {
+        AVL.fromSorted(new Integer[] {1, 3, 2});
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testFromSortedDuplicate() {
+        AVL.fromSorted(new Integer[] {1, 2, 2});
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testFromSortedTooFew() {
+        AVL.fromSorted(Arrays.asList(1, 2).iterator(), 3);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testFromSortedTooMany() {
+        AVL.fromSorted(Arrays.asList(1, 2, 3).iterator(), 2);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testBulkLoadNullElement() {
+        AVL.bulkLoad(Arrays.asList(1, null, 3));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testBulkLoadNull() {
+        AVL.bulkLoad(null);
+    }
+
+    /**
+     * Checks the heights and balance factors of a subtree.
+     * @param node the subtree root
+     * @return the height of the subtree
+     */
+    private int assertBalanced(AVLNode<Integer> node) {
+        if (node == null) {
+            return -1;
+        }
+        int lh = assertBalanced(node.getLeft());
+        int rh = assertBalanced(node.getRight());
+        assertEquals(Math.max(lh, rh) + 1, node.getHeight());
+        assertEquals(lh - rh, node.getBalanceFactor());
+        assertEquals(true, Math.abs(lh - rh) <= 1);
+        return node.getHeight();
+    }
+}
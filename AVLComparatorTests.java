@@ -0,0 +1,175 @@
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the comparator-ordered AVL and its normalized-key mode.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLComparatorTests {
+    private static final int TIMEOUT = 200;
+
+    @Test(timeout = TIMEOUT)
+    public void testReverseOrder() {
+        Comparator<Integer> reverse = Collections.reverseOrder();
+        AVL<Integer> tree = new AVL<>(Arrays.asList(5, 3, 8, 1, 9, 7),
+                reverse);
+        assertSame(reverse, tree.comparator());
+        assertEquals(Arrays.asList(9, 8, 7, 5, 3, 1), tree.inorder());
+        assertEquals(Integer.valueOf(9), tree.first());
+        assertEquals(Integer.valueOf(7), tree.floor(6));
+        assertEquals(Integer.valueOf(5), tree.ceiling(6));
+        assertEquals(Integer.valueOf(3), tree.remove(3));
+        assertFalse(tree.contains(3));
+        assertEquals(Arrays.asList(8, 7, 5),
+                new ArrayList<>(tree.subSet(8, true, 4, false)));
+        assertSame(reverse, tree.subSet(8, 4).comparator());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testReverseOrderSetOperations() {
+        Comparator<Integer> reverse = Collections.reverseOrder();
+        AVL<Integer> tree = new AVL<>(reverse);
+        tree.addAll(Arrays.asList(4, 1, 6, 2, 9));
+        assertEquals(Arrays.asList(9, 6, 4, 2, 1), tree.inorder());
+        AVL<Integer> upper = tree.split(4);
+        assertSame(reverse, upper.comparator());
+        assertEquals(Arrays.asList(9, 6), tree.inorder());
+        assertEquals(Arrays.asList(4, 2, 1), upper.inorder());
+        tree.union(upper);
+        assertEquals(Arrays.asList(9, 6, 4, 2, 1), tree.inorder());
+        tree.removeAll(Arrays.asList(6, 1));
+        assertEquals(Arrays.asList(9, 4, 2), tree.inorder());
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testUnionDifferentOrderings() {
+        new AVL<Integer>(Collections.reverseOrder()).union(
+                new AVL<>(Arrays.asList(1)));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testOrderStatisticComparator() {
+        OrderStatisticAVL<String> tree = new OrderStatisticAVL<>(
+                Arrays.asList("b", "C", "a", "D"),
+                String.CASE_INSENSITIVE_ORDER);
+        assertEquals(Arrays.asList("a", "b", "C", "D"), tree.inorder());
+        assertEquals(2, tree.rank("c"));
+        assertEquals("D", tree.select(3));
+        assertEquals(3, tree.countInRange("B", "d"));
+        assertTrue(tree.split("c") instanceof OrderStatisticAVL);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testStringPrefixOrder() {
+        List<String> strings = Arrays.asList("", "a", "a\u0000", "ab",
+                "abcd", "abcde", "abce", "b", "\uffff", "\uffff\uffff");
+        for (String a : strings) {
+            for (String b : strings) {
+                int cmp = Long.compareUnsigned(AVL.stringPrefix(a),
+                        AVL.stringPrefix(b));
+                if (cmp != 0) {
+                    assertEquals(Integer.signum(a.compareTo(b)),
+                            Integer.signum(cmp));
+                }
+            }
+        }
+        assertEquals(AVL.stringPrefix("abcd"), AVL.stringPrefix("abcde"));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testNormalizedKeysAgainstTreeSet() {
+        Random random = new Random(1332);
+        AVL<String> tree = new AVL<>(null, AVL::stringPrefix);
+        TreeSet<String> expected = new TreeSet<>();
+        for (int i = 0; i < 5000; i++) {
+            String key = Integer.toString(random.nextInt(3000), 7);
+            if (random.nextInt(3) != 0) {
+                expected.add(key);
+                tree.add(key);
+            } else if (expected.remove(key)) {
+                assertEquals(key, tree.remove(key));
+            } else {
+                assertFalse(tree.contains(key));
+            }
+        }
+        assertEquals(new ArrayList<>(expected), tree.inorder());
+        for (String key : expected) {
+            assertSame(key, tree.get(key));
+        }
+        assertNull(tree.floor(""));
+        assertPrefixes(tree.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testNormalizedKeysSkipComparator() {
+        int[] calls = new int[1];
+        Comparator<String> counting = (a, b) -> {
+            calls[0]++;
+            return a.compareTo(b);
+        };
+        AVL<String> plain = new AVL<>(counting);
+        AVL<String> prefixed = new AVL<>(counting, AVL::stringPrefix);
+        Random random = new Random(1332);
+        for (int i = 0; i < 2000; i++) {
+            String key = Long.toHexString(random.nextLong());
+            plain.add(key);
+            prefixed.add(key);
+        }
+        calls[0] = 0;
+        for (String key : plain) {
+            assertTrue(plain.contains(key));
+        }
+        int plainCalls = calls[0];
+        calls[0] = 0;
+        for (String key : plain) {
+            assertTrue(prefixed.contains(key));
+        }
+        assertTrue(calls[0] < plainCalls / 4);
+        assertEquals(plain.inorder(), prefixed.inorder());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testNormalizedKeysSetOperations() {
+        AVL<String> tree = new AVL<>(null, AVL::stringPrefix);
+        tree.addAll(Arrays.asList("pear", "apple", "plum", "fig"));
+        AVL<String> upper = tree.split("g");
+        assertEquals(Arrays.asList("apple", "fig"), tree.inorder());
+        assertEquals(Arrays.asList("pear", "plum"), upper.inorder());
+        upper.add("kiwi");
+        upper.remove("pear");
+        assertPrefixes(upper.getRoot());
+        assertEquals(40, tree.healthReport().getBytesPerNode());
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNullNormalizer() {
+        new AVL<String>((Comparator<String>) null, null);
+    }
+
+    /**
+     * Checks that every node caches the prefix of its data.
+     * @param node the subtree root
+     */
+    private void assertPrefixes(AVLNode<String> node) {
+        if (node != null) {
+            assertEquals(AVL.stringPrefix(node.getData()),
+                    ((PrefixAVLNode<String>) node).getPrefix());
+            assertPrefixes(node.getLeft());
+            assertPrefixes(node.getRight());
+        }
+    }
+}
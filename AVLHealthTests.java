@@ -0,0 +1,94 @@
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for the structural health report of the AVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLHealthTests {
+    private static final int TIMEOUT = 200;
+
+    @Test(timeout = TIMEOUT)
+    public void testSmallTree() {
+        /*
+                    10
+                  /    \
+                 6      13
+                / \    /  \
+               4   7  12   15
+                           /
+                          14
+        */
+        AVL<Integer> avlTree = new AVL<>(Arrays.asList(
+                10, 6, 13, 4, 7, 12, 15, 14));
+        TreeHealth health = avlTree.healthReport();
+        assertEquals(8, health.getNodeCount());
+        assertEquals(3, health.getHeight());
+        assertEquals(3, health.getMinHeight());
+        assertEquals(3, health.getMaxHeight());
+        assertEquals(2, health.getBalanceFactorCount(-1));
+        assertEquals(5, health.getBalanceFactorCount(0));
+        assertEquals(1, health.getBalanceFactorCount(1));
+        assertEquals(0, health.getUnbalancedNodes());
+        assertEquals(21 / 8.0, health.getMeanDepth(), 1e-9);
+        assertEquals(4, health.getMaxDepth());
+        assertEquals(32, health.getBytesPerNode());
+        assertEquals(256, health.getRetainedBytes());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testHeightBounds() {
+        AVL<Integer> avlTree = new AVL<>();
+        for (int i = 0; i < 20000; i++) {
+            avlTree.add(i);
+        }
+        TreeHealth health = avlTree.healthReport();
+        assertEquals(20000, health.getNodeCount());
+        assertEquals(14, health.getMinHeight());
+        assertEquals(19, health.getMaxHeight());
+        assertEquals(avlTree.height(), health.getHeight());
+        assertEquals(avlTree.height() + 1, health.getMaxDepth());
+        assertEquals(20000, health.getBalanceFactorCount(-1)
+                + health.getBalanceFactorCount(0)
+                + health.getBalanceFactorCount(1));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testEmpty() {
+        TreeHealth health = new AVL<Integer>().healthReport();
+        assertEquals(0, health.getNodeCount());
+        assertEquals(-1, health.getHeight());
+        assertEquals(-1, health.getMinHeight());
+        assertEquals(-1, health.getMaxHeight());
+        assertEquals(0, health.getMeanDepth(), 0);
+        assertEquals(0, health.getMaxDepth());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSizedNodes() {
+        OrderStatisticAVL<Integer> tree = new OrderStatisticAVL<>(
+                Arrays.asList(2, 1, 3));
+        assertEquals(40, tree.healthReport().getBytesPerNode());
+        assertEquals(40, new OrderStatisticAVL<Integer>().healthReport()
+                .getBytesPerNode());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testJson() {
+        AVL<Integer> avlTree = new AVL<>(Arrays.asList(2, 1, 3));
+        assertEquals("{\"nodeCount\":3,\"height\":1,\"minHeight\":1,"
+                + "\"maxHeight\":1,\"balanceFactors\":{\"-1\":0,\"0\":3,"
+                + "\"1\":0},\"unbalancedNodes\":0,\"meanDepth\":1.667,"
+                + "\"maxDepth\":2,\"bytesPerNode\":32,\"retainedBytes\":96}",
+                avlTree.healthReport().toJson());
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testBalanceFactorOutOfRange() {
+        new AVL<Integer>().healthReport().getBalanceFactorCount(2);
+    }
+}
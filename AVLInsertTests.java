@@ -0,0 +1,86 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests for the iterative insert of the AVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLInsertTests {
+    private static final int TIMEOUT = 200;
+    private AVL<Integer> avlTree;
+
+    @Before
+    public void setup() {
+        avlTree = new AVL<>();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testDuplicateDoesNotTouchNodes() {
+        for (int i = 0; i < 10; i++) {
+            avlTree.add(i);
+        }
+        AVLNode<Integer> root = avlTree.getRoot();
+        root.setHeight(42);
+        root.setBalanceFactor(42);
+
+        avlTree.add(9);
+
+        assertEquals(10, avlTree.size());
+        assertSame(root, avlTree.getRoot());
+        assertEquals(42, root.getHeight());
+        assertEquals(42, root.getBalanceFactor());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testStopsAboveUnchangedHeight() {
+        avlTree.add(8);
+        avlTree.add(4);
+        avlTree.add(12);
+        avlTree.add(2);
+        AVLNode<Integer> root = avlTree.getRoot();
+        root.setBalanceFactor(42);
+
+        // the left subtree keeps its height, so the root is not revisited
+        avlTree.add(6);
+
+        assertEquals(42, root.getBalanceFactor());
+        assertEquals(1, root.getLeft().getHeight());
+        assertEquals(0, root.getLeft().getBalanceFactor());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSequentialInsertStaysBalanced() {
+        List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1023; i++) {
+            avlTree.add(i);
+            expected.add(i);
+        }
+        assertEquals(1023, avlTree.size());
+        assertEquals(9, avlTree.height());
+        assertEquals(expected, avlTree.inorder());
+        assertBalanced(avlTree.getRoot());
+    }
+
+    /**
+     * Checks the heights and balance factors of a subtree.
+     * @param node the subtree root
+     * @return the height of the subtree
+     */
+    private int assertBalanced(AVLNode<Integer> node) {
+        if (node == null) {
+            return -1;
+        }
+        int lh = assertBalanced(node.getLeft());
+        int rh = assertBalanced(node.getRight());
+        assertEquals(Math.max(lh, rh) + 1, node.getHeight());
+        assertEquals(lh - rh, node.getBalanceFactor());
+        return node.getHeight();
+    }
+}
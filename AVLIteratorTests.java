@@ -0,0 +1,251 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the lazy traversal iterators and streams of the AVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLIteratorTests {
+    private static final int TIMEOUT = 200;
+    private AVL<Integer> avlTree;
+
+    @Before
+    public void setup() {
+        avlTree = new AVL<>(Arrays.asList(
+                10, 6, 7, 4, 12, 5, 1, 13, 11, 15, 17, 19, 22, 24, 14));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMatchesLists() {
+        assertEquals(avlTree.preorder(), drain(avlTree.iterator(
+                Traversal.PREORDER)));
+        assertEquals(avlTree.inorder(), drain(avlTree.iterator(
+                Traversal.INORDER)));
+        assertEquals(avlTree.postorder(), drain(avlTree.iterator(
+                Traversal.POSTORDER)));
+        assertEquals(avlTree.levelorder(), drain(avlTree.iterator(
+                Traversal.LEVELORDER)));
+        assertEquals(avlTree.inorder(), drain(avlTree.iterator()));
+        assertEquals(avlTree.listLeavesDescending(),
+                drain(avlTree.leafIterator()));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMatchesListsRandom() {
+        Random random = new Random(1332);
+        avlTree.clear();
+        for (int i = 0; i < 3000; i++) {
+            int data = random.nextInt(1000);
+            if (random.nextInt(3) == 0 && avlTree.contains(data)) {
+                avlTree.remove(data);
+            } else {
+                avlTree.add(data);
+            }
+            if (i % 100 == 0) {
+                testMatchesLists();
+            }
+        }
+        testMatchesLists();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testEmpty() {
+        avlTree.clear();
+        for (Traversal order : Traversal.values()) {
+            assertFalse(avlTree.iterator(order).hasNext());
+            assertEquals(0, avlTree.stream(order).count());
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSingleNode() {
+        avlTree.clear();
+        avlTree.add(3);
+        for (Traversal order : Traversal.values()) {
+            assertEquals(Arrays.asList(3), drain(avlTree.iterator(order)));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testStreams() {
+        for (Traversal order : Traversal.values()) {
+            assertEquals(drain(avlTree.iterator(order)),
+                    avlTree.stream(order).collect(Collectors.toList()));
+        }
+        assertEquals(Arrays.asList(1, 4, 5),
+                avlTree.stream(Traversal.INORDER).limit(3)
+                        .collect(Collectors.toList()));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSpliteratorCharacteristics() {
+        Spliterator<Integer> spliterator =
+                avlTree.spliterator(Traversal.INORDER);
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SORTED));
+        assertTrue(spliterator.hasCharacteristics(Spliterator.DISTINCT));
+        assertEquals(15, spliterator.getExactSizeIfKnown());
+        assertFalse(avlTree.spliterator(Traversal.LEVELORDER)
+                .hasCharacteristics(Spliterator.SORTED));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLazyOnLargeTree() {
+        avlTree = AVL.fromSorted(range(1 << 18));
+        for (Traversal order : Traversal.values()) {
+            assertEquals(10, avlTree.stream(order).limit(10).count());
+        }
+        assertEquals(Arrays.asList(0, 1, 2), avlTree.stream(Traversal.INORDER)
+                .limit(3).collect(Collectors.toList()));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testParallelStream() {
+        avlTree = AVL.fromSorted(range(100000));
+        assertEquals(avlTree.inorder(), avlTree.stream().parallel()
+                .collect(Collectors.toList()));
+        assertEquals(99999L * 100000 / 2, avlTree.stream().parallel()
+                .mapToLong(Integer::longValue).sum());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSplitsCoverTreeInOrder() {
+        for (int n = 0; n < 64; n++) {
+            avlTree = AVL.fromSorted(range(n));
+            avlTree.add(n + 5);
+            List<Integer> list = new ArrayList<>();
+            splitAll(avlTree.spliterator(), list);
+            assertEquals(avlTree.inorder(), list);
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSplitSizes() {
+        Spliterator<Integer> spliterator = avlTree.spliterator();
+        assertEquals(15, spliterator.getExactSizeIfKnown());
+        spliterator.tryAdvance(data -> { });
+        assertEquals(14, spliterator.getExactSizeIfKnown());
+
+        spliterator = avlTree.spliterator();
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        assertEquals(-1, spliterator.getExactSizeIfKnown());
+        assertEquals(-1, prefix.getExactSizeIfKnown());
+        assertTrue(prefix.estimateSize() > 0);
+        assertTrue(prefix.hasCharacteristics(Spliterator.SORTED));
+    }
+
+    @Test(timeout = TIMEOUT, expected = ConcurrentModificationException.class)
+    public void testSpliteratorFailFast() {
+        Spliterator<Integer> spliterator = avlTree.spliterator();
+        spliterator.forEachRemaining(data -> avlTree.add(data + 100));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLeafStream() {
+        assertEquals(Arrays.asList(24, 17, 14, 11, 6, 1),
+                avlTree.leafStream().collect(Collectors.toList()));
+        assertEquals(Arrays.asList(24, 17), avlTree.leafStream().limit(2)
+                .collect(Collectors.toList()));
+        avlTree.clear();
+        assertEquals(0, avlTree.leafStream().count());
+    }
+
+    @Test(timeout = TIMEOUT, expected = ConcurrentModificationException.class)
+    public void testLeafIteratorFailFast() {
+        Iterator<Integer> iterator = avlTree.leafIterator();
+        iterator.next();
+        avlTree.add(30);
+        iterator.next();
+    }
+
+    @Test(timeout = TIMEOUT, expected = ConcurrentModificationException.class)
+    public void testFailFastAdd() {
+        Iterator<Integer> iterator = avlTree.iterator(Traversal.PREORDER);
+        iterator.next();
+        avlTree.add(100);
+        iterator.next();
+    }
+
+    @Test(timeout = TIMEOUT, expected = ConcurrentModificationException.class)
+    public void testFailFastRemove() {
+        Iterator<Integer> iterator = avlTree.iterator(Traversal.LEVELORDER);
+        avlTree.remove(24);
+        iterator.next();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testDuplicateAddIsNotModification() {
+        Iterator<Integer> iterator = avlTree.iterator();
+        avlTree.add(10);
+        assertEquals((Integer) 1, iterator.next());
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testExhausted() {
+        Iterator<Integer> iterator = avlTree.iterator(Traversal.POSTORDER);
+        drain(iterator);
+        iterator.next();
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNullOrder() {
+        avlTree.iterator(null);
+    }
+
+    /**
+     * Splits a spliterator as far as it goes and collects the pieces in
+     * encounter order.
+     * @param spliterator the spliterator
+     * @param list the list to collect into
+     */
+    private void splitAll(Spliterator<Integer> spliterator,
+                          List<Integer> list) {
+        Spliterator<Integer> prefix = spliterator.trySplit();
+        if (prefix != null) {
+            splitAll(prefix, list);
+            splitAll(spliterator, list);
+        } else {
+            spliterator.forEachRemaining(list::add);
+        }
+    }
+
+    /**
+     * Creates the keys 0 to n - 1.
+     * @param n the number of keys
+     * @return the keys in ascending order
+     */
+    private Integer[] range(int n) {
+        Integer[] data = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            data[i] = i;
+        }
+        return data;
+    }
+
+    /**
+     * Collects what is left of an iterator.
+     * @param iterator the iterator
+     * @return the remaining elements in order
+     */
+    private List<Integer> drain(Iterator<Integer> iterator) {
+        List<Integer> list = new ArrayList<>();
+        while (iterator.hasNext()) {
+            list.add(iterator.next());
+        }
+        return list;
+    }
+}
@@ -0,0 +1,81 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the iterative lookup path of the AVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLLookupTests {
+    private static final int TIMEOUT = 200;
+    private AVL<Integer> avlTree;
+
+    @Before
+    public void setup() {
+        avlTree = new AVL<>(Arrays.asList(
+                20, 5, 7, 10, 14, 17, 18, 19, 3, 4, 1, 2, 6, 13, 23));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testGetReturnsStoredData() {
+        Integer stored = 1000;
+        Integer equal = Integer.valueOf(1000);
+        assertNotSame(stored, equal);
+        avlTree.add(stored);
+        assertSame(stored, avlTree.get(equal));
+        assertSame(stored, avlTree.getOrDefault(equal, null));
+        assertSame(stored, avlTree.find(equal).get());
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testGetMiss() {
+        avlTree.get(8);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMisses() {
+        assertFalse(avlTree.contains(0));
+        assertFalse(avlTree.contains(8));
+        assertFalse(avlTree.contains(24));
+        assertNull(avlTree.getOrDefault(8, null));
+        assertEquals((Integer) (-1), avlTree.getOrDefault(8, -1));
+        assertEquals(Optional.empty(), avlTree.find(8));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testEveryElementIsFound() {
+        for (Integer data : avlTree.inorder()) {
+            assertTrue(avlTree.contains(data));
+            assertEquals(data, avlTree.getOrDefault(data, null));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testEmptyTree() {
+        avlTree.clear();
+        assertFalse(avlTree.contains(1));
+        assertNull(avlTree.getOrDefault(1, null));
+        assertFalse(avlTree.find(1).isPresent());
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testGetOrDefaultNull() {
+        avlTree.getOrDefault(null, 1);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testFindNull() {
+        avlTree.find(null);
+    }
+}
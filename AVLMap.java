@@ -0,0 +1,1493 @@
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * An ordered map backed by an AVL tree of key/value nodes.
+ *
+ * Every update that may add or remove a key (put, putIfAbsent, compute,
+ * computeIfAbsent, computeIfPresent, merge and remove) descends the tree
+ * once, recording the path, and then works on that path: a new node is
+ * hung below the last node and the path rebalanced, and a removed node is
+ * replaced by its predecessor node further down the same path. Replacing
+ * the value of an existing key writes it into the node and is not a
+ * structural change, so it does not disturb open iterators.
+ *
+ * Nodes are never copied between keys: a removed node is replaced by
+ * relinking its predecessor, so the entries handed out by
+ * {@link #entrySet()} stay tied to their keys, and setValue on them writes
+ * through. The entries returned by the navigation methods are snapshots.
+ *
+ * Keys must not be null; values may be. Views from subMap, headMap,
+ * tailMap, descendingMap and the key sets are backed by the map.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLMap<K extends Comparable<? super K>, V>
+        extends AbstractMap<K, V> implements NavigableMap<K, V> {
+    private Node<K, V> root;
+    private int size;
+    // Counts structural changes so that iterators can fail fast.
+    private int modCount;
+
+    /**
+     * Initializes an empty map.
+     */
+    public AVLMap() {
+    }
+
+    /**
+     * Initializes the map with the mappings of another map.
+     *
+     * @param map the mappings to copy
+     * @throws IllegalArgumentException if map or any key in it is null
+     */
+    public AVLMap(Map<? extends K, ? extends V> map) {
+        if (map == null) {
+            throw new IllegalArgumentException("The map is null!");
+        }
+        putAll(map);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        root = null;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Return the height of the root of the tree.
+     *
+     * @return the height of the root of the tree, -1 if the map is empty
+     */
+    public int height() {
+        return root == null ? -1 : root.getHeight();
+    }
+
+    /**
+     * THIS METHOD IS ONLY FOR TESTING PURPOSES. The nodes hold the keys as
+     * their data.
+     *
+     * @return the root of the tree
+     */
+    public AVLNode<K> getRoot() {
+        return root;
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = findNode(checkKey(key));
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return findNode(checkKey(key)) != null;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        Node<K, V>[] path = newPath();
+        int depth = search(checkKey(key), path);
+        if (depth > 0) {
+            return path[depth - 1].setValue(value);
+        }
+        insert(key, value, path, ~depth);
+        return null;
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        Node<K, V>[] path = newPath();
+        int depth = search(checkKey(key), path);
+        if (depth > 0) {
+            Node<K, V> node = path[depth - 1];
+            return node.value == null ? node.setValue(value) : node.value;
+        }
+        insert(key, value, path, ~depth);
+        return null;
+    }
+
+    @Override
+    public V computeIfAbsent(K key,
+                             Function<? super K, ? extends V> function) {
+        checkFunction(function);
+        Node<K, V>[] path = newPath();
+        int depth = search(checkKey(key), path);
+        Node<K, V> node = depth > 0 ? path[depth - 1] : null;
+        if (node != null && node.value != null) {
+            return node.value;
+        }
+        int expectedModCount = modCount;
+        V value = function.apply(key);
+        checkUnmodified(expectedModCount);
+        if (value != null) {
+            if (node != null) {
+                node.value = value;
+            } else {
+                insert(key, value, path, ~depth);
+            }
+        }
+        return value;
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V,
+            ? extends V> function) {
+        checkFunction(function);
+        Node<K, V>[] path = newPath();
+        int depth = search(checkKey(key), path);
+        if (depth < 0 || path[depth - 1].value == null) {
+            return null;
+        }
+        Node<K, V> node = path[depth - 1];
+        int expectedModCount = modCount;
+        V value = function.apply(key, node.value);
+        checkUnmodified(expectedModCount);
+        if (value == null) {
+            delete(path, depth);
+        } else {
+            node.value = value;
+        }
+        return value;
+    }
+
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V,
+            ? extends V> function) {
+        checkFunction(function);
+        Node<K, V>[] path = newPath();
+        int depth = search(checkKey(key), path);
+        Node<K, V> node = depth > 0 ? path[depth - 1] : null;
+        int expectedModCount = modCount;
+        V value = function.apply(key, node == null ? null : node.value);
+        checkUnmodified(expectedModCount);
+        if (value == null) {
+            if (node != null) {
+                delete(path, depth);
+            }
+        } else if (node != null) {
+            node.value = value;
+        } else {
+            insert(key, value, path, ~depth);
+        }
+        return value;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if key, value or function is null
+     */
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V,
+            ? extends V> function) {
+        checkFunction(function);
+        if (value == null) {
+            throw new IllegalArgumentException("Cannot merge a null value!");
+        }
+        Node<K, V>[] path = newPath();
+        int depth = search(checkKey(key), path);
+        if (depth < 0) {
+            insert(key, value, path, ~depth);
+            return value;
+        }
+        Node<K, V> node = path[depth - 1];
+        if (node.value == null) {
+            node.value = value;
+            return value;
+        }
+        int expectedModCount = modCount;
+        V merged = function.apply(node.value, value);
+        checkUnmodified(expectedModCount);
+        if (merged == null) {
+            delete(path, depth);
+        } else {
+            node.value = merged;
+        }
+        return merged;
+    }
+
+    @Override
+    public V remove(Object key) {
+        Node<K, V>[] path = newPath();
+        int depth = search(checkKey(key), path);
+        if (depth < 0) {
+            return null;
+        }
+        V value = path[depth - 1].value;
+        delete(path, depth);
+        return value;
+    }
+
+    @Override
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return export(floorNode(checkKey(key), false));
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return keyOf(floorNode(checkKey(key), false));
+    }
+
+    @Override
+    public Map.Entry<K, V> floorEntry(K key) {
+        return export(floorNode(checkKey(key), true));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return keyOf(floorNode(checkKey(key), true));
+    }
+
+    @Override
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return export(ceilingNode(checkKey(key), true));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return keyOf(ceilingNode(checkKey(key), true));
+    }
+
+    @Override
+    public Map.Entry<K, V> higherEntry(K key) {
+        return export(ceilingNode(checkKey(key), false));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return keyOf(ceilingNode(checkKey(key), false));
+    }
+
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return export(firstNode());
+    }
+
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return export(lastNode());
+    }
+
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        return poll(firstNode());
+    }
+
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        return poll(lastNode());
+    }
+
+    @Override
+    public K firstKey() {
+        return key(firstNode());
+    }
+
+    @Override
+    public K lastKey() {
+        return key(lastNode());
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return null;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new SubMap(null, false, null, false, false).entrySet();
+    }
+
+    @Override
+    public NavigableSet<K> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return new KeySet(this);
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return new SubMap(null, false, null, false, true);
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive,
+                                     K toKey, boolean toInclusive) {
+        if (checkKey(fromKey).compareTo(checkKey(toKey)) > 0) {
+            throw new IllegalArgumentException("The lower bound is greater"
+                    + " than the upper bound.");
+        }
+        return new SubMap(fromKey, fromInclusive, toKey, toInclusive, false);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        return new SubMap(null, false, checkKey(toKey), inclusive, false);
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return new SubMap(checkKey(fromKey), inclusive, null, false, false);
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    /**
+     * Checks that a key is not null, and casts it for comparison. A key of
+     * the wrong type fails in compareTo with a ClassCastException.
+     * @param key the key
+     * @return the key
+     * @throws IllegalArgumentException if the key is null
+     */
+    @SuppressWarnings("unchecked")
+    private K checkKey(Object key) {
+        if (key == null) {
+            throw new IllegalArgumentException("The key is null!");
+        }
+        return (K) key;
+    }
+
+    /**
+     * Checks that a remapping function is not null.
+     * @param function the function
+     * @throws IllegalArgumentException if the function is null
+     */
+    private static void checkFunction(Object function) {
+        if (function == null) {
+            throw new IllegalArgumentException("The function is null!");
+        }
+    }
+
+    /**
+     * Checks that a remapping function did not change the structure of the
+     * map, which would invalidate the recorded path.
+     * @param expectedModCount the modCount before the function ran
+     * @throws ConcurrentModificationException if the structure changed
+     */
+    private void checkUnmodified(int expectedModCount) {
+        if (modCount != expectedModCount) {
+            throw new ConcurrentModificationException("The function"
+                    + " modified the map.");
+        }
+    }
+
+    /**
+     * Allocates a path stack deep enough for any root-to-leaf walk.
+     * @return an empty path stack
+     */
+    @SuppressWarnings("unchecked")
+    private Node<K, V>[] newPath() {
+        return (Node<K, V>[]) new Node<?, ?>[height() + 2];
+    }
+
+    /**
+     * Iterative lookup, one comparison per level.
+     * @param key the key to look for
+     * @return the node holding the key, or null if it is not in the map
+     */
+    private Node<K, V> findNode(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.getKey());
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? node.getLeft() : node.getRight();
+        }
+        return null;
+    }
+
+    /**
+     * Descends to a key, recording every node on the way.
+     * @param key the key to look for
+     * @param path filled with the nodes from the root down
+     * @return the length of the path if the key was found, its last node
+     * holding the key; otherwise the bitwise complement of the length of
+     * the path, its last node being the parent of the missing key
+     */
+    private int search(K key, Node<K, V>[] path) {
+        int depth = 0;
+        Node<K, V> node = root;
+        while (node != null) {
+            path[depth++] = node;
+            int cmp = key.compareTo(node.getKey());
+            if (cmp == 0) {
+                return depth;
+            }
+            node = cmp < 0 ? node.getLeft() : node.getRight();
+        }
+        return ~depth;
+    }
+
+    /**
+     * Hangs a new node below the end of a search path that missed, and
+     * rebalances the path.
+     * @param key the key of the new node
+     * @param value the value of the new node
+     * @param path the search path
+     * @param depth the length of the path
+     */
+    private void insert(K key, V value, Node<K, V>[] path, int depth) {
+        Node<K, V> node = new Node<K, V>(key, value);
+        if (depth == 0) {
+            root = node;
+        } else {
+            Node<K, V> parent = path[depth - 1];
+            if (key.compareTo(parent.getKey()) < 0) {
+                parent.setLeft(node);
+            } else {
+                parent.setRight(node);
+            }
+            rebalance(path, depth);
+        }
+        size++;
+        modCount++;
+    }
+
+    /**
+     * Unlinks the node at the end of a search path and rebalances the
+     * path. A node with two children is replaced by its predecessor node,
+     * found by extending the path, which takes over its children, height
+     * and place.
+     * @param path the search path, with room to extend it to a leaf
+     * @param depth the length of the path
+     */
+    private void delete(Node<K, V>[] path, int depth) {
+        int index = depth - 1;
+        Node<K, V> node = path[index];
+        Node<K, V> parent = index == 0 ? null : path[index - 1];
+        if (node.getLeft() == null || node.getRight() == null) {
+            relink(parent, node, node.getLeft() == null ? node.getRight()
+                    : node.getLeft());
+            depth--;
+        } else {
+            Node<K, V> pred = node.getLeft();
+            while (pred.getRight() != null) {
+                path[depth++] = pred;
+                pred = pred.getRight();
+            }
+            if (depth > index + 1) {
+                path[depth - 1].setRight(pred.getLeft());
+                pred.setLeft(node.getLeft());
+            }
+            pred.setRight(node.getRight());
+            pred.setHeight(node.getHeight());
+            pred.setBalanceFactor(node.getBalanceFactor());
+            relink(parent, node, pred);
+            path[index] = pred;
+        }
+        node.setLeft(null);
+        node.setRight(null);
+        size--;
+        modCount++;
+        rebalance(path, depth);
+    }
+
+    /**
+     * Walks back up a path fixing heights and rotating where needed.
+     * Stops at the first subtree whose height did not change.
+     * @param path the nodes from the root down
+     * @param depth the number of nodes in the path
+     */
+    private void rebalance(Node<K, V>[] path, int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            Node<K, V> node = path[i];
+            int oldHeight = node.getHeight();
+            update(node);
+            Node<K, V> rotated = rebuild(node);
+            if (rotated != node) {
+                relink(i == 0 ? null : path[i - 1], node, rotated);
+            }
+            if (rotated.getHeight() == oldHeight) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replaces a child of parent, or the root if parent is null.
+     * @param parent the parent, null if oldChild is the root
+     * @param oldChild the child being replaced
+     * @param newChild the node taking its place
+     */
+    private void relink(Node<K, V> parent, Node<K, V> oldChild,
+                        Node<K, V> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.getLeft() == oldChild) {
+            parent.setLeft(newChild);
+        } else {
+            parent.setRight(newChild);
+        }
+    }
+
+    /**
+     * Recalculates the height and balance factor of a node from its
+     * children.
+     * @param node the node needing recalculation
+     */
+    private static void update(AVLNode<?> node) {
+        int lh = node.getLeft() == null ? -1 : node.getLeft().getHeight();
+        int rh = node.getRight() == null ? -1 : node.getRight().getHeight();
+        node.setHeight(Math.max(lh, rh) + 1);
+        node.setBalanceFactor(lh - rh);
+    }
+
+    /**
+     * Rebuild the subtree by testing which rotation should be operated.
+     * @param node current subtree root node
+     * @return new root node after rotation
+     */
+    private Node<K, V> rebuild(Node<K, V> node) {
+        if (node.getBalanceFactor() > 1) {
+            if (node.getLeft().getBalanceFactor() < 0) {
+                node.setLeft(rotateL(node.getLeft()));
+            }
+            return rotateR(node);
+        } else if (node.getBalanceFactor() < -1) {
+            if (node.getRight().getBalanceFactor() > 0) {
+                node.setRight(rotateR(node.getRight()));
+            }
+            return rotateL(node);
+        }
+        return node;
+    }
+
+    /**
+     * Single left rotation.
+     * @param node current root node to be rotated to left
+     * @return the middle node, also the new root node
+     */
+    private Node<K, V> rotateL(Node<K, V> node) {
+        Node<K, V> rotated = node.getRight();
+        node.setRight(rotated.getLeft());
+        rotated.setLeft(node);
+        update(node);
+        update(rotated);
+        return rotated;
+    }
+
+    /**
+     * Single right rotation.
+     * @param node current root node to be rotated to right
+     * @return the middle node, also the new root node
+     */
+    private Node<K, V> rotateR(Node<K, V> node) {
+        Node<K, V> rotated = node.getLeft();
+        node.setLeft(rotated.getRight());
+        rotated.setRight(node);
+        update(node);
+        update(rotated);
+        return rotated;
+    }
+
+    /**
+     * Returns the leftmost node.
+     * @return the node with the smallest key, null if the map is empty
+     */
+    private Node<K, V> firstNode() {
+        Node<K, V> node = root;
+        while (node != null && node.getLeft() != null) {
+            node = node.getLeft();
+        }
+        return node;
+    }
+
+    /**
+     * Returns the rightmost node.
+     * @return the node with the greatest key, null if the map is empty
+     */
+    private Node<K, V> lastNode() {
+        Node<K, V> node = root;
+        while (node != null && node.getRight() != null) {
+            node = node.getRight();
+        }
+        return node;
+    }
+
+    /**
+     * Finds the node with the greatest key below a bound in one descent.
+     * @param key the bound
+     * @param inclusive whether a key equal to the bound qualifies
+     * @return the node, or null if there is none
+     */
+    private Node<K, V> floorNode(K key, boolean inclusive) {
+        Node<K, V> best = null;
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.getKey());
+            if (cmp > 0 || (cmp == 0 && inclusive)) {
+                best = node;
+                if (cmp == 0) {
+                    return best;
+                }
+                node = node.getRight();
+            } else {
+                node = node.getLeft();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Finds the node with the smallest key above a bound in one descent.
+     * @param key the bound
+     * @param inclusive whether a key equal to the bound qualifies
+     * @return the node, or null if there is none
+     */
+    private Node<K, V> ceilingNode(K key, boolean inclusive) {
+        Node<K, V> best = null;
+        Node<K, V> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.getKey());
+            if (cmp < 0 || (cmp == 0 && inclusive)) {
+                best = node;
+                if (cmp == 0) {
+                    return best;
+                }
+                node = node.getLeft();
+            } else {
+                node = node.getRight();
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns an immutable snapshot of a node.
+     * @param node the node, may be null
+     * @return the snapshot, or null if node is null
+     */
+    private static <K, V> Map.Entry<K, V> export(Map.Entry<K, V> node) {
+        return node == null ? null
+                : new AbstractMap.SimpleImmutableEntry<K, V>(node);
+    }
+
+    /**
+     * Returns the key of a node.
+     * @param node the node, may be null
+     * @return the key, or null if node is null
+     */
+    private static <K> K keyOf(Map.Entry<K, ?> node) {
+        return node == null ? null : node.getKey();
+    }
+
+    /**
+     * Returns the key of a node that has to exist.
+     * @param node the node, may be null
+     * @return the key
+     * @throws NoSuchElementException if node is null
+     */
+    private static <K> K key(Map.Entry<K, ?> node) {
+        if (node == null) {
+            throw new NoSuchElementException("The map is empty.");
+        }
+        return node.getKey();
+    }
+
+    /**
+     * Removes a node and returns a snapshot of it.
+     * @param node the node, may be null
+     * @return the snapshot, or null if node is null
+     */
+    private Map.Entry<K, V> poll(Node<K, V> node) {
+        Map.Entry<K, V> entry = export(node);
+        if (node != null) {
+            remove(node.getKey());
+        }
+        return entry;
+    }
+
+    /**
+     * A node holding a key, as its data, and a value.
+     * @param <K> the type of the keys
+     * @param <V> the type of the values
+     */
+    private static final class Node<K extends Comparable<? super K>, V>
+            extends AVLNode<K> implements Map.Entry<K, V> {
+        private V value;
+
+        /**
+         * Creates a leaf.
+         * @param key the key
+         * @param value the value
+         */
+        private Node(K key, V value) {
+            super(key);
+            this.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return getData();
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Node<K, V> getLeft() {
+            return (Node<K, V>) super.getLeft();
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public Node<K, V> getRight() {
+            return (Node<K, V>) super.getRight();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return getKey().equals(entry.getKey())
+                    && Objects.equals(value, entry.getValue());
+        }
+
+        @Override
+        public int hashCode() {
+            return getKey().hashCode() ^ Objects.hashCode(value);
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + value;
+        }
+    }
+
+    /**
+     * A view of the keys between two bounds, in ascending or descending
+     * order, backed by the map. A null bound leaves that end open. Keys
+     * outside of the bounds cannot be added through the view.
+     */
+    private final class SubMap extends AbstractMap<K, V>
+            implements NavigableMap<K, V> {
+        private final K lo;
+        private final boolean loInclusive;
+        private final K hi;
+        private final boolean hiInclusive;
+        private final boolean descending;
+
+        /**
+         * Creates the view.
+         * @param lo the lower bound, null for none
+         * @param loInclusive whether the view includes lo
+         * @param hi the upper bound, null for none
+         * @param hiInclusive whether the view includes hi
+         * @param descending whether the view iterates from hi down to lo
+         */
+        private SubMap(K lo, boolean loInclusive, K hi, boolean hiInclusive,
+                       boolean descending) {
+            this.lo = lo;
+            this.loInclusive = loInclusive;
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            this.descending = descending;
+        }
+
+        /**
+         * Checks whether a key is below the lower bound.
+         * @param key the key
+         * @return whether the key is too low for the view
+         */
+        private boolean tooLow(K key) {
+            if (lo == null) {
+                return false;
+            }
+            int cmp = key.compareTo(lo);
+            return cmp < 0 || (cmp == 0 && !loInclusive);
+        }
+
+        /**
+         * Checks whether a key is above the upper bound.
+         * @param key the key
+         * @return whether the key is too high for the view
+         */
+        private boolean tooHigh(K key) {
+            if (hi == null) {
+                return false;
+            }
+            int cmp = key.compareTo(hi);
+            return cmp > 0 || (cmp == 0 && !hiInclusive);
+        }
+
+        /**
+         * Checks whether a key is within the bounds.
+         * @param key the key
+         * @return whether the key is in the view
+         */
+        private boolean inRange(K key) {
+            return !tooLow(key) && !tooHigh(key);
+        }
+
+        /**
+         * Finds the node with the smallest key in the view.
+         * @return the node, or null if the view is empty
+         */
+        private Node<K, V> absLowest() {
+            Node<K, V> node = lo == null ? firstNode()
+                    : ceilingNode(lo, loInclusive);
+            return node == null || tooHigh(node.getKey()) ? null : node;
+        }
+
+        /**
+         * Finds the node with the greatest key in the view.
+         * @return the node, or null if the view is empty
+         */
+        private Node<K, V> absHighest() {
+            Node<K, V> node = hi == null ? lastNode()
+                    : floorNode(hi, hiInclusive);
+            return node == null || tooLow(node.getKey()) ? null : node;
+        }
+
+        /**
+         * Finds the node in the view with the smallest key above a bound,
+         * in ascending order.
+         * @param key the bound
+         * @param inclusive whether a key equal to the bound qualifies
+         * @return the node, or null if there is none
+         */
+        private Node<K, V> absCeiling(K key, boolean inclusive) {
+            if (tooLow(key)) {
+                return absLowest();
+            }
+            Node<K, V> node = ceilingNode(key, inclusive);
+            return node == null || tooHigh(node.getKey()) ? null : node;
+        }
+
+        /**
+         * Finds the node in the view with the greatest key below a bound,
+         * in ascending order.
+         * @param key the bound
+         * @param inclusive whether a key equal to the bound qualifies
+         * @return the node, or null if there is none
+         */
+        private Node<K, V> absFloor(K key, boolean inclusive) {
+            if (tooHigh(key)) {
+                return absHighest();
+            }
+            Node<K, V> node = floorNode(key, inclusive);
+            return node == null || tooLow(node.getKey()) ? null : node;
+        }
+
+        /**
+         * Finds the first node in the order of the view.
+         * @return the node, or null if the view is empty
+         */
+        private Node<K, V> first() {
+            return descending ? absHighest() : absLowest();
+        }
+
+        /**
+         * Finds the last node in the order of the view.
+         * @return the node, or null if the view is empty
+         */
+        private Node<K, V> last() {
+            return descending ? absLowest() : absHighest();
+        }
+
+        /**
+         * Finds the first node at or after a key in the order of the view.
+         * @param key the bound
+         * @param inclusive whether a key equal to the bound qualifies
+         * @return the node, or null if there is none
+         */
+        private Node<K, V> ceiling(K key, boolean inclusive) {
+            return descending ? absFloor(checkKey(key), inclusive)
+                    : absCeiling(checkKey(key), inclusive);
+        }
+
+        /**
+         * Finds the last node at or before a key in the order of the view.
+         * @param key the bound
+         * @param inclusive whether a key equal to the bound qualifies
+         * @return the node, or null if there is none
+         */
+        private Node<K, V> floor(K key, boolean inclusive) {
+            return descending ? absCeiling(checkKey(key), inclusive)
+                    : absFloor(checkKey(key), inclusive);
+        }
+
+        /**
+         * Checks that a bound of a nested view lies within this view.
+         * @param key the bound
+         * @param inclusive whether the nested view includes the bound
+         * @return the bound
+         */
+        private K checkNested(K key, boolean inclusive) {
+            checkKey(key);
+            boolean onOpenEnd = !inclusive
+                    && ((lo != null && key.compareTo(lo) == 0)
+                    || (hi != null && key.compareTo(hi) == 0));
+            if (!inRange(key) && !onOpenEnd) {
+                throw new IllegalArgumentException("The bound is out of"
+                        + " the range of this view.");
+            }
+            return key;
+        }
+
+        /**
+         * Creates a view nested in this one, in the same order. A null
+         * bound keeps the bound of this view.
+         * @param newLo the lower bound in ascending order
+         * @param newLoInclusive whether the nested view includes newLo
+         * @param newHi the upper bound in ascending order
+         * @param newHiInclusive whether the nested view includes newHi
+         * @return the nested view
+         */
+        private NavigableMap<K, V> nested(K newLo, boolean newLoInclusive,
+                                          K newHi, boolean newHiInclusive) {
+            if (newLo != null && newHi != null
+                    && newLo.compareTo(newHi) > 0) {
+                throw new IllegalArgumentException("The lower bound is"
+                        + " greater than the upper bound.");
+            }
+            if (newLo == null) {
+                newLo = lo;
+                newLoInclusive = loInclusive;
+            } else {
+                checkNested(newLo, newLoInclusive);
+            }
+            if (newHi == null) {
+                newHi = hi;
+                newHiInclusive = hiInclusive;
+            } else {
+                checkNested(newHi, newHiInclusive);
+            }
+            return new SubMap(newLo, newLoInclusive, newHi, newHiInclusive,
+                    descending);
+        }
+
+        @Override
+        public int size() {
+            if (lo == null && hi == null) {
+                return size;
+            }
+            int count = 0;
+            for (Iterator<Map.Entry<K, V>> it = new EntryIterator(this);
+                 it.hasNext(); it.next()) {
+                count++;
+            }
+            return count;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return first() == null;
+        }
+
+        @Override
+        public V get(Object key) {
+            K k = checkKey(key);
+            return inRange(k) ? AVLMap.this.get(k) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            K k = checkKey(key);
+            return inRange(k) && AVLMap.this.containsKey(k);
+        }
+
+        /**
+         * {@inheritDoc}
+         *
+         * @throws IllegalArgumentException if the key is null or outside
+         * of the bounds of the view
+         */
+        @Override
+        public V put(K key, V value) {
+            if (!inRange(checkKey(key))) {
+                throw new IllegalArgumentException("The key is out of the"
+                        + " range of this view.");
+            }
+            return AVLMap.this.put(key, value);
+        }
+
+        @Override
+        public V remove(Object key) {
+            K k = checkKey(key);
+            return inRange(k) ? AVLMap.this.remove(k) : null;
+        }
+
+        @Override
+        public Map.Entry<K, V> lowerEntry(K key) {
+            return export(floor(key, false));
+        }
+
+        @Override
+        public K lowerKey(K key) {
+            return keyOf(floor(key, false));
+        }
+
+        @Override
+        public Map.Entry<K, V> floorEntry(K key) {
+            return export(floor(key, true));
+        }
+
+        @Override
+        public K floorKey(K key) {
+            return keyOf(floor(key, true));
+        }
+
+        @Override
+        public Map.Entry<K, V> ceilingEntry(K key) {
+            return export(ceiling(key, true));
+        }
+
+        @Override
+        public K ceilingKey(K key) {
+            return keyOf(ceiling(key, true));
+        }
+
+        @Override
+        public Map.Entry<K, V> higherEntry(K key) {
+            return export(ceiling(key, false));
+        }
+
+        @Override
+        public K higherKey(K key) {
+            return keyOf(ceiling(key, false));
+        }
+
+        @Override
+        public Map.Entry<K, V> firstEntry() {
+            return export(first());
+        }
+
+        @Override
+        public Map.Entry<K, V> lastEntry() {
+            return export(last());
+        }
+
+        @Override
+        public Map.Entry<K, V> pollFirstEntry() {
+            return poll(first());
+        }
+
+        @Override
+        public Map.Entry<K, V> pollLastEntry() {
+            return poll(last());
+        }
+
+        @Override
+        public K firstKey() {
+            return key(first());
+        }
+
+        @Override
+        public K lastKey() {
+            return key(last());
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return descending ? Collections.reverseOrder() : null;
+        }
+
+        @Override
+        public Set<Map.Entry<K, V>> entrySet() {
+            return new AbstractSet<Map.Entry<K, V>>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return new EntryIterator(SubMap.this);
+                }
+
+                @Override
+                public int size() {
+                    return SubMap.this.size();
+                }
+
+                @Override
+                public boolean isEmpty() {
+                    return SubMap.this.isEmpty();
+                }
+
+                @Override
+                public boolean contains(Object o) {
+                    if (!(o instanceof Map.Entry)
+                            || ((Map.Entry<?, ?>) o).getKey() == null) {
+                        return false;
+                    }
+                    Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+                    K key = checkKey(entry.getKey());
+                    Node<K, V> node = inRange(key) ? findNode(key) : null;
+                    return node != null
+                            && Objects.equals(node.value, entry.getValue());
+                }
+
+                @Override
+                public boolean remove(Object o) {
+                    if (!contains(o)) {
+                        return false;
+                    }
+                    AVLMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+                    return true;
+                }
+            };
+        }
+
+        @Override
+        public NavigableSet<K> keySet() {
+            return navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> navigableKeySet() {
+            return new KeySet(this);
+        }
+
+        @Override
+        public NavigableSet<K> descendingKeySet() {
+            return descendingMap().navigableKeySet();
+        }
+
+        @Override
+        public NavigableMap<K, V> descendingMap() {
+            return new SubMap(lo, loInclusive, hi, hiInclusive, !descending);
+        }
+
+        @Override
+        public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive,
+                                         K toKey, boolean toInclusive) {
+            checkKey(fromKey);
+            checkKey(toKey);
+            return descending ? nested(toKey, toInclusive, fromKey,
+                    fromInclusive) : nested(fromKey, fromInclusive, toKey,
+                    toInclusive);
+        }
+
+        @Override
+        public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+            checkKey(toKey);
+            return descending ? nested(toKey, inclusive, null, false)
+                    : nested(null, false, toKey, inclusive);
+        }
+
+        @Override
+        public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+            checkKey(fromKey);
+            return descending ? nested(null, false, fromKey, inclusive)
+                    : nested(fromKey, inclusive, null, false);
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            return subMap(fromKey, true, toKey, false);
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            return headMap(toKey, false);
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            return tailMap(fromKey, true);
+        }
+    }
+
+    /**
+     * Iterates over the nodes of a view in its order with a stack of the
+     * nodes still to visit. Removing through the iterator removes the key
+     * from the map and seeks past it again, since the removal may rotate
+     * the nodes on the stack.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private final Node<K, V>[] stack = newPath();
+        private final SubMap view;
+        private int top;
+        private int expectedModCount = modCount;
+        private Node<K, V> lastReturned;
+
+        /**
+         * Creates the iterator, positioned before the first node.
+         * @param view the view to iterate over
+         */
+        private EntryIterator(SubMap view) {
+            this.view = view;
+            if (view.descending) {
+                seek(view.hi, view.hiInclusive);
+            } else {
+                seek(view.lo, view.loInclusive);
+            }
+        }
+
+        /**
+         * Fills the stack with the nodes at or after a key in the order of
+         * the view.
+         * @param from the key to start at, null for the first node
+         * @param inclusive whether a node holding from is included
+         */
+        private void seek(K from, boolean inclusive) {
+            top = 0;
+            Node<K, V> node = root;
+            while (node != null) {
+                if (from != null) {
+                    int cmp = node.getKey().compareTo(from);
+                    if (view.descending ? cmp > 0 || (cmp == 0 && !inclusive)
+                            : cmp < 0 || (cmp == 0 && !inclusive)) {
+                        node = view.descending ? node.getLeft()
+                                : node.getRight();
+                        continue;
+                    }
+                }
+                stack[top++] = node;
+                node = view.descending ? node.getRight() : node.getLeft();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (top == 0) {
+                return false;
+            }
+            K key = stack[top - 1].getKey();
+            return view.descending ? !view.tooLow(key) : !view.tooHigh(key);
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("The map was"
+                        + " modified during the traversal.");
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException("The traversal is done.");
+            }
+            Node<K, V> node = stack[--top];
+            Node<K, V> child = view.descending ? node.getLeft()
+                    : node.getRight();
+            while (child != null) {
+                stack[top++] = child;
+                child = view.descending ? child.getRight() : child.getLeft();
+            }
+            lastReturned = node;
+            return node;
+        }
+
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException("Nothing to remove.");
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException("The map was"
+                        + " modified during the traversal.");
+            }
+            K key = lastReturned.getKey();
+            AVLMap.this.remove(key);
+            seek(key, false);
+            lastReturned = null;
+            expectedModCount = modCount;
+        }
+    }
+
+    /**
+     * A navigable set of the keys of the map or of one of its views,
+     * backed by it.
+     */
+    private final class KeySet extends AbstractSet<K>
+            implements NavigableSet<K> {
+        private final NavigableMap<K, V> map;
+
+        /**
+         * Creates the key set.
+         * @param map the map or view whose keys to show
+         */
+        private KeySet(NavigableMap<K, V> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            Iterator<Map.Entry<K, V>> entries = map.entrySet().iterator();
+            return new Iterator<K>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public K next() {
+                    return entries.next().getKey();
+                }
+
+                @Override
+                public void remove() {
+                    entries.remove();
+                }
+            };
+        }
+
+        @Override
+        public Iterator<K> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o != null && map.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+            map.remove(o);
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public K lower(K key) {
+            return map.lowerKey(key);
+        }
+
+        @Override
+        public K floor(K key) {
+            return map.floorKey(key);
+        }
+
+        @Override
+        public K ceiling(K key) {
+            return map.ceilingKey(key);
+        }
+
+        @Override
+        public K higher(K key) {
+            return map.higherKey(key);
+        }
+
+        @Override
+        public K first() {
+            return map.firstKey();
+        }
+
+        @Override
+        public K last() {
+            return map.lastKey();
+        }
+
+        @Override
+        public K pollFirst() {
+            return keyOf(map.pollFirstEntry());
+        }
+
+        @Override
+        public K pollLast() {
+            return keyOf(map.pollLastEntry());
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return map.comparator();
+        }
+
+        @Override
+        public NavigableSet<K> descendingSet() {
+            return new KeySet(map.descendingMap());
+        }
+
+        @Override
+        public NavigableSet<K> subSet(K fromElement, boolean fromInclusive,
+                                      K toElement, boolean toInclusive) {
+            return new KeySet(map.subMap(fromElement, fromInclusive,
+                    toElement, toInclusive));
+        }
+
+        @Override
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return new KeySet(map.headMap(toElement, inclusive));
+        }
+
+        @Override
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return new KeySet(map.tailMap(fromElement, inclusive));
+        }
+
+        @Override
+        public SortedSet<K> subSet(K fromElement, K toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> headSet(K toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> tailSet(K fromElement) {
+            return tailSet(fromElement, true);
+        }
+    }
+}
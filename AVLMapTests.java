@@ -0,0 +1,290 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for AVLMap: single-descent updates, navigation and views.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLMapTests {
+    private static final int TIMEOUT = 200;
+    private AVLMap<Integer, String> map;
+
+    @Before
+    public void setup() {
+        map = new AVLMap<>();
+        for (int key : new int[] {10, 6, 7, 4, 12, 5, 1, 13, 11, 15}) {
+            map.put(key, "v" + key);
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPut() {
+        assertEquals(10, map.size());
+        assertEquals(Arrays.asList(1, 4, 5, 6, 7, 10, 11, 12, 13, 15),
+                new ArrayList<>(map.keySet()));
+        assertEquals("v7", map.get(7));
+        assertNull(map.get(8));
+        assertEquals("v7", map.put(7, "seven"));
+        assertEquals("seven", map.get(7));
+        assertEquals(10, map.size());
+        assertBalanced(map.getRoot());
+        assertEquals(3, map.height());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testReplaceIsNotStructural() {
+        Iterator<Map.Entry<Integer, String>> it = map.entrySet().iterator();
+        it.next();
+        map.put(1, "one");
+        map.merge(4, "!", String::concat);
+        map.compute(5, (k, v) -> v + k);
+        map.entrySet().iterator().next().setValue("uno");
+        assertEquals(4, (int) it.next().getKey());
+        assertEquals("v4!", map.get(4));
+        assertEquals("v55", map.get(5));
+        assertEquals("uno", map.get(1));
+    }
+
+    @Test(timeout = TIMEOUT, expected = ConcurrentModificationException.class)
+    public void testStructuralChangeFailsFast() {
+        Iterator<Integer> it = map.keySet().iterator();
+        it.next();
+        map.put(2, "v2");
+        it.next();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPutIfAbsent() {
+        assertEquals("v6", map.putIfAbsent(6, "six"));
+        assertNull(map.putIfAbsent(8, "v8"));
+        assertEquals("v8", map.get(8));
+        map.put(9, null);
+        assertNull(map.putIfAbsent(9, "v9"));
+        assertEquals("v9", map.get(9));
+        assertEquals(12, map.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testComputeFamily() {
+        assertEquals("v6", map.computeIfAbsent(6, k -> "six"));
+        assertEquals("v2", map.computeIfAbsent(2, k -> "v" + k));
+        assertNull(map.computeIfAbsent(3, k -> null));
+        assertFalse(map.containsKey(3));
+        assertNull(map.computeIfPresent(3, (k, v) -> "three"));
+        assertEquals("v2!", map.computeIfPresent(2, (k, v) -> v + "!"));
+        assertNull(map.computeIfPresent(2, (k, v) -> null));
+        assertFalse(map.containsKey(2));
+        assertEquals("x", map.compute(3, (k, v) -> v == null ? "x" : v));
+        assertNull(map.compute(10, (k, v) -> null));
+        assertFalse(map.containsKey(10));
+        assertEquals(10, map.size());
+        assertBalanced(map.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMerge() {
+        AVLMap<String, Integer> counts = new AVLMap<>();
+        for (String word : "a b a c b a".split(" ")) {
+            counts.merge(word, 1, Integer::sum);
+        }
+        assertEquals(Integer.valueOf(3), counts.get("a"));
+        assertEquals(Integer.valueOf(2), counts.get("b"));
+        assertEquals(Integer.valueOf(1), counts.get("c"));
+        assertNull(counts.merge("c", 1, (a, b) -> null));
+        assertEquals(2, counts.size());
+    }
+
+    @Test(timeout = TIMEOUT, expected = ConcurrentModificationException.class)
+    public void testFunctionModifyingMap() {
+        map.computeIfAbsent(2, k -> map.put(3, "v3"));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRemoveKeepsEntries() {
+        Map.Entry<Integer, String> entry = null;
+        for (Map.Entry<Integer, String> e : map.entrySet()) {
+            if (e.getKey() == 7) {
+                entry = e;
+            }
+        }
+        assertEquals("v10", map.remove(10));
+        assertEquals("v6", map.remove(6));
+        assertNull(map.remove(6));
+        assertEquals(8, map.size());
+        assertBalanced(map.getRoot());
+        entry.setValue("seven");
+        assertEquals("seven", map.get(7));
+        assertEquals(Arrays.asList(1, 4, 5, 7, 11, 12, 13, 15),
+                new ArrayList<>(map.keySet()));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testNavigation() {
+        assertEquals(Integer.valueOf(7), map.lowerKey(10));
+        assertEquals(Integer.valueOf(10), map.floorKey(10));
+        assertEquals(Integer.valueOf(7), map.floorKey(9));
+        assertEquals(Integer.valueOf(11), map.higherKey(10));
+        assertEquals(Integer.valueOf(10), map.ceilingKey(8));
+        assertNull(map.lowerKey(1));
+        assertNull(map.ceilingKey(16));
+        assertEquals("v10", map.ceilingEntry(8).getValue());
+        assertEquals(Integer.valueOf(1), map.firstKey());
+        assertEquals(Integer.valueOf(15), map.lastKey());
+        assertEquals("v1", map.pollFirstEntry().getValue());
+        assertEquals("v15", map.pollLastEntry().getValue());
+        assertEquals(8, map.size());
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testFirstKeyEmpty() {
+        new AVLMap<Integer, String>().firstKey();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testViews() {
+        NavigableMap<Integer, String> sub = map.subMap(5, true, 12, false);
+        assertEquals(Arrays.asList(5, 6, 7, 10, 11),
+                new ArrayList<>(sub.keySet()));
+        assertEquals(5, sub.size());
+        assertEquals(Integer.valueOf(11), sub.lastKey());
+        assertNull(sub.get(12));
+        sub.put(8, "v8");
+        assertEquals("v8", map.get(8));
+
+        NavigableMap<Integer, String> desc = sub.descendingMap();
+        assertEquals(Arrays.asList(11, 10, 8, 7, 6, 5),
+                new ArrayList<>(desc.keySet()));
+        assertEquals(Integer.valueOf(10), desc.higherKey(11));
+        assertEquals(Arrays.asList(10, 8),
+                new ArrayList<>(desc.subMap(10, true, 7, false).keySet()));
+        assertEquals(Arrays.asList(15, 13, 12),
+                new ArrayList<>(map.descendingMap().headMap(12, true)
+                        .keySet()));
+        assertEquals(Arrays.asList(1, 4),
+                new ArrayList<>(map.headMap(5).keySet()));
+        assertEquals(Arrays.asList(13, 15),
+                new ArrayList<>(map.tailMap(12, false).keySet()));
+        assertEquals(Arrays.asList(15, 13, 12, 11, 10, 8, 7, 6, 5, 4, 1),
+                new ArrayList<>(map.descendingKeySet()));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testViewPutOutOfRange() {
+        map.headMap(5, false).put(5, "v5");
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNestedViewOutOfRange() {
+        map.subMap(5, true, 12, false).subMap(4, true, 10, true);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testIteratorRemove() {
+        Iterator<Integer> it = map.keySet().iterator();
+        while (it.hasNext()) {
+            if (it.next() % 2 == 0) {
+                it.remove();
+            }
+        }
+        assertEquals(Arrays.asList(1, 5, 7, 11, 13, 15),
+                new ArrayList<>(map.keySet()));
+        assertBalanced(map.getRoot());
+
+        it = map.descendingMap().tailMap(11, true).keySet().iterator();
+        while (it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+        assertEquals(Arrays.asList(13, 15), new ArrayList<>(map.keySet()));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testEqualsTreeMap() {
+        TreeMap<Integer, String> expected = new TreeMap<>(map);
+        assertEquals(expected, map);
+        assertEquals(expected.hashCode(), map.hashCode());
+        assertEquals(expected.toString(), map.toString());
+        assertEquals(map, new AVLMap<>(expected));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRandomAgainstTreeMap() {
+        Random random = new Random(1332);
+        AVLMap<Integer, Integer> tree = new AVLMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int i = 0; i < 20000; i++) {
+            int key = random.nextInt(2000);
+            switch (random.nextInt(4)) {
+                case 0:
+                    assertEquals(expected.put(key, i), tree.put(key, i));
+                    break;
+                case 1:
+                    assertEquals(expected.remove(key), tree.remove(key));
+                    break;
+                case 2:
+                    assertEquals(expected.merge(key, 1, Integer::sum),
+                            tree.merge(key, 1, Integer::sum));
+                    break;
+                default:
+                    assertEquals(expected.computeIfPresent(key,
+                            (k, v) -> v % 3 == 0 ? null : v + 1),
+                            tree.computeIfPresent(key,
+                                    (k, v) -> v % 3 == 0 ? null : v + 1));
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        assertEquals(expected, tree);
+        assertBalanced(tree.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testPutNullKey() {
+        map.put(null, "null");
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testMergeNullValue() {
+        map.merge(1, null, String::concat);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSameEntryForSameKey() {
+        Map.Entry<Integer, String> first = map.entrySet().iterator().next();
+        assertSame(first, map.entrySet().iterator().next());
+        assertTrue(map.entrySet().contains(first));
+    }
+
+    /**
+     * Checks the heights and balance factors of a subtree.
+     * @param node the subtree root
+     * @return the height of the subtree
+     */
+    private int assertBalanced(AVLNode<Integer> node) {
+        if (node == null) {
+            return -1;
+        }
+        int lh = assertBalanced(node.getLeft());
+        int rh = assertBalanced(node.getRight());
+        assertEquals(Math.max(lh, rh) + 1, node.getHeight());
+        assertEquals(lh - rh, node.getBalanceFactor());
+        assertTrue(Math.abs(lh - rh) <= 1);
+        return node.getHeight();
+    }
+}
@@ -0,0 +1,192 @@
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Optional counters for the hot paths of {@link AVL}: rotations by kind,
+ * and the comparisons and depth of every search. They are shared by all
+ * trees in the JVM and exposed as {@link TreeStats} snapshots and, through
+ * {@link AVLMetricsMXBean}, over JMX.
+ *
+ * The metrics are off unless the JVM is started with
+ * {@code -Davl.metrics=true}. The flag is a static final field, so once
+ * this class is initialized the JIT treats it as a constant and drops the
+ * disabled instrumentation from the compiled code entirely. When enabled,
+ * every counter is a LongAdder, striped across threads, so concurrent
+ * trees do not contend on a shared cache line.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public final class AVLMetrics {
+    /**
+     * Whether the trees record metrics, read once from the
+     * {@code avl.metrics} system property.
+     */
+    public static final boolean ENABLED = Boolean.getBoolean("avl.metrics");
+
+    /**
+     * The name the MXBean is registered under.
+     */
+    public static final String OBJECT_NAME = "AVL:type=Metrics";
+
+    /**
+     * The kinds of rebalancing. A double rotation counts once, as its own
+     * kind.
+     */
+    public enum Rotation {
+        L, R, LR, RL
+    }
+
+    /**
+     * One bucket per possible search depth; deeper searches are impossible
+     * in a tree of fewer than 2^31 nodes, but go into the last one.
+     */
+    private static final int DEPTHS = 48;
+
+    private static final LongAdder[] ROTATIONS =
+            adders(Rotation.values().length);
+    private static final LongAdder COMPARISONS = new LongAdder();
+    private static final LongAdder[] SEARCHES = adders(DEPTHS);
+
+    static {
+        if (ENABLED) {
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(
+                        new MXBean(), new ObjectName(OBJECT_NAME));
+            } catch (JMException e) {
+                throw new IllegalStateException("Cannot register "
+                        + OBJECT_NAME, e);
+            }
+        }
+    }
+
+    /**
+     * Utility class, do not instantiate.
+     */
+    private AVLMetrics() {
+    }
+
+    /**
+     * Creates an array of counters.
+     * @param count the number of counters
+     * @return the counters
+     */
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+
+    /**
+     * Records a rotation. Callers check {@link #ENABLED} first.
+     * @param kind the kind of rotation
+     */
+    static void rotation(Rotation kind) {
+        ROTATIONS[kind.ordinal()].increment();
+    }
+
+    /**
+     * Records a search. Callers check {@link #ENABLED} first.
+     * @param depth the number of nodes the search compared against, one
+     * comparison each
+     */
+    static void search(int depth) {
+        COMPARISONS.add(depth);
+        SEARCHES[Math.min(depth, DEPTHS - 1)].increment();
+    }
+
+    /**
+     * Reads the current counters. All zero if the metrics are disabled.
+     *
+     * @return a snapshot of the counters
+     */
+    public static TreeStats snapshot() {
+        long[] rotations = new long[ROTATIONS.length];
+        for (int i = 0; i < rotations.length; i++) {
+            rotations[i] = ROTATIONS[i].sum();
+        }
+        long[] depths = new long[DEPTHS];
+        for (int i = 0; i < DEPTHS; i++) {
+            depths[i] = SEARCHES[i].sum();
+        }
+        return new TreeStats(rotations, COMPARISONS.sum(), depths);
+    }
+
+    /**
+     * Sets every counter back to zero. Updates made while resetting may be
+     * lost.
+     */
+    public static void reset() {
+        for (LongAdder adder : ROTATIONS) {
+            adder.reset();
+        }
+        COMPARISONS.reset();
+        for (LongAdder adder : SEARCHES) {
+            adder.reset();
+        }
+    }
+
+    /**
+     * The MXBean, reading a snapshot per attribute.
+     */
+    private static final class MXBean implements AVLMetricsMXBean {
+        @Override
+        public long getLeftRotations() {
+            return snapshot().getRotations(Rotation.L);
+        }
+
+        @Override
+        public long getRightRotations() {
+            return snapshot().getRotations(Rotation.R);
+        }
+
+        @Override
+        public long getLeftRightRotations() {
+            return snapshot().getRotations(Rotation.LR);
+        }
+
+        @Override
+        public long getRightLeftRotations() {
+            return snapshot().getRotations(Rotation.RL);
+        }
+
+        @Override
+        public long getComparisons() {
+            return snapshot().getComparisons();
+        }
+
+        @Override
+        public long getSearches() {
+            return snapshot().getSearches();
+        }
+
+        @Override
+        public double getMeanDepth() {
+            return snapshot().getMeanDepth();
+        }
+
+        @Override
+        public int getDepthP99() {
+            return snapshot().getDepthPercentile(99);
+        }
+
+        @Override
+        public int getMaxDepth() {
+            return snapshot().getMaxDepth();
+        }
+
+        @Override
+        public long[] getDepthHistogram() {
+            return snapshot().getDepthHistogram();
+        }
+
+        @Override
+        public void reset() {
+            AVLMetrics.reset();
+        }
+    }
+}
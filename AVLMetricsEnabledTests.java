@@ -0,0 +1,90 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Tests for the AVL metrics with recording switched on. They only run in
+ * a JVM started with {@code -Davl.metrics=true}; AVLMetricsTests starts
+ * one for them, and they skip themselves everywhere else.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLMetricsEnabledTests {
+    private static final int TIMEOUT = 200;
+
+    @Before
+    public void setup() {
+        assumeTrue(AVLMetrics.ENABLED);
+        AVLMetrics.reset();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRotationsByKind() {
+        // each tree of three rebalances once, with a different rotation
+        int[][] orders = {{1, 2, 3}, {3, 2, 1}, {3, 1, 2}, {1, 3, 2}};
+        for (int[] order : orders) {
+            AVL<Integer> tree = new AVL<>();
+            for (int data : order) {
+                tree.add(data);
+            }
+        }
+        TreeStats stats = AVLMetrics.snapshot();
+        assertEquals(1, stats.getRotations(AVLMetrics.Rotation.L));
+        assertEquals(1, stats.getRotations(AVLMetrics.Rotation.R));
+        assertEquals(1, stats.getRotations(AVLMetrics.Rotation.LR));
+        assertEquals(1, stats.getRotations(AVLMetrics.Rotation.RL));
+        assertEquals(4, stats.getRotations());
+        // the first add of each tree finds no root to search
+        assertEquals(8, stats.getSearches());
+        assertEquals(4, stats.getSearches(1));
+        assertEquals(4, stats.getSearches(2));
+        assertEquals(12, stats.getComparisons());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSearchDepths() {
+        AVL<Integer> tree = new AVL<>();
+        for (int data : new int[] {4, 2, 6, 1, 3, 5, 7}) {
+            tree.add(data);
+        }
+        AVLMetrics.reset();
+        tree.contains(4);
+        tree.contains(6);
+        tree.contains(7);
+        tree.contains(8);
+        tree.add(5);
+        TreeStats stats = AVLMetrics.snapshot();
+        assertEquals(5, stats.getSearches());
+        assertEquals(1, stats.getSearches(1));
+        assertEquals(1, stats.getSearches(2));
+        assertEquals(3, stats.getSearches(3));
+        assertEquals(12, stats.getComparisons());
+        assertEquals(3, stats.getMaxDepth());
+        assertEquals(2.4, stats.getMeanDepth(), 1e-9);
+        assertEquals(0, stats.getRotations());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMXBean() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(AVLMetrics.OBJECT_NAME);
+        AVL<Integer> tree = new AVL<>();
+        tree.add(1);
+        tree.add(2);
+        tree.add(3);
+        tree.contains(3);
+        assertEquals(1L, server.getAttribute(name, "LeftRotations"));
+        assertEquals(0L, server.getAttribute(name, "RightRotations"));
+        assertEquals(3L, server.getAttribute(name, "Searches"));
+        assertEquals(2, server.getAttribute(name, "MaxDepth"));
+        server.invoke(name, "reset", null, null);
+        assertEquals(0, AVLMetrics.snapshot().getRotations());
+        assertEquals(0L, server.getAttribute(name, "Searches"));
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * The management interface of {@link AVLMetrics}, registered as
+ * {@code AVL:type=Metrics} when the metrics are enabled. Every getter
+ * reads a fresh {@link TreeStats} snapshot.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public interface AVLMetricsMXBean {
+    /**
+     * @return the number of single left rotations
+     */
+    long getLeftRotations();
+
+    /**
+     * @return the number of single right rotations
+     */
+    long getRightRotations();
+
+    /**
+     * @return the number of left-right double rotations
+     */
+    long getLeftRightRotations();
+
+    /**
+     * @return the number of right-left double rotations
+     */
+    long getRightLeftRotations();
+
+    /**
+     * @return the number of compareTo calls made by searches
+     */
+    long getComparisons();
+
+    /**
+     * @return the number of searches
+     */
+    long getSearches();
+
+    /**
+     * @return the average number of nodes a search compared against
+     */
+    double getMeanDepth();
+
+    /**
+     * @return the 99th percentile of the search depth
+     */
+    int getDepthP99();
+
+    /**
+     * @return the deepest search
+     */
+    int getMaxDepth();
+
+    /**
+     * @return the number of searches indexed by depth
+     */
+    long[] getDepthHistogram();
+
+    /**
+     * Sets every counter back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,98 @@
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeFalse;
+
+/**
+ * Tests for the AVL metrics and their snapshots. The tests run with the
+ * metrics disabled, as they are by default, and start a second JVM with
+ * them enabled for AVLMetricsEnabledTests.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLMetricsTests {
+    private static final int TIMEOUT = 200;
+    private static final int FORK_TIMEOUT = 60000;
+
+    /**
+     * Initializes AVLMetrics outside of the test timeouts; with the
+     * metrics enabled that starts the platform MBean server.
+     */
+    @BeforeClass
+    public static void initMetrics() {
+        AVLMetrics.snapshot();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testDisabledRecordsNothing() {
+        assumeFalse(AVLMetrics.ENABLED);
+        AVL<Integer> avlTree = new AVL<>(Arrays.asList(1, 2, 3, 4, 5, 6, 7));
+        avlTree.contains(4);
+        avlTree.remove(1);
+        TreeStats stats = AVLMetrics.snapshot();
+        assertEquals(0, stats.getRotations());
+        assertEquals(0, stats.getComparisons());
+        assertEquals(0, stats.getSearches());
+        assertEquals(0, stats.getMaxDepth());
+        assertEquals(0, stats.getMeanDepth(), 0);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSnapshot() {
+        long[] depths = new long[48];
+        depths[1] = 1;
+        depths[2] = 2;
+        depths[3] = 6;
+        depths[5] = 1;
+        TreeStats stats = new TreeStats(new long[] {4, 3, 2, 1}, 28,
+                depths);
+        depths[5] = 100;
+        assertEquals(10, stats.getRotations());
+        assertEquals(2, stats.getRotations(AVLMetrics.Rotation.LR));
+        assertEquals(10, stats.getSearches());
+        assertEquals(6, stats.getSearches(3));
+        assertEquals(0, stats.getSearches(100));
+        assertEquals(2.8, stats.getMeanDepth(), 1e-9);
+        assertEquals(5, stats.getMaxDepth());
+        assertEquals(1, stats.getDepthPercentile(0));
+        assertEquals(3, stats.getDepthPercentile(50));
+        assertEquals(3, stats.getDepthPercentile(90));
+        assertEquals(5, stats.getDepthPercentile(99));
+        assertEquals(1, stats.getDepthHistogram()[5]);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testEmptySnapshot() {
+        TreeStats stats = new TreeStats(new long[4], 0, new long[48]);
+        assertEquals(0, stats.getDepthPercentile(99));
+        assertEquals(0, stats.getMeanDepth(), 0);
+        assertArrayEquals(new long[48], stats.getDepthHistogram());
+    }
+
+    @Test(timeout = FORK_TIMEOUT)
+    public void testEnabledInForkedJvm() throws Exception {
+        Process process = new ProcessBuilder(
+                System.getProperty("java.home") + File.separator + "bin"
+                        + File.separator + "java",
+                "-Davl.metrics=true",
+                "-cp", System.getProperty("java.class.path"),
+                "org.junit.runner.JUnitCore",
+                AVLMetricsEnabledTests.class.getName())
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(process.getInputStream().readAllBytes());
+        assertEquals(output, 0, process.waitFor());
+        assertTrue(output, output.contains("OK (3 tests)"));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testPercentileOutOfRange() {
+        AVLMetrics.snapshot().getDepthPercentile(101);
+    }
+}
@@ -0,0 +1,172 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the navigation methods and range views of the AVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLNavigationTests {
+    private static final int TIMEOUT = 200;
+    private AVL<Integer> avlTree;
+    private TreeSet<Integer> expected;
+
+    @Before
+    public void setup() {
+        List<Integer> data = Arrays.asList(10, 6, 7, 4, 12, 5, 1, 13, 11, 15,
+                17, 19, 22, 24, 14);
+        avlTree = new AVL<>(data);
+        expected = new TreeSet<>(data);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testNavigation() {
+        for (int data = -1; data <= 26; data++) {
+            assertEquals(expected.floor(data), avlTree.floor(data));
+            assertEquals(expected.lower(data), avlTree.lower(data));
+            assertEquals(expected.ceiling(data), avlTree.ceiling(data));
+            assertEquals(expected.higher(data), avlTree.higher(data));
+        }
+        assertEquals((Integer) 1, avlTree.first());
+        assertEquals((Integer) 24, avlTree.last());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPoll() {
+        assertEquals((Integer) 1, avlTree.pollFirst());
+        assertEquals((Integer) 24, avlTree.pollLast());
+        assertEquals(13, avlTree.size());
+        assertEquals((Integer) 4, avlTree.first());
+        assertEquals((Integer) 22, avlTree.last());
+        avlTree.clear();
+        assertNull(avlTree.pollFirst());
+        assertNull(avlTree.pollLast());
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testFirstEmpty() {
+        avlTree.clear();
+        avlTree.first();
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testFloorNull() {
+        avlTree.floor(null);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testViews() {
+        for (int lo = 0; lo <= 25; lo++) {
+            for (int hi = lo; hi <= 25; hi++) {
+                assertView(expected.subSet(lo, true, hi, true),
+                        avlTree.subSet(lo, true, hi, true));
+                assertView(expected.subSet(lo, false, hi, false),
+                        avlTree.subSet(lo, false, hi, false));
+                assertView(expected.subSet(lo, hi), avlTree.subSet(lo, hi));
+            }
+            assertView(expected.headSet(lo), avlTree.headSet(lo));
+            assertView(expected.headSet(lo, true), avlTree.headSet(lo, true));
+            assertView(expected.tailSet(lo), avlTree.tailSet(lo));
+            assertView(expected.tailSet(lo, false),
+                    avlTree.tailSet(lo, false));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testNestedViews() {
+        SortedSet<Integer> view = avlTree.subSet(5, 20);
+        assertView(expected.subSet(5, 20).subSet(7, 15), view.subSet(7, 15));
+        assertView(expected.subSet(5, 20).headSet(12), view.headSet(12));
+        assertView(expected.subSet(5, 20).tailSet(12), view.tailSet(12));
+        assertView(expected.subSet(5, 20).headSet(20), view.headSet(20));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testNestedViewOutOfRange() {
+        avlTree.subSet(5, 20).tailSet(3);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testViewIsLive() {
+        SortedSet<Integer> view = avlTree.subSet(5, 12);
+        avlTree.add(8);
+        assertTrue(view.contains(8));
+        assertEquals(Arrays.asList(5, 6, 7, 8, 10, 11), new ArrayList<>(view));
+        assertFalse(view.contains(12));
+        assertFalse(view.contains(1));
+    }
+
+    @Test(timeout = TIMEOUT, expected = ConcurrentModificationException.class)
+    public void testViewIteratorFailFast() {
+        Iterator<Integer> iterator = avlTree.tailSet(5).iterator();
+        iterator.next();
+        avlTree.remove(24);
+        iterator.next();
+    }
+
+    @Test(timeout = TIMEOUT, expected = UnsupportedOperationException.class)
+    public void testViewReadOnly() {
+        avlTree.headSet(10).add(3);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testSubSetReversed() {
+        avlTree.subSet(10, 5);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRandomAgainstTreeSet() {
+        Random random = new Random(1332);
+        avlTree.clear();
+        expected.clear();
+        for (int i = 0; i < 2000; i++) {
+            int data = random.nextInt(500);
+            if (random.nextBoolean()) {
+                avlTree.add(data);
+                expected.add(data);
+            } else if (expected.remove(data)) {
+                avlTree.remove(data);
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            int lo = random.nextInt(520) - 10;
+            int hi = lo + random.nextInt(100);
+            assertEquals(expected.floor(lo), avlTree.floor(lo));
+            assertEquals(expected.higher(hi), avlTree.higher(hi));
+            assertView(expected.subSet(lo, true, hi, false),
+                    avlTree.subSet(lo, true, hi, false));
+        }
+    }
+
+    /**
+     * Checks a view against the matching TreeSet view.
+     * @param expectedView the TreeSet view
+     * @param view the AVL view
+     */
+    private void assertView(SortedSet<Integer> expectedView,
+                            SortedSet<Integer> view) {
+        assertEquals(new ArrayList<>(expectedView), new ArrayList<>(view));
+        assertEquals(expectedView.size(), view.size());
+        assertEquals(expectedView.isEmpty(), view.isEmpty());
+        if (!expectedView.isEmpty()) {
+            assertEquals(expectedView.first(), view.first());
+            assertEquals(expectedView.last(), view.last());
+        }
+        assertEquals(expectedView.size(), view.stream().count());
+    }
+}
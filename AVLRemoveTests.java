@@ -0,0 +1,129 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for the iterative remove of the AVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLRemoveTests {
+    private static final int TIMEOUT = 200;
+    private AVL<Integer> avlTree;
+
+    @Before
+    public void setup() {
+        avlTree = new AVL<>();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testReturnsStoredData() {
+        AVL<String> tree = new AVL<>();
+        String b = new String("b");
+        String d = new String("d");
+        tree.add(d);
+        tree.add(b);
+        tree.add("f");
+        tree.add("a");
+        tree.add("c");
+
+        // d has two children, so its predecessor's data moves up
+        assertSame(d, tree.remove(new String("d")));
+        assertEquals("c", tree.getRoot().getData());
+        assertSame(b, tree.remove(new String("b")));
+        assertEquals(3, tree.size());
+        assertEquals(Arrays.asList("a", "c", "f"), tree.inorder());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testStopsAboveUnchangedHeight() {
+        for (int data : new int[] {8, 4, 12, 2, 6, 10, 14}) {
+            avlTree.add(data);
+        }
+        AVLNode<Integer> root = avlTree.getRoot();
+        root.setBalanceFactor(42);
+
+        // the left subtree keeps its height, so the root is not revisited
+        avlTree.remove(6);
+
+        assertEquals(42, root.getBalanceFactor());
+        assertEquals(1, root.getLeft().getHeight());
+        assertEquals(1, root.getLeft().getBalanceFactor());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRotatesOnSeveralLevels() {
+        // a Fibonacci tree loses a level on every ancestor of its
+        // shallowest leaf, so removing it rotates more than once
+        for (int data : new int[] {8, 5, 11, 3, 7, 10, 12, 2, 4, 6, 9, 1}) {
+            avlTree.add(data);
+        }
+        assertEquals(4, avlTree.height());
+        avlTree.remove(12);
+        assertEquals(3, avlTree.height());
+        assertEquals(11, avlTree.size());
+        assertBalanced(avlTree.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRandomAgainstTreeSet() {
+        Random random = new Random(1332);
+        TreeSet<Integer> expected = new TreeSet<>();
+        for (int i = 0; i < 20000; i++) {
+            int data = random.nextInt(2000);
+            if (random.nextInt(2) == 0) {
+                expected.add(data);
+                avlTree.add(data);
+            } else if (expected.remove(data)) {
+                assertEquals(Integer.valueOf(data), avlTree.remove(data));
+            }
+        }
+        assertEquals(expected.size(), avlTree.size());
+        assertEquals(new ArrayList<>(expected), avlTree.inorder());
+        assertBalanced(avlTree.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMissingLeavesTreeIntact() {
+        for (int i = 0; i < 10; i++) {
+            avlTree.add(i * 2);
+        }
+        try {
+            avlTree.remove(7);
+        } catch (NoSuchElementException e) {
+            assertEquals(10, avlTree.size());
+            assertBalanced(avlTree.getRoot());
+            avlTree.remove(8);
+            assertEquals(9, avlTree.size());
+            return;
+        }
+        fail("remove(7) did not throw");
+    }
+
+    /**
+     * Checks the heights and balance factors of a subtree.
+     * @param node the subtree root
+     * @return the height of the subtree
+     */
+    private int assertBalanced(AVLNode<Integer> node) {
+        if (node == null) {
+            return -1;
+        }
+        int lh = assertBalanced(node.getLeft());
+        int rh = assertBalanced(node.getRight());
+        assertEquals(Math.max(lh, rh) + 1, node.getHeight());
+        assertEquals(lh - rh, node.getBalanceFactor());
+        assertTrue(Math.abs(lh - rh) <= 1);
+        return node.getHeight();
+    }
+}
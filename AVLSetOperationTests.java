@@ -0,0 +1,229 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for the join-based set operations of the AVL: join, split, union,
+ * intersection and difference.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class AVLSetOperationTests {
+    private static final int TIMEOUT = 200;
+    private AVL<Integer> avlTree;
+
+    @Before
+    public void setup() {
+        avlTree = new AVL<>(Arrays.asList(
+                10, 6, 7, 4, 12, 5, 1, 13, 11, 15, 17, 19, 22, 24, 14));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testJoin() {
+        AVL<Integer> right = new AVL<>(Arrays.asList(40, 30, 50));
+        assertSame(avlTree, AVL.join(avlTree, 25, right));
+        assertEquals(Arrays.asList(1, 4, 5, 6, 7, 10, 11, 12, 13, 14, 15,
+                17, 19, 22, 24, 25, 30, 40, 50), avlTree.inorder());
+        assertEquals(19, avlTree.size());
+        assertBalanced(avlTree.getRoot());
+        assertEquals(0, right.size());
+        assertNull(right.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testJoinUnevenHeights() {
+        AVL<Integer> left = new AVL<>();
+        AVL<Integer> right = new AVL<>();
+        for (int i = 0; i < 1000; i++) {
+            left.add(i);
+        }
+        right.add(2000);
+        AVL.join(left, 1500, right);
+        assertEquals(1002, left.size());
+        assertBalanced(left.getRoot());
+        AVL.join(new AVL<Integer>(), -1, left);
+        assertEquals(0, left.size());
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testJoinKeyOutOfOrder() {
+        AVL.join(avlTree, 20, new AVL<>(Arrays.asList(30)));
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testJoinDifferentClasses() {
+        AVL.join(avlTree, 30, new OrderStatisticAVL<>(Arrays.asList(40)));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSplit() {
+        AVL<Integer> upper = avlTree.split(13);
+        assertEquals(Arrays.asList(1, 4, 5, 6, 7, 10, 11, 12),
+                avlTree.inorder());
+        assertEquals(8, avlTree.size());
+        assertEquals(Arrays.asList(13, 14, 15, 17, 19, 22, 24),
+                upper.inorder());
+        assertEquals(7, upper.size());
+        assertBalanced(avlTree.getRoot());
+        assertBalanced(upper.getRoot());
+
+        upper = avlTree.split(8);
+        assertEquals(Arrays.asList(1, 4, 5, 6, 7), avlTree.inorder());
+        assertEquals(Arrays.asList(10, 11, 12), upper.inorder());
+        assertEquals(3, upper.size());
+        assertEquals(0, avlTree.split(100).size());
+        assertEquals(5, avlTree.split(0).size());
+        assertEquals(0, avlTree.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSplitOrderStatistic() {
+        OrderStatisticAVL<Integer> tree = new OrderStatisticAVL<>();
+        for (int i = 0; i < 500; i++) {
+            tree.add(i * 7 % 500);
+        }
+        AVL<Integer> upper = tree.split(123);
+        assertTrue(upper instanceof OrderStatisticAVL);
+        assertEquals(123, tree.size());
+        assertEquals(377, upper.size());
+        assertEquals(123, OrderStatisticRotateRotate.assertCounts(
+                tree.getRoot()));
+        assertEquals(377, OrderStatisticRotateRotate.assertCounts(
+                upper.getRoot()));
+        assertEquals(Integer.valueOf(223),
+                ((OrderStatisticAVL<Integer>) upper).select(100));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSetOperations() {
+        AVL<Integer> other = new AVL<>(Arrays.asList(3, 13, 14, 30, 7));
+        assertTrue(avlTree.union(other));
+        assertEquals(17, avlTree.size());
+        assertEquals(0, other.size());
+        assertBalanced(avlTree.getRoot());
+
+        assertTrue(avlTree.intersection(new AVL<>(Arrays.asList(
+                1, 2, 3, 7, 30, 31))));
+        assertEquals(Arrays.asList(1, 3, 7, 30), avlTree.inorder());
+        assertEquals(4, avlTree.size());
+
+        assertTrue(avlTree.difference(new AVL<>(Arrays.asList(3, 8, 30))));
+        assertEquals(Arrays.asList(1, 7), avlTree.inorder());
+        assertEquals(2, avlTree.size());
+        assertFalse(avlTree.difference(new AVL<>(Arrays.asList(2))));
+        assertFalse(avlTree.union(new AVL<>(Arrays.asList(7))));
+        assertFalse(avlTree.intersection(new AVL<>(Arrays.asList(1, 7, 9))));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testUnionKeepsStoredData() {
+        Integer stored = 1000;
+        Integer equal = Integer.valueOf(1000);
+        assertNotSame(stored, equal);
+        avlTree.add(stored);
+        avlTree.union(new AVL<>(Arrays.asList(equal, 3)));
+        assertSame(stored, avlTree.get(1000));
+        avlTree.intersection(new AVL<>(Arrays.asList(equal)));
+        assertSame(stored, avlTree.get(1000));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testWithItself() {
+        assertFalse(avlTree.union(avlTree));
+        assertFalse(avlTree.intersection(avlTree));
+        assertEquals(15, avlTree.size());
+        assertTrue(avlTree.difference(avlTree));
+        assertEquals(0, avlTree.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLargeAgainstTreeSet() {
+        Random random = new Random(1332);
+        for (int round = 0; round < 3; round++) {
+            TreeSet<Integer> a = new TreeSet<>();
+            TreeSet<Integer> b = new TreeSet<>();
+            for (int i = 0; i < 6000; i++) {
+                a.add(random.nextInt(16000));
+                b.add(random.nextInt(16000));
+            }
+            TreeSet<Integer> expected = new TreeSet<>(a);
+            AVL<Integer> tree = AVL.bulkLoad(a);
+            AVL<Integer> other = AVL.bulkLoad(b);
+            if (round == 0) {
+                assertTrue(tree.union(other));
+                expected.addAll(b);
+            } else if (round == 1) {
+                assertTrue(tree.intersection(other));
+                expected.retainAll(b);
+            } else {
+                assertTrue(tree.difference(other));
+                expected.removeAll(b);
+            }
+            assertEquals(expected.size(), tree.size());
+            assertEquals(new ArrayList<>(expected), tree.inorder());
+            assertBalanced(tree.getRoot());
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testOrderStatisticCounts() {
+        Random random = new Random(1332);
+        OrderStatisticAVL<Integer> tree = new OrderStatisticAVL<>();
+        for (int round = 0; round < 30; round++) {
+            List<Integer> data = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                data.add(random.nextInt(1000));
+            }
+            OrderStatisticAVL<Integer> other = new OrderStatisticAVL<>(
+                    new ArrayList<>(new TreeSet<>(data)));
+            if (round % 3 == 0) {
+                tree.difference(other);
+            } else if (round % 7 == 0) {
+                tree.intersection(other);
+            } else {
+                tree.union(other);
+            }
+            assertEquals(tree.size(),
+                    OrderStatisticRotateRotate.assertCounts(tree.getRoot()));
+        }
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testUnionNull() {
+        avlTree.union(null);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testSplitNull() {
+        avlTree.split(null);
+    }
+
+    /**
+     * Checks the heights and balance factors of a subtree.
+     * @param node the subtree root
+     * @return the height of the subtree
+     */
+    private int assertBalanced(AVLNode<Integer> node) {
+        if (node == null) {
+            return -1;
+        }
+        int lh = assertBalanced(node.getLeft());
+        int rh = assertBalanced(node.getRight());
+        assertEquals(Math.max(lh, rh) + 1, node.getHeight());
+        assertEquals(lh - rh, node.getBalanceFactor());
+        assertTrue(Math.abs(lh - rh) <= 1);
+        return node.getHeight();
+    }
+}
@@ -3,6 +3,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.NoSuchElementException;
@@ -24,20 +25,40 @@ public class AVLStudentTests {
 
     @Before
     public void setup() {
-        avlTree = new AVL<>();
+        avlTree = createTree();
+    }
+
+    /**
+     * Creates the empty tree under test. Override to run these tests
+     * against another AVLInterface implementation.
+     *
+     * @return an empty tree
+     */
+    protected AVLInterface<Integer> createTree() {
+        return new AVL<>();
+    }
+
+    /**
+     * Creates the tree under test from a collection.
+     *
+     * @param data the data to add to the tree
+     * @return the tree holding the data
+     */
+    protected AVLInterface<Integer> createTree(Collection<Integer> data) {
+        return new AVL<>(data);
     }
 
     //---------- Constructor ----------
 
     @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
     public void testConstructorIllegalArgumentException() {
-        avlTree = new AVL<>(null);
+        avlTree = createTree(null);
     }
 
     @Test(timeout = TIMEOUT)
     public void testConstructor() {
         ArrayList<Integer> dataColl = new ArrayList<>(Arrays.asList(dataArray1));
-        avlTree = new AVL<>(dataColl);
+        avlTree = createTree(dataColl);
 
         Integer[] comparisonArray = {7, 5, 15, 4, 6, 12, 19, 1, 10, 13, 17, 22, 11, 14, 24};
         List<Integer> comparisonList = new LinkedList<>(Arrays.asList(comparisonArray));
@@ -147,7 +168,7 @@ public class AVLStudentTests {
 
         //reference: dataArray2 = {20, 5, 7, 10, 14, 17, 18, 19, 3, 4, 1, 2, 6, 13, 23};
         ArrayList<Integer> dataColl = new ArrayList<>(Arrays.asList(dataArray2));
-        avlTree = new AVL<>(dataColl);
+        avlTree = createTree(dataColl);
 
         Integer[] comparisonArr1 = {14, 4, 18, 2, 7, 17, 20, 1, 3, 5, 10, 19, 23, 6, 13};
         List<Integer> comparisonList = new LinkedList<>(Arrays.asList(comparisonArr1));
@@ -200,7 +221,7 @@ public class AVLStudentTests {
     public void testRemoveNoSuchElementException() {
         //reference: dataArray1 = {10, 6, 7, 4, 12, 5, 1, 13, 11, 15, 17, 19, 22, 24, 14};
         ArrayList<Integer> dataColl = new ArrayList<>(Arrays.asList(dataArray1));
-        avlTree = new AVL<>(dataColl);
+        avlTree = createTree(dataColl);
 
         avlTree.remove(8);
     }
@@ -211,7 +232,7 @@ public class AVLStudentTests {
 
         //reference: dataArray1 = {10, 6, 7, 4, 12, 5, 1, 13, 11, 15, 17, 19, 22, 24, 14};
         ArrayList<Integer> dataColl = new ArrayList<>(Arrays.asList(dataArray1));
-        avlTree = new AVL<>(dataColl);
+        avlTree = createTree(dataColl);
 
         Integer[] comparisonArr1 = {7, 5, 15, 4, 6, 12, 19, 1, 10, 13, 17, 22, 11, 14, 24};
         List<Integer> comparisonList = new LinkedList<>(Arrays.asList(comparisonArr1));
@@ -272,7 +293,7 @@ public class AVLStudentTests {
     public void testGetNoSuchElementException() {
         //reference: dataArray2 = {20, 5, 7, 10, 14, 17, 18, 19, 3, 4, 1, 2, 6, 13, 23};
         ArrayList<Integer> dataColl = new ArrayList<>(Arrays.asList(dataArray2));
-        avlTree = new AVL<>(dataColl);
+        avlTree = createTree(dataColl);
         avlTree.get(15);
     }
 
@@ -280,7 +301,7 @@ public class AVLStudentTests {
     public void testGet() {
         //reference: dataArray2 = {20, 5, 7, 10, 14, 17, 18, 19, 3, 4, 1, 2, 6, 13, 23};
         ArrayList<Integer> dataColl = new ArrayList<>(Arrays.asList(dataArray2));
-        avlTree = new AVL<>(dataColl);
+        avlTree = createTree(dataColl);
 
         assertEquals((Integer) 13, avlTree.get(13));
         assertEquals((Integer) 1, avlTree.get(1));
@@ -294,7 +315,7 @@ public class AVLStudentTests {
     public void testContainsIllegalArgumentException() {
         //reference: dataArray2 = {20, 5, 7, 10, 14, 17, 18, 19, 3, 4, 1, 2, 6, 13, 23};
         ArrayList<Integer> dataColl = new ArrayList<>(Arrays.asList(dataArray2));
-        avlTree = new AVL<>(dataColl);
+        avlTree = createTree(dataColl);
         avlTree.contains(null);
     }
 
@@ -302,7 +323,7 @@ public class AVLStudentTests {
     public void testContains() {
         //reference: dataArray2 = {20, 5, 7, 10, 14, 17, 18, 19, 3, 4, 1, 2, 6, 13, 23};
         ArrayList<Integer> dataColl = new ArrayList<>(Arrays.asList(dataArray2));
-        avlTree = new AVL<>(dataColl);
+        avlTree = createTree(dataColl);
 
         assertTrue(avlTree.contains(5));
         assertTrue(avlTree.contains(20));
@@ -320,7 +341,7 @@ public class AVLStudentTests {
     public void testClear() {
         //reference: dataArray2 = {20, 5, 7, 10, 14, 17, 18, 19, 3, 4, 1, 2, 6, 13, 23};
         ArrayList<Integer> dataColl = new ArrayList<>(Arrays.asList(dataArray2));
-        avlTree = new AVL<>(dataColl);
+        avlTree = createTree(dataColl);
 
         avlTree.clear();
 
@@ -334,15 +355,34 @@ public class AVLStudentTests {
     public void testHeight() {
         //reference: dataArray1 = {10, 6, 7, 4, 12, 5, 1, 13, 11, 15, 17, 19, 22, 24, 14};
         ArrayList<Integer> dataColl = new ArrayList<>(Arrays.asList(dataArray1));
-        avlTree = new AVL<>(dataColl);
+        avlTree = createTree(dataColl);
 
         assertEquals(4, avlTree.height());
 
         //reference: dataArray2 = {20, 5, 7, 10, 14, 17, 18, 19, 3, 4, 1, 2, 6, 13, 23};
         dataColl = new ArrayList<>(Arrays.asList(dataArray2));
-        avlTree = new AVL<>(dataColl);
+        avlTree = createTree(dataColl);
 
         assertEquals(4, avlTree.height());
     }
 
+    //---------- List Leaves Descending ----------
+
+    @Test(timeout = TIMEOUT)
+    public void testListLeavesDescending() {
+        assertEquals(new ArrayList<Integer>(), avlTree.listLeavesDescending());
+
+        //reference: dataArray1 = {10, 6, 7, 4, 12, 5, 1, 13, 11, 15, 17, 19, 22, 24, 14};
+        ArrayList<Integer> dataColl = new ArrayList<>(Arrays.asList(dataArray1));
+        avlTree = createTree(dataColl);
+
+        Integer[] comparisonArray = {24, 17, 14, 11, 6, 1};
+        assertEquals(Arrays.asList(comparisonArray), avlTree.listLeavesDescending());
+
+        avlTree.remove(24);
+        avlTree.remove(1);
+        Integer[] comparisonArray2 = {22, 17, 14, 11, 6, 4};
+        assertEquals(Arrays.asList(comparisonArray2), avlTree.listLeavesDescending());
+    }
+
 }
@@ -0,0 +1,588 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An AVL tree whose nodes live in a pool of parallel arrays instead of
+ * separate AVLNode objects.
+ *
+ * A node is a slot index. For every slot the pool holds the left and right
+ * child slots, the height in a single byte, and the data in the key array
+ * at the same index, so a whole tree is four arrays no matter how many
+ * elements it has. No tree of fewer than 2^31 nodes is higher than 46, so
+ * the height always fits in a byte; the balance factor is not stored at
+ * all but read off the heights of the children, which the rebalancing
+ * code has just written anyway. That makes a slot 13 bytes with
+ * compressed oops instead of 16 with an int per slot.
+ *
+ * Slot 0 is the null node. Removed slots are kept on a free list,
+ * threaded through the left array, and reused by later adds.
+ *
+ * getRoot adapts the pool to AVLNode with read-only views of the slots,
+ * so the AVLInterface tests can inspect the structure; it allocates and is
+ * only meant for testing.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class ArrayAVL<T extends Comparable<? super T>>
+        implements AVLInterface<T> {
+    /**
+     * The slot of the null node.
+     */
+    private static final int NIL = 0;
+
+    /**
+     * An upper bound on the height of any tree with fewer than 2^31 nodes.
+     */
+    private static final int MAX_HEIGHT = 46;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private Object[] keys;
+    private int[] left;
+    private int[] right;
+    private byte[] heights;
+    private final int[] path = new int[MAX_HEIGHT + 2];
+    private int root;
+    private int size;
+    private int used;
+    private int free;
+
+    /**
+     * Initializes an empty tree.
+     */
+    public ArrayAVL() {
+        clear();
+    }
+
+    /**
+     * Initializes the tree with the data in the Collection. The data is
+     * added in the same order it is in the Collection.
+     *
+     * @param data the data to add to the tree
+     * @throws IllegalArgumentException if data or any element in data is null
+     */
+    public ArrayAVL(Collection<T> data) {
+        this();
+        if (data == null) {
+            throw new IllegalArgumentException("The collection is empty!");
+        }
+        for (T t : data) {
+            if (t == null) {
+                throw new IllegalArgumentException("Null data in collection.");
+            }
+            add(t);
+        }
+    }
+
+    @Override
+    public void add(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data about to add is null!");
+        }
+        int depth = 0;
+        int cmp = 0;
+        int node = root;
+        while (node != NIL) {
+            cmp = data.compareTo(key(node));
+            if (cmp == 0) {
+                return;
+            }
+            path[depth++] = node;
+            node = cmp < 0 ? left[node] : right[node];
+        }
+        int added = allocate(data);
+        if (depth == 0) {
+            root = added;
+        } else if (cmp < 0) {
+            left[path[depth - 1]] = added;
+        } else {
+            right[path[depth - 1]] = added;
+        }
+        size++;
+        rebalance(depth);
+    }
+
+    @Override
+    public T remove(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Cannot remove null data!");
+        }
+        int depth = 0;
+        int node = root;
+        while (node != NIL) {
+            int cmp = data.compareTo(key(node));
+            if (cmp == 0) {
+                break;
+            }
+            path[depth++] = node;
+            node = cmp < 0 ? left[node] : right[node];
+        }
+        if (node == NIL) {
+            throw new NoSuchElementException("There is no such element");
+        }
+        T removed = key(node);
+        if (left[node] != NIL && right[node] != NIL) {
+            path[depth++] = node;
+            int pred = left[node];
+            while (right[pred] != NIL) {
+                path[depth++] = pred;
+                pred = right[pred];
+            }
+            keys[node] = keys[pred];
+            int parent = path[depth - 1];
+            if (parent == node) {
+                left[parent] = left[pred];
+            } else {
+                right[parent] = left[pred];
+            }
+            node = pred;
+        } else {
+            relink(depth == 0 ? NIL : path[depth - 1], node,
+                    left[node] == NIL ? right[node] : left[node]);
+        }
+        release(node);
+        size--;
+        rebalance(depth);
+        return removed;
+    }
+
+    @Override
+    public T get(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null!");
+        }
+        int node = find(data);
+        if (node == NIL) {
+            throw new NoSuchElementException("No such data in the AVL.");
+        }
+        return key(node);
+    }
+
+    @Override
+    public boolean contains(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException(
+                    "Cannot check whether the AVL tree contains null data.");
+        }
+        return find(data) != NIL;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public List<T> preorder() {
+        List<T> list = new ArrayList<T>(size);
+        int[] stack = new int[height() + 2];
+        int top = 0;
+        if (root != NIL) {
+            stack[top++] = root;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            list.add(key(node));
+            if (right[node] != NIL) {
+                stack[top++] = right[node];
+            }
+            if (left[node] != NIL) {
+                stack[top++] = left[node];
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public List<T> postorder() {
+        List<T> list = new ArrayList<T>(size);
+        int[] stack = new int[height() + 1];
+        int top = 0;
+        int node = root;
+        int last = NIL;
+        while (node != NIL || top > 0) {
+            if (node != NIL) {
+                stack[top++] = node;
+                node = left[node];
+            } else {
+                int peek = stack[top - 1];
+                if (right[peek] != NIL && right[peek] != last) {
+                    node = right[peek];
+                } else {
+                    list.add(key(peek));
+                    last = peek;
+                    top--;
+                }
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public List<T> inorder() {
+        List<T> list = new ArrayList<T>(size);
+        int[] stack = new int[height() + 1];
+        int top = 0;
+        int node = root;
+        while (node != NIL || top > 0) {
+            while (node != NIL) {
+                stack[top++] = node;
+                node = left[node];
+            }
+            node = stack[--top];
+            list.add(key(node));
+            node = right[node];
+        }
+        return list;
+    }
+
+    @Override
+    public List<T> levelorder() {
+        List<T> list = new ArrayList<T>(size);
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        if (root != NIL) {
+            queue[tail++] = root;
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            list.add(key(node));
+            if (left[node] != NIL) {
+                queue[tail++] = left[node];
+            }
+            if (right[node] != NIL) {
+                queue[tail++] = right[node];
+            }
+        }
+        return list;
+    }
+
+    @Override
+    public List<T> listLeavesDescending() {
+        List<T> list = new ArrayList<T>();
+        int[] stack = new int[height() + 1];
+        int top = 0;
+        int node = root;
+        while (node != NIL || top > 0) {
+            while (node != NIL) {
+                stack[top++] = node;
+                node = right[node];
+            }
+            node = stack[--top];
+            if (left[node] == NIL && right[node] == NIL) {
+                list.add(key(node));
+            }
+            node = left[node];
+        }
+        return list;
+    }
+
+    @Override
+    public void clear() {
+        keys = new Object[INITIAL_CAPACITY];
+        left = new int[INITIAL_CAPACITY];
+        right = new int[INITIAL_CAPACITY];
+        heights = new byte[INITIAL_CAPACITY];
+        heights[NIL] = -1;
+        root = NIL;
+        size = 0;
+        used = 1;
+        free = NIL;
+    }
+
+    @Override
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * Returns a read-only AVLNode view of the root slot. The view, and the
+     * views reached through it, read the pool on every call, so they follow
+     * later changes to the tree the way real nodes would.
+     *
+     * @return a view of the root, or null if the tree is empty
+     */
+    @Override
+    public AVLNode<T> getRoot() {
+        return view(root);
+    }
+
+    /**
+     * Returns a view of a slot.
+     * @param node the slot
+     * @return a view of the slot, or null for NIL
+     */
+    private AVLNode<T> view(int node) {
+        return node == NIL ? null : new SlotNode(node);
+    }
+
+    /**
+     * Returns the data of a slot.
+     * @param node the slot
+     * @return the data stored in the slot
+     */
+    @SuppressWarnings("unchecked")
+    private T key(int node) {
+        return (T) keys[node];
+    }
+
+    /**
+     * Iterative lookup, one comparison per level.
+     * @param data the data to look for
+     * @return the slot holding data, or NIL if it is not in the tree
+     */
+    private int find(T data) {
+        int node = root;
+        while (node != NIL) {
+            int cmp = data.compareTo(key(node));
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? left[node] : right[node];
+        }
+        return NIL;
+    }
+
+    /**
+     * Returns the height of a slot.
+     * @param node the slot
+     * @return the height of the slot, -1 for NIL
+     */
+    private int height(int node) {
+        return heights[node];
+    }
+
+    /**
+     * Returns the balance factor of a slot, from the heights of its
+     * children.
+     * @param node the slot, not NIL
+     * @return the balance factor of the slot
+     */
+    private int balanceFactor(int node) {
+        return heights[left[node]] - heights[right[node]];
+    }
+
+    /**
+     * Recalculates the height of a slot from its children.
+     * @param node the slot needing recalculation
+     */
+    private void update(int node) {
+        heights[node] = (byte) (Math.max(heights[left[node]],
+                heights[right[node]]) + 1);
+    }
+
+    /**
+     * Walks back up the path fixing heights and rotating where needed.
+     * Stops at the first subtree whose height did not change.
+     * @param depth the number of slots in the path
+     */
+    private void rebalance(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = path[i];
+            int oldHeight = height(node);
+            update(node);
+            int rotated = rebuild(node);
+            if (rotated != node) {
+                relink(i == 0 ? NIL : path[i - 1], node, rotated);
+            }
+            if (height(rotated) == oldHeight) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replaces a child of parent, or the root if parent is NIL.
+     * @param parent the parent slot, NIL if oldChild is the root
+     * @param oldChild the child being replaced
+     * @param newChild the slot taking its place
+     */
+    private void relink(int parent, int oldChild, int newChild) {
+        if (parent == NIL) {
+            root = newChild;
+        } else if (left[parent] == oldChild) {
+            left[parent] = newChild;
+        } else {
+            right[parent] = newChild;
+        }
+    }
+
+    /**
+     * Rebuild the subtree by testing which rotation should be operated.
+     * @param node current subtree root
+     * @return new subtree root after rotation
+     */
+    private int rebuild(int node) {
+        int bf = balanceFactor(node);
+        if (bf > 1) {
+            if (balanceFactor(left[node]) < 0) {
+                left[node] = rotateL(left[node]);
+            }
+            return rotateR(node);
+        } else if (bf < -1) {
+            if (balanceFactor(right[node]) > 0) {
+                right[node] = rotateR(right[node]);
+            }
+            return rotateL(node);
+        }
+        return node;
+    }
+
+    /**
+     * Single left rotation.
+     * @param node current root to be rotated to left
+     * @return the middle node, also the new root
+     */
+    private int rotateL(int node) {
+        int rotated = right[node];
+        right[node] = left[rotated];
+        left[rotated] = node;
+        update(node);
+        update(rotated);
+        return rotated;
+    }
+
+    /**
+     * Single right rotation.
+     * @param node current root to be rotated to right
+     * @return the middle node, also the new root
+     */
+    private int rotateR(int node) {
+        int rotated = left[node];
+        left[node] = right[rotated];
+        right[rotated] = node;
+        update(node);
+        update(rotated);
+        return rotated;
+    }
+
+    /**
+     * Takes a slot from the free list, or a fresh one from the end of the
+     * arrays, and fills it with a new leaf.
+     * @param data the data of the new leaf
+     * @return the slot of the new leaf
+     */
+    private int allocate(T data) {
+        int node = free;
+        if (node != NIL) {
+            free = left[node];
+        } else {
+            if (used == keys.length) {
+                grow();
+            }
+            node = used++;
+        }
+        keys[node] = data;
+        left[node] = NIL;
+        right[node] = NIL;
+        heights[node] = 0;
+        return node;
+    }
+
+    /**
+     * Puts a slot on the free list and drops its data.
+     * @param node the slot no longer in the tree
+     */
+    private void release(int node) {
+        keys[node] = null;
+        left[node] = free;
+        right[node] = NIL;
+        free = node;
+    }
+
+    /**
+     * Grows every array by half.
+     */
+    private void grow() {
+        int capacity = keys.length + (keys.length >> 1);
+        if (capacity < 0) {
+            capacity = Integer.MAX_VALUE - 8;
+        }
+        if (capacity <= keys.length) {
+            throw new IllegalStateException("The tree is full.");
+        }
+        keys = Arrays.copyOf(keys, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+    }
+
+    /**
+     * A read-only AVLNode view of one slot of the pool.
+     */
+    private final class SlotNode extends AVLNode<T> {
+        private final int slot;
+
+        /**
+         * Creates a view of the slot.
+         *
+         * @param slot the slot to view
+         */
+        private SlotNode(int slot) {
+            super(null);
+            this.slot = slot;
+        }
+
+        @Override
+        public T getData() {
+            return key(slot);
+        }
+
+        @Override
+        public AVLNode<T> getLeft() {
+            return view(left[slot]);
+        }
+
+        @Override
+        public AVLNode<T> getRight() {
+            return view(right[slot]);
+        }
+
+        @Override
+        public int getHeight() {
+            return height(slot);
+        }
+
+        @Override
+        public int getBalanceFactor() {
+            return balanceFactor(slot);
+        }
+
+        @Override
+        public void setData(T data) {
+            throw new UnsupportedOperationException("Read-only view.");
+        }
+
+        @Override
+        public void setLeft(AVLNode<T> left) {
+            throw new UnsupportedOperationException("Read-only view.");
+        }
+
+        @Override
+        public void setRight(AVLNode<T> right) {
+            throw new UnsupportedOperationException("Read-only view.");
+        }
+
+        @Override
+        public void setHeight(int height) {
+            throw new UnsupportedOperationException("Read-only view.");
+        }
+
+        @Override
+        public void setBalanceFactor(int balanceFactor) {
+            throw new UnsupportedOperationException("Read-only view.");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Node containing %s (height %d, balance"
+                    + " factor %d", getData(), getHeight(),
+                    getBalanceFactor());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * Runs the RotateRotate scenarios against ArrayAVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class ArrayAVLRotateRotate extends RotateRotate {
+    @Override
+    protected AVLInterface<Integer> createTree() {
+        return new ArrayAVL<>();
+    }
+}
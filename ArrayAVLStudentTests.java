@@ -0,0 +1,18 @@
+import java.util.Collection;
+
+/**
+ * Runs the AVLStudentTests scenarios against ArrayAVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class ArrayAVLStudentTests extends AVLStudentTests {
+    @Override
+    protected AVLInterface<Integer> createTree() {
+        return new ArrayAVL<>();
+    }
+
+    @Override
+    protected AVLInterface<Integer> createTree(Collection<Integer> data) {
+        return new ArrayAVL<>(data);
+    }
+}
@@ -0,0 +1,755 @@
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import bench.MapTarget;
+import bench.MergeTarget;
+import bench.PageTarget;
+import bench.ScanTarget;
+import bench.SnapshotTarget;
+import bench.StringTarget;
+import bench.Target;
+
+/**
+ * Exposes the trees of this package to the JMH benchmarks in
+ * {@code bench}. JMH cannot generate code for classes in the default
+ * package, and a named package cannot import them, so the benchmarks look
+ * up these factories by name once per trial.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public final class BenchmarkTargets {
+    /**
+     * Utility class, do not instantiate.
+     */
+    private BenchmarkTargets() {
+    }
+
+    /**
+     * Creates an empty {@link AVL}.
+     *
+     * @return the benchmark target
+     */
+    public static Target avl() {
+        return new AVLTarget(new AVL<Integer>());
+    }
+
+    /**
+     * Creates an empty {@link AVL} whose lookups go through a copy of the
+     * original recursive lookup, which throws on every miss. Kept as the
+     * baseline for the iterative lookup path.
+     *
+     * @return the benchmark target
+     */
+    public static Target avlRecursiveLookup() {
+        return new RecursiveLookupTarget(new AVL<Integer>());
+    }
+
+    /**
+     * Creates an empty {@link ArrayAVL}.
+     *
+     * @return the benchmark target
+     */
+    public static Target arrayAvl() {
+        return new InterfaceTarget(new ArrayAVL<Integer>());
+    }
+
+    /**
+     * Creates an empty {@link AVLsample}.
+     *
+     * @return the benchmark target
+     */
+    public static Target avlSample() {
+        return new InterfaceTarget(new AVLsample<Integer>());
+    }
+
+    /**
+     * Creates an empty {@link ConcurrentAVL}.
+     *
+     * @return the benchmark target
+     */
+    public static Target concurrentAvl() {
+        return new ConcurrentTarget(new ConcurrentAVL<Integer>());
+    }
+
+    /**
+     * Creates an empty {@link AVL} behind one lock, the way callers share
+     * an AVL between threads without {@link ConcurrentAVL}.
+     *
+     * @return the benchmark target
+     */
+    public static Target synchronizedAvl() {
+        return new SynchronizedTarget(new AVLTarget(new AVL<Integer>()));
+    }
+
+    /**
+     * Creates an empty {@link PersistentAVL} behind a volatile reference.
+     *
+     * @return the snapshot target
+     */
+    public static SnapshotTarget persistentAvl() {
+        return new PersistentSnapshotTarget();
+    }
+
+    /**
+     * Creates an empty {@link AVL} behind one lock, whose snapshots are
+     * inorder copies taken under the lock.
+     *
+     * @return the snapshot target
+     */
+    public static SnapshotTarget lockedAvl() {
+        return new LockedSnapshotTarget();
+    }
+
+    /**
+     * Publishes each version of a {@link PersistentAVL} through a volatile
+     * field; a snapshot is a read of that field.
+     */
+    private static final class PersistentSnapshotTarget
+            implements SnapshotTarget {
+        private volatile PersistentAVL<Integer> tree = PersistentAVL.empty();
+
+        @Override
+        public synchronized void add(Integer key) {
+            tree = tree.add(key);
+        }
+
+        @Override
+        public synchronized Integer remove(Integer key) {
+            PersistentAVL<Integer> current = tree;
+            if (!current.contains(key)) {
+                return null;
+            }
+            tree = current.remove(key);
+            return key;
+        }
+
+        @Override
+        public Object snapshot() {
+            return tree;
+        }
+    }
+
+    /**
+     * Copies an {@link AVL} under its lock to take a snapshot.
+     */
+    private static final class LockedSnapshotTarget
+            implements SnapshotTarget {
+        private final AVL<Integer> avl = new AVL<>();
+
+        @Override
+        public synchronized void add(Integer key) {
+            avl.add(key);
+        }
+
+        @Override
+        public synchronized Integer remove(Integer key) {
+            return avl.contains(key) ? avl.remove(key) : null;
+        }
+
+        @Override
+        public synchronized Object snapshot() {
+            return avl.inorder();
+        }
+    }
+
+    /**
+     * Creates an empty {@link AVL} to be scanned.
+     *
+     * @return the scan target
+     */
+    public static ScanTarget avlScan() {
+        return new AVLScanTarget();
+    }
+
+    /**
+     * Adapts an {@link AVL} to the scan target.
+     */
+    private static final class AVLScanTarget implements ScanTarget {
+        private AVL<Integer> avl = new AVL<>();
+
+        @Override
+        public void load(Integer[] sorted) {
+            avl = AVL.fromSorted(sorted);
+        }
+
+        @Override
+        public Stream<Integer> stream() {
+            return avl.stream();
+        }
+
+        @Override
+        public List<Integer> inorder() {
+            return avl.inorder();
+        }
+
+        @Override
+        public List<Integer> listLeavesDescending() {
+            return avl.listLeavesDescending();
+        }
+
+        @Override
+        public Stream<Integer> leafStream() {
+            return avl.leafStream();
+        }
+    }
+
+    /**
+     * Creates a pair of empty {@link AVL}s to be merged.
+     *
+     * @return the merge target
+     */
+    public static MergeTarget avlMerge() {
+        return new AVLMergeTarget();
+    }
+
+    /**
+     * Adapts a pair of {@link AVL}s to the merge target.
+     */
+    private static final class AVLMergeTarget implements MergeTarget {
+        private AVL<Integer> tree = new AVL<>();
+        private AVL<Integer> other = new AVL<>();
+
+        @Override
+        public void load(Integer[] tree, Integer[] other) {
+            this.tree = AVL.fromSorted(tree);
+            this.other = AVL.fromSorted(other);
+        }
+
+        @Override
+        public int addEach() {
+            for (Integer key : other.inorder()) {
+                tree.add(key);
+            }
+            return tree.size();
+        }
+
+        @Override
+        public int union() {
+            tree.union(other);
+            return tree.size();
+        }
+
+        @Override
+        public int intersection() {
+            tree.intersection(other);
+            return tree.size();
+        }
+
+        @Override
+        public int difference() {
+            tree.difference(other);
+            return tree.size();
+        }
+    }
+
+    /**
+     * Creates an empty {@link AVLMap} of counts, updated with merge.
+     *
+     * @return the map target
+     */
+    public static MapTarget avlMap() {
+        return new NavigableMapTarget(new AVLMap<Integer, Integer>());
+    }
+
+    /**
+     * Creates an empty {@link java.util.TreeMap} of counts, updated with
+     * merge.
+     *
+     * @return the map target
+     */
+    public static MapTarget treeMap() {
+        return new NavigableMapTarget(new TreeMap<Integer, Integer>());
+    }
+
+    /**
+     * Creates an empty {@link AVL} of key/count pairs ordered by key, the
+     * way a map had to be stored before {@link AVLMap}.
+     *
+     * @return the map target
+     */
+    public static MapTarget avlPairs() {
+        return new PairTarget();
+    }
+
+    /**
+     * Adapts a {@link NavigableMap} to the map target.
+     */
+    private static final class NavigableMapTarget implements MapTarget {
+        private final NavigableMap<Integer, Integer> map;
+
+        /**
+         * Wraps the map.
+         *
+         * @param map the map to wrap
+         */
+        private NavigableMapTarget(NavigableMap<Integer, Integer> map) {
+            this.map = map;
+        }
+
+        @Override
+        public int increment(Integer key) {
+            return map.merge(key, 1, Integer::sum);
+        }
+
+        @Override
+        public int count(Integer key) {
+            return map.getOrDefault(key, 0);
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+    }
+
+    /**
+     * Stores counts in an {@link AVL} of pairs, so that an update looks
+     * the old pair up, removes it and adds a new one.
+     */
+    private static final class PairTarget implements MapTarget {
+        private final AVL<Pair> tree = new AVL<>();
+
+        @Override
+        public int increment(Integer key) {
+            Pair probe = new Pair(key, 0);
+            Pair old = tree.getOrDefault(probe, null);
+            int count = 1;
+            if (old != null) {
+                count += old.count;
+                tree.remove(probe);
+            }
+            tree.add(new Pair(key, count));
+            return count;
+        }
+
+        @Override
+        public int count(Integer key) {
+            Pair pair = tree.getOrDefault(new Pair(key, 0), null);
+            return pair == null ? 0 : pair.count;
+        }
+
+        @Override
+        public void clear() {
+            tree.clear();
+        }
+    }
+
+    /**
+     * An immutable key/count pair compared by key only.
+     */
+    private static final class Pair implements Comparable<Pair> {
+        private final int key;
+        private final int count;
+
+        /**
+         * Creates the pair.
+         *
+         * @param key the key
+         * @param count the count
+         */
+        private Pair(int key, int count) {
+            this.key = key;
+            this.count = count;
+        }
+
+        @Override
+        public int compareTo(Pair other) {
+            return Integer.compare(key, other.key);
+        }
+    }
+
+    /**
+     * Creates an empty {@link AVL} of strings in natural order.
+     *
+     * @return the string target
+     */
+    public static StringTarget avlStrings() {
+        return new AVLStringTarget(new AVL<String>());
+    }
+
+    /**
+     * Creates an empty {@link AVL} of strings ordered by a comparator.
+     *
+     * @return the string target
+     */
+    public static StringTarget avlStringsComparator() {
+        return new AVLStringTarget(new AVL<String>(
+                Comparator.<String>naturalOrder()));
+    }
+
+    /**
+     * Creates an empty {@link AVL} of strings in natural order caching
+     * the first four characters of every string in its node.
+     *
+     * @return the string target
+     */
+    public static StringTarget avlStringsPrefix() {
+        return new AVLStringTarget(new AVL<String>(null, AVL::stringPrefix));
+    }
+
+    /**
+     * Creates an empty {@link ByteKeyAVL}, storing strings as UTF-8.
+     *
+     * @return the string target
+     */
+    public static StringTarget byteKeyAvl() {
+        return new ByteKeyTarget();
+    }
+
+    /**
+     * Adapts a {@link ByteKeyAVL} to the string target.
+     */
+    private static final class ByteKeyTarget implements StringTarget {
+        private final ByteKeyAVL tree = new ByteKeyAVL();
+
+        @Override
+        public void add(String key) {
+            tree.add(key);
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return tree.contains(key);
+        }
+    }
+
+    /**
+     * Adapts an {@link AVL} of strings to the string target.
+     */
+    private static final class AVLStringTarget implements StringTarget {
+        private final AVL<String> tree;
+
+        /**
+         * Wraps the tree.
+         *
+         * @param tree the tree to wrap
+         */
+        private AVLStringTarget(AVL<String> tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public void add(String key) {
+            tree.add(key);
+        }
+
+        @Override
+        public boolean contains(String key) {
+            return tree.contains(key);
+        }
+    }
+
+    /**
+     * Creates an empty {@link AVL} paged through its range iterators.
+     *
+     * @return the page target
+     */
+    public static PageTarget avlPages() {
+        return new AVLPageTarget();
+    }
+
+    /**
+     * Creates an empty {@link ParentAVL} paged through its cursors.
+     *
+     * @return the page target
+     */
+    public static PageTarget parentAvlPages() {
+        return new ParentPageTarget();
+    }
+
+    /**
+     * Adapts an {@link AVL} to the page target. Every page after a key
+     * opens a new tail set iterator.
+     */
+    private static final class AVLPageTarget implements PageTarget {
+        private final AVL<Integer> tree = new AVL<>();
+        private Iterator<Integer> scan;
+
+        @Override
+        public void add(Integer key) {
+            tree.add(key);
+        }
+
+        @Override
+        public int pageAfter(Integer after, int limit) {
+            Iterator<Integer> it = tree.tailSet(after, false).iterator();
+            int sum = 0;
+            for (int i = 0; i < limit && it.hasNext(); i++) {
+                sum += it.next();
+            }
+            return sum;
+        }
+
+        @Override
+        public int nextPage(int limit) {
+            if (scan == null) {
+                scan = tree.iterator();
+            }
+            int sum = 0;
+            for (int i = 0; i < limit; i++) {
+                if (!scan.hasNext()) {
+                    scan = tree.iterator();
+                }
+                sum += scan.next();
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Adapts a {@link ParentAVL} to the page target. Every page after a
+     * key opens a new cursor, and the open scan is one cursor kept
+     * between pages.
+     */
+    private static final class ParentPageTarget implements PageTarget {
+        private final ParentAVL<Integer> tree = new ParentAVL<>();
+        private ParentAVL<Integer>.Cursor scan;
+
+        @Override
+        public void add(Integer key) {
+            tree.add(key);
+        }
+
+        @Override
+        public int pageAfter(Integer after, int limit) {
+            ParentAVL<Integer>.Cursor cursor = tree.cursor(after, false);
+            int sum = 0;
+            for (int i = 0; i < limit && cursor.hasNext(); i++) {
+                sum += cursor.next();
+            }
+            return sum;
+        }
+
+        @Override
+        public int nextPage(int limit) {
+            if (scan == null) {
+                scan = tree.cursor();
+            }
+            int sum = 0;
+            for (int i = 0; i < limit; i++) {
+                if (!scan.hasNext()) {
+                    scan = tree.cursor();
+                }
+                sum += scan.next();
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Adapts a {@link ConcurrentAVL} to the benchmark target.
+     */
+    private static final class ConcurrentTarget implements Target {
+        private final ConcurrentAVL<Integer> tree;
+
+        /**
+         * Wraps the tree.
+         *
+         * @param tree the tree to wrap
+         */
+        private ConcurrentTarget(ConcurrentAVL<Integer> tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public void add(Integer key) {
+            tree.add(key);
+        }
+
+        @Override
+        public Integer remove(Integer key) {
+            try {
+                return tree.remove(key);
+            } catch (NoSuchElementException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public Integer get(Integer key) {
+            return tree.getOrDefault(key, null);
+        }
+
+        @Override
+        public boolean contains(Integer key) {
+            return tree.contains(key);
+        }
+    }
+
+    /**
+     * Serializes every call to another target on one monitor.
+     */
+    private static final class SynchronizedTarget implements Target {
+        private final Target target;
+
+        /**
+         * Wraps the target.
+         *
+         * @param target the target to wrap
+         */
+        private SynchronizedTarget(Target target) {
+            this.target = target;
+        }
+
+        @Override
+        public synchronized void add(Integer key) {
+            target.add(key);
+        }
+
+        @Override
+        public synchronized Integer remove(Integer key) {
+            return target.remove(key);
+        }
+
+        @Override
+        public synchronized Integer get(Integer key) {
+            return target.get(key);
+        }
+
+        @Override
+        public synchronized boolean contains(Integer key) {
+            return target.contains(key);
+        }
+    }
+
+    /**
+     * Adapts an {@link AVLInterface} to the benchmark target.
+     */
+    private static class InterfaceTarget implements Target {
+        private final AVLInterface<Integer> tree;
+
+        /**
+         * Wraps the tree.
+         *
+         * @param tree the tree to wrap
+         */
+        InterfaceTarget(AVLInterface<Integer> tree) {
+            this.tree = tree;
+        }
+
+        @Override
+        public void add(Integer key) {
+            tree.add(key);
+        }
+
+        @Override
+        public Integer remove(Integer key) {
+            try {
+                return tree.remove(key);
+            } catch (NoSuchElementException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public Integer get(Integer key) {
+            try {
+                return tree.get(key);
+            } catch (NoSuchElementException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean contains(Integer key) {
+            return tree.contains(key);
+        }
+    }
+
+    /**
+     * Adapts an {@link AVL}, using its non-throwing lookup for get.
+     */
+    private static final class AVLTarget extends InterfaceTarget {
+        private final AVL<Integer> avl;
+
+        /**
+         * Wraps the tree.
+         *
+         * @param avl the tree to wrap
+         */
+        private AVLTarget(AVL<Integer> avl) {
+            super(avl);
+            this.avl = avl;
+        }
+
+        @Override
+        public Integer get(Integer key) {
+            return avl.getOrDefault(key, null);
+        }
+
+        @Override
+        public void addAll(List<Integer> keys) {
+            avl.addAll(keys);
+        }
+
+        @Override
+        public void removeAll(List<Integer> keys) {
+            avl.removeAll(keys);
+        }
+    }
+
+    /**
+     * Adapts an {@link AVL}, looking keys up with the original recursive
+     * helper that calls both equals and compareTo on every level and turns
+     * a miss into an exception.
+     */
+    private static final class RecursiveLookupTarget extends InterfaceTarget {
+        private final AVL<Integer> avl;
+
+        /**
+         * Wraps the tree.
+         *
+         * @param avl the tree to wrap
+         */
+        private RecursiveLookupTarget(AVL<Integer> avl) {
+            super(avl);
+            this.avl = avl;
+        }
+
+        @Override
+        public Integer get(Integer key) {
+            try {
+                return getHelper(avl.getRoot(), key).getData();
+            } catch (NoSuchElementException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean contains(Integer key) {
+            try {
+                getHelper(avl.getRoot(), key);
+            } catch (NoSuchElementException e) {
+                return false;
+            }
+            return true;
+        }
+
+        /**
+         * The original recursive lookup of {@link AVL}.
+         * @throws java.util.NoSuchElementException if the data is not found
+         * @param node current subtree root node
+         * @param data the data to look for
+         * @return the node holding the data
+         */
+        private AVLNode<Integer> getHelper(AVLNode<Integer> node,
+                                           Integer data) {
+            if (node == null) {
+                throw new NoSuchElementException("No such data in the AVL.");
+            }
+            if (node.getData().equals(data)) {
+                return node;
+            } else if (node.getData().compareTo(data) < 0) {
+                return getHelper(node.getRight(), data);
+            } else {
+                return getHelper(node.getLeft(), data);
+            }
+        }
+    }
+}
@@ -0,0 +1,678 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An AVL tree of byte string keys, ordered by unsigned lexicographic
+ * comparison, whose keys are front-coded against their parent's key.
+ *
+ * The nodes are rows of parallel arrays, as in {@link ArrayAVL}, and the
+ * keys live in one shared byte slab. A node does not store its whole key,
+ * only the length of the prefix it shares with its parent's key and the
+ * bytes after it, so keys with long common prefixes, such as URLs, mostly
+ * cost their distinguishing tail. A node costs 21 bytes plus its suffix,
+ * where an {@code AVL<String>} pays 32 for the node, 24 for the String and
+ * 16 for its array header on top of the whole key.
+ *
+ * A lookup never has to rebuild a key. Knowing how much of the searched
+ * key matched the parent, a node that shares less with its parent is
+ * decided by one byte, a node that shares more compares the same way as
+ * the parent did, and only a node that shares exactly as much compares its
+ * suffix, from where the parent left off. Every byte of the searched key
+ * is compared at most once on the way down.
+ *
+ * A rotation gives a few nodes a new parent; those are encoded again
+ * against their new parent, which takes the keys of the nodes involved.
+ * The slab space a node stops using is counted, and the slab is compacted
+ * once more than half of it is unused.
+ *
+ * String keys are stored as UTF-8, whose unsigned byte order is the order
+ * of the code points. That is the order of {@link String#compareTo} except
+ * for characters outside of the Basic Multilingual Plane.
+ *
+ * Slot 0 is the null node; its height is -1 so that heights can be read
+ * without null checks. Removed slots are kept on a free list, threaded
+ * through the left array, and reused by later adds.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class ByteKeyAVL {
+    /**
+     * The index of the null node.
+     */
+    private static final int NIL = 0;
+
+    /**
+     * An upper bound on the height of any tree with fewer than 2^31 nodes.
+     */
+    private static final int MAX_HEIGHT = 46;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private static final int INITIAL_SLAB = 256;
+
+    private int[] left;
+    private int[] right;
+    private byte[] heights;
+    // The length of the prefix each key shares with its parent's key.
+    private int[] shared;
+    private int[] offsets;
+    private int[] lengths;
+    private byte[] slab;
+    private int slabUsed;
+    private int garbage;
+    private final int[] path = new int[MAX_HEIGHT + 2];
+    // The keys of the nodes on the path, rebuilt from the root as needed.
+    private final byte[][] pathKeys = new byte[MAX_HEIGHT + 2][];
+    private int knownKeys;
+    // The key of the node a rotation returned.
+    private byte[] rotatedKey;
+    // How the last search compared against the last node on its path.
+    private int searchLcp;
+    private int searchCmp;
+    private int root;
+    private int size;
+    private int used;
+    private int free;
+
+    /**
+     * Initializes an empty tree.
+     */
+    public ByteKeyAVL() {
+        clear();
+    }
+
+    /**
+     * Add the key as a leaf to the tree. If the key is already in the
+     * tree, then nothing is done. The tree keeps its own copy of the key.
+     *
+     * @throws java.lang.IllegalArgumentException if the key is null
+     * @param key the key to be added
+     */
+    public void add(byte[] key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Data about to add is null!");
+        }
+        compactIfSparse();
+        int depth = search(key);
+        if (depth > 0) {
+            return;
+        }
+        depth = ~depth;
+        int lcp = depth == 0 ? 0 : searchLcp;
+        int added = allocate(key, lcp);
+        if (depth == 0) {
+            root = added;
+        } else if (searchCmp < 0) {
+            left[path[depth - 1]] = added;
+        } else {
+            right[path[depth - 1]] = added;
+        }
+        size++;
+        rebalance(depth);
+        forgetKeys();
+    }
+
+    /**
+     * Adds the UTF-8 encoding of a string.
+     *
+     * @throws java.lang.IllegalArgumentException if the key is null
+     * @param key the key to be added
+     */
+    public void add(String key) {
+        add(encode(key));
+    }
+
+    /**
+     * Removes the key from the tree, replacing a node with two children by
+     * its predecessor.
+     *
+     * @throws java.lang.IllegalArgumentException if the key is null
+     * @throws java.util.NoSuchElementException if the key is not in the tree
+     * @param key the key to remove from the tree
+     */
+    public void remove(byte[] key) {
+        if (key == null) {
+            throw new IllegalArgumentException("Cannot remove null data!");
+        }
+        compactIfSparse();
+        int depth = search(key);
+        if (depth < 0) {
+            throw new NoSuchElementException("There is no such element");
+        }
+        int index = depth - 1;
+        int node = path[index];
+        int parent = index == 0 ? NIL : path[index - 1];
+        byte[] parentKey = index == 0 ? null : pathKey(index - 1);
+        if (left[node] == NIL || right[node] == NIL) {
+            int child = left[node] == NIL ? right[node] : left[node];
+            if (child != NIL) {
+                reparent(child, childKey(key, child), parentKey);
+            }
+            relink(parent, node, child);
+            depth--;
+        } else {
+            byte[] predParentKey = key;
+            int pred = left[node];
+            byte[] predKey = childKey(key, pred);
+            while (right[pred] != NIL) {
+                path[depth++] = pred;
+                predParentKey = predKey;
+                pred = right[pred];
+                predKey = childKey(predKey, pred);
+            }
+            if (depth > index + 1) {
+                int orphan = left[pred];
+                if (orphan != NIL) {
+                    reparent(orphan, childKey(predKey, orphan),
+                            predParentKey);
+                }
+                right[path[depth - 1]] = orphan;
+                reparent(left[node], childKey(key, left[node]), predKey);
+                left[pred] = left[node];
+            }
+            reparent(right[node], childKey(key, right[node]), predKey);
+            right[pred] = right[node];
+            heights[pred] = heights[node];
+            reparent(pred, predKey, parentKey);
+            relink(parent, node, pred);
+            path[index] = pred;
+        }
+        knownKeys = Math.min(knownKeys, index);
+        release(node);
+        size--;
+        rebalance(depth);
+        forgetKeys();
+    }
+
+    /**
+     * Removes the UTF-8 encoding of a string.
+     *
+     * @throws java.lang.IllegalArgumentException if the key is null
+     * @throws java.util.NoSuchElementException if the key is not in the tree
+     * @param key the key to remove from the tree
+     */
+    public void remove(String key) {
+        remove(encode(key));
+    }
+
+    /**
+     * Returns whether or not the key is contained within the tree.
+     *
+     * @throws java.lang.IllegalArgumentException if the key is null
+     * @param key the key to find in the tree
+     * @return whether or not the key is contained within the tree
+     */
+    public boolean contains(byte[] key) {
+        if (key == null) {
+            throw new IllegalArgumentException(
+                    "Cannot check whether the AVL tree contains null data.");
+        }
+        return search(key) > 0;
+    }
+
+    /**
+     * Returns whether or not the UTF-8 encoding of a string is contained
+     * within the tree.
+     *
+     * @throws java.lang.IllegalArgumentException if the key is null
+     * @param key the key to find in the tree
+     * @return whether or not the key is contained within the tree
+     */
+    public boolean contains(String key) {
+        return contains(encode(key));
+    }
+
+    /**
+     * Get the number of keys in the tree.
+     *
+     * @return the number of keys in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the keys in ascending order. Every key is rebuilt into a new
+     * array.
+     *
+     * @return an inorder traversal of the tree
+     */
+    public List<byte[]> inorder() {
+        List<byte[]> list = new ArrayList<byte[]>(size);
+        int[] stack = new int[height() + 1];
+        byte[][] keys = new byte[height() + 1][];
+        int top = 0;
+        int node = root;
+        byte[] parentKey = null;
+        while (node != NIL || top > 0) {
+            while (node != NIL) {
+                byte[] key = childKey(parentKey, node);
+                stack[top] = node;
+                keys[top++] = key;
+                parentKey = key;
+                node = left[node];
+            }
+            node = stack[--top];
+            parentKey = keys[top];
+            list.add(parentKey);
+            node = right[node];
+        }
+        return list;
+    }
+
+    /**
+     * Clear the tree and release its storage.
+     */
+    public void clear() {
+        left = new int[INITIAL_CAPACITY];
+        right = new int[INITIAL_CAPACITY];
+        heights = new byte[INITIAL_CAPACITY];
+        shared = new int[INITIAL_CAPACITY];
+        offsets = new int[INITIAL_CAPACITY];
+        lengths = new int[INITIAL_CAPACITY];
+        heights[NIL] = -1;
+        slab = new byte[INITIAL_SLAB];
+        slabUsed = 0;
+        garbage = 0;
+        root = NIL;
+        size = 0;
+        used = 1;
+        free = NIL;
+    }
+
+    /**
+     * Return the height of the root of the tree.
+     *
+     * @return the height of the root of the tree, -1 if the tree is empty
+     */
+    public int height() {
+        return heights[root];
+    }
+
+    /**
+     * Returns the number of slab bytes holding key suffixes, the part of
+     * the keys the tree actually stores.
+     *
+     * @return the number of live key bytes
+     */
+    public long keyBytes() {
+        return slabUsed - garbage;
+    }
+
+    /**
+     * Encodes a string key as UTF-8.
+     * @param key the key
+     * @return the UTF-8 bytes of the key
+     * @throws IllegalArgumentException if the key is null
+     */
+    private static byte[] encode(String key) {
+        if (key == null) {
+            throw new IllegalArgumentException("The data is null!");
+        }
+        return key.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Descends to a key, recording every node on the way. Only the bytes
+     * past the prefix the searched key is known to share with a node are
+     * compared.
+     * @param key the key to look for
+     * @return the length of the path if the key was found, its last node
+     * holding the key; otherwise the bitwise complement of the length of
+     * the path, with searchLcp and searchCmp describing how the key
+     * compared with the last node
+     */
+    private int search(byte[] key) {
+        int depth = 0;
+        int lcp = 0;
+        int cmp = 0;
+        int node = root;
+        while (node != NIL) {
+            path[depth++] = node;
+            int s = shared[node];
+            if (s < lcp) {
+                cmp = lengths[node] == 0 ? 1
+                        : (key[s] & 0xFF) - (slab[offsets[node]] & 0xFF);
+                lcp = s;
+            } else if (s == lcp) {
+                int from = offsets[node];
+                int length = lengths[node];
+                int m = Arrays.mismatch(key, lcp, key.length, slab, from,
+                        from + length);
+                if (m < 0) {
+                    return depth;
+                }
+                lcp += m;
+                if (lcp == key.length) {
+                    cmp = -1;
+                } else if (m == length) {
+                    cmp = 1;
+                } else {
+                    cmp = (key[lcp] & 0xFF) - (slab[from + m] & 0xFF);
+                }
+            }
+            node = cmp < 0 ? left[node] : right[node];
+        }
+        searchLcp = lcp;
+        searchCmp = cmp;
+        return ~depth;
+    }
+
+    /**
+     * Rebuilds the key of a node from its parent's key.
+     * @param parentKey the key of the parent, null for the root
+     * @param node the node
+     * @return a new array holding the key of the node
+     */
+    private byte[] childKey(byte[] parentKey, int node) {
+        int prefix = shared[node];
+        byte[] key = new byte[prefix + lengths[node]];
+        if (prefix > 0) {
+            System.arraycopy(parentKey, 0, key, 0, prefix);
+        }
+        System.arraycopy(slab, offsets[node], key, prefix, lengths[node]);
+        return key;
+    }
+
+    /**
+     * Returns the key of a node on the path, rebuilding the keys from the
+     * root down as far as needed.
+     * @param index the index of the node in the path
+     * @return the key of the node
+     */
+    private byte[] pathKey(int index) {
+        while (knownKeys <= index) {
+            pathKeys[knownKeys] = childKey(knownKeys == 0 ? null
+                    : pathKeys[knownKeys - 1], path[knownKeys]);
+            knownKeys++;
+        }
+        return pathKeys[index];
+    }
+
+    /**
+     * Drops the keys rebuilt for the path of the last change.
+     */
+    private void forgetKeys() {
+        Arrays.fill(pathKeys, 0, knownKeys, null);
+        knownKeys = 0;
+        rotatedKey = null;
+    }
+
+    /**
+     * Encodes a node against its new parent. A longer shared prefix only
+     * moves the start of the suffix; a shorter one writes the suffix to
+     * the end of the slab.
+     * @param node the node
+     * @param key the key of the node
+     * @param parentKey the key of the new parent, null for the root
+     */
+    private void reparent(int node, byte[] key, byte[] parentKey) {
+        int prefix = 0;
+        if (parentKey != null) {
+            prefix = Arrays.mismatch(key, parentKey);
+            if (prefix < 0) {
+                prefix = key.length;
+            }
+        }
+        int old = shared[node];
+        if (prefix > old) {
+            offsets[node] += prefix - old;
+            lengths[node] -= prefix - old;
+            garbage += prefix - old;
+        } else if (prefix < old) {
+            garbage += lengths[node];
+            offsets[node] = append(key, prefix);
+            lengths[node] = key.length - prefix;
+        }
+        shared[node] = prefix;
+    }
+
+    /**
+     * Walks back up the path fixing heights and rotating where needed.
+     * Stops at the first subtree whose height did not change.
+     * @param depth the number of slots in the path
+     */
+    private void rebalance(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = path[i];
+            int oldHeight = heights[node];
+            update(node);
+            int bf = balanceFactor(node);
+            if (bf > 1 || bf < -1) {
+                int rotated = rebuild(node, pathKey(i));
+                byte[] key = rotatedKey;
+                reparent(rotated, key, i == 0 ? null : pathKey(i - 1));
+                relink(i == 0 ? NIL : path[i - 1], node, rotated);
+                path[i] = rotated;
+                knownKeys = Math.min(knownKeys, i);
+                node = rotated;
+            }
+            if (heights[node] == oldHeight) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replaces a child of parent, or the root if parent is NIL.
+     * @param parent the parent slot, NIL if oldChild is the root
+     * @param oldChild the child being replaced
+     * @param newChild the slot taking its place
+     */
+    private void relink(int parent, int oldChild, int newChild) {
+        if (parent == NIL) {
+            root = newChild;
+        } else if (left[parent] == oldChild) {
+            left[parent] = newChild;
+        } else {
+            right[parent] = newChild;
+        }
+    }
+
+    /**
+     * Recalculates the height of a node from its children.
+     * @param node the node needing height recalculation
+     */
+    private void update(int node) {
+        heights[node] = (byte) (Math.max(heights[left[node]],
+                heights[right[node]]) + 1);
+    }
+
+    /**
+     * Calculates the balance factor of a node from its children.
+     * @param node the node
+     * @return the balance factor of the node
+     */
+    private int balanceFactor(int node) {
+        return heights[left[node]] - heights[right[node]];
+    }
+
+    /**
+     * Rebuild the subtree by testing which rotation should be operated.
+     * The new subtree root still has to be encoded against the parent.
+     * @param node current subtree root
+     * @param nodeKey the key of the subtree root
+     * @return new subtree root after rotation, its key in rotatedKey
+     */
+    private int rebuild(int node, byte[] nodeKey) {
+        if (balanceFactor(node) > 1) {
+            int child = left[node];
+            if (balanceFactor(child) < 0) {
+                left[node] = rotateL(child, childKey(nodeKey, child));
+                reparent(left[node], rotatedKey, nodeKey);
+            }
+            return rotateR(node, nodeKey);
+        }
+        int child = right[node];
+        if (balanceFactor(child) > 0) {
+            right[node] = rotateR(child, childKey(nodeKey, child));
+            reparent(right[node], rotatedKey, nodeKey);
+        }
+        return rotateL(node, nodeKey);
+    }
+
+    /**
+     * Single left rotation. Encodes the old root and the subtree that
+     * changes sides against their new parents.
+     * @param node current root to be rotated to left
+     * @param nodeKey the key of the current root
+     * @return the middle node, also the new root, its key in rotatedKey
+     */
+    private int rotateL(int node, byte[] nodeKey) {
+        int rotated = right[node];
+        byte[] key = childKey(nodeKey, rotated);
+        int moved = left[rotated];
+        if (moved != NIL) {
+            reparent(moved, childKey(key, moved), nodeKey);
+        }
+        right[node] = moved;
+        left[rotated] = node;
+        reparent(node, nodeKey, key);
+        update(node);
+        update(rotated);
+        rotatedKey = key;
+        return rotated;
+    }
+
+    /**
+     * Single right rotation. Encodes the old root and the subtree that
+     * changes sides against their new parents.
+     * @param node current root to be rotated to right
+     * @param nodeKey the key of the current root
+     * @return the middle node, also the new root, its key in rotatedKey
+     */
+    private int rotateR(int node, byte[] nodeKey) {
+        int rotated = left[node];
+        byte[] key = childKey(nodeKey, rotated);
+        int moved = right[rotated];
+        if (moved != NIL) {
+            reparent(moved, childKey(key, moved), nodeKey);
+        }
+        left[node] = moved;
+        right[rotated] = node;
+        reparent(node, nodeKey, key);
+        update(node);
+        update(rotated);
+        rotatedKey = key;
+        return rotated;
+    }
+
+    /**
+     * Takes a slot from the free list, or a fresh one from the end of the
+     * arrays, and fills it with a new leaf.
+     * @param key the key of the new leaf
+     * @param prefix the length of the prefix it shares with its parent
+     * @return the slot of the new leaf
+     */
+    private int allocate(byte[] key, int prefix) {
+        int node = free;
+        if (node != NIL) {
+            free = left[node];
+        } else {
+            if (used == left.length) {
+                grow();
+            }
+            node = used++;
+        }
+        left[node] = NIL;
+        right[node] = NIL;
+        heights[node] = 0;
+        shared[node] = prefix;
+        offsets[node] = append(key, prefix);
+        lengths[node] = key.length - prefix;
+        return node;
+    }
+
+    /**
+     * Puts a slot on the free list and counts its suffix as unused.
+     * @param node the slot no longer in the tree
+     */
+    private void release(int node) {
+        garbage += lengths[node];
+        lengths[node] = 0;
+        left[node] = free;
+        right[node] = NIL;
+        free = node;
+    }
+
+    /**
+     * Grows every array by half.
+     */
+    private void grow() {
+        int capacity = left.length + (left.length >> 1);
+        if (capacity < 0) {
+            capacity = Integer.MAX_VALUE - 8;
+        }
+        if (capacity <= left.length) {
+            throw new IllegalStateException("The tree is full.");
+        }
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        heights = Arrays.copyOf(heights, capacity);
+        shared = Arrays.copyOf(shared, capacity);
+        offsets = Arrays.copyOf(offsets, capacity);
+        lengths = Arrays.copyOf(lengths, capacity);
+    }
+
+    /**
+     * Copies the end of a key to the end of the slab, growing the slab by
+     * half, or more if the key needs it.
+     * @param key the key
+     * @param from the index of the first byte to copy
+     * @return the offset of the copy in the slab
+     */
+    private int append(byte[] key, int from) {
+        int length = key.length - from;
+        if (slab.length - slabUsed < length) {
+            long capacity = Math.max(slab.length + (long) (slab.length >> 1),
+                    (long) slabUsed + length);
+            if (capacity > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("The key slab is full.");
+            }
+            slab = Arrays.copyOf(slab, (int) capacity);
+        }
+        int offset = slabUsed;
+        System.arraycopy(key, from, slab, offset, length);
+        slabUsed += length;
+        return offset;
+    }
+
+    /**
+     * Copies the suffixes of the nodes in the tree into a new slab once
+     * more than half of the slab is unused.
+     */
+    private void compactIfSparse() {
+        if (garbage <= INITIAL_SLAB || garbage <= slabUsed / 2) {
+            return;
+        }
+        int live = slabUsed - garbage;
+        byte[] compacted = new byte[Math.max(INITIAL_SLAB,
+                live + (live >> 1))];
+        int top = 0;
+        int[] stack = new int[height() + 2];
+        if (root != NIL) {
+            stack[top++] = root;
+        }
+        int offset = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            System.arraycopy(slab, offsets[node], compacted, offset,
+                    lengths[node]);
+            offsets[node] = offset;
+            offset += lengths[node];
+            if (left[node] != NIL) {
+                stack[top++] = left[node];
+            }
+            if (right[node] != NIL) {
+                stack[top++] = right[node];
+            }
+        }
+        slab = compacted;
+        slabUsed = offset;
+        garbage = 0;
+    }
+}
@@ -0,0 +1,162 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for ByteKeyAVL: unsigned ordering, front coding and compaction.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class ByteKeyAVLTests {
+    private static final int TIMEOUT = 200;
+    private ByteKeyAVL tree;
+
+    @Before
+    public void setup() {
+        tree = new ByteKeyAVL();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPrefixesOfEachOther() {
+        for (String key : new String[] {"abc", "a", "", "ab", "abd", "b"}) {
+            tree.add(key);
+        }
+        tree.add("ab");
+        assertEquals(6, tree.size());
+        assertEquals(Arrays.asList("", "a", "ab", "abc", "abd", "b"),
+                strings(tree.inorder()));
+        assertTrue(tree.contains(""));
+        assertFalse(tree.contains("abcd"));
+        assertFalse(tree.contains("aa"));
+        tree.remove("ab");
+        tree.remove("");
+        assertEquals(Arrays.asList("a", "abc", "abd", "b"),
+                strings(tree.inorder()));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testUnsignedOrder() {
+        tree.add(new byte[] {(byte) 0xFF});
+        tree.add(new byte[] {0x01});
+        tree.add(new byte[] {(byte) 0x80, 0x00});
+        tree.add(new byte[] {0x7F});
+        List<byte[]> keys = tree.inorder();
+        assertArrayEquals(new byte[] {0x01}, keys.get(0));
+        assertArrayEquals(new byte[] {0x7F}, keys.get(1));
+        assertArrayEquals(new byte[] {(byte) 0x80, 0x00}, keys.get(2));
+        assertArrayEquals(new byte[] {(byte) 0xFF}, keys.get(3));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testKeysAreCopied() {
+        byte[] key = {1, 2, 3};
+        tree.add(key);
+        key[0] = 9;
+        assertTrue(tree.contains(new byte[] {1, 2, 3}));
+        assertFalse(tree.contains(key));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testFrontCodingSavesSharedPrefixes() {
+        String prefix = "https://shop.example.com/catalog/items/";
+        long full = 0;
+        for (int i = 0; i < 1000; i++) {
+            String key = prefix + i;
+            tree.add(key);
+            full += key.length();
+        }
+        assertTrue(tree.keyBytes() < full / 4);
+        assertTrue(tree.height() <= 11);
+        assertTrue(tree.contains(prefix + 999));
+        assertFalse(tree.contains(prefix + 1000));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRandomAgainstTreeSet() {
+        Random random = new Random(1332);
+        TreeSet<String> expected = new TreeSet<>();
+        String[] hosts = {"http://a.example/", "http://a.example/b/",
+            "https://b.example/x/", "https://b.example/xy/"};
+        for (int i = 0; i < 6000; i++) {
+            String key = hosts[random.nextInt(hosts.length)]
+                    + Integer.toString(random.nextInt(2000), 3);
+            if (random.nextInt(3) != 0) {
+                expected.add(key);
+                tree.add(key);
+            } else if (expected.remove(key)) {
+                tree.remove(key);
+            } else {
+                assertFalse(tree.contains(key));
+            }
+        }
+        assertEquals(expected.size(), tree.size());
+        assertEquals(new ArrayList<>(expected), strings(tree.inorder()));
+        for (String key : expected) {
+            assertTrue(tree.contains(key));
+        }
+        assertTrue(tree.height() <= 1.45 * Math.log(tree.size() + 2)
+                / Math.log(2));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCompaction() {
+        for (int i = 0; i < 2000; i++) {
+            tree.add("/some/long/shared/path/" + i + "/with/a/tail");
+        }
+        long full = tree.keyBytes();
+        for (int i = 0; i < 1990; i++) {
+            tree.remove("/some/long/shared/path/" + i + "/with/a/tail");
+        }
+        assertTrue(tree.keyBytes() < full / 20);
+        assertEquals(10, tree.size());
+        for (int i = 1990; i < 2000; i++) {
+            assertTrue(tree.contains("/some/long/shared/path/" + i
+                    + "/with/a/tail"));
+        }
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testRemoveMissing() {
+        tree.add("a");
+        tree.remove("b");
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testAddNull() {
+        tree.add((byte[]) null);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testClear() {
+        tree.add("a");
+        tree.clear();
+        assertEquals(0, tree.size());
+        assertEquals(-1, tree.height());
+        assertEquals(0, tree.keyBytes());
+    }
+
+    /**
+     * Decodes UTF-8 keys.
+     * @param keys the keys
+     * @return the keys as strings
+     */
+    private static List<String> strings(List<byte[]> keys) {
+        List<String> list = new ArrayList<>();
+        for (byte[] key : keys) {
+            list.add(new String(key, StandardCharsets.UTF_8));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,478 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * A thread safe AVL tree whose readers usually do not lock.
+ *
+ * Lookups walk the tree optimistically: they take a version stamp from a
+ * StampedLock, search without any lock, and then check that no writer
+ * started in the meantime. Only if a writer did is the walk repeated.
+ * Writers take the write lock, which orders them among themselves and
+ * moves the version on.
+ *
+ * The version is one for the whole tree, not one per node or path, so any
+ * write anywhere fails every optimistic walk in flight. After
+ * OPTIMISTIC_ATTEMPTS failed walks a reader takes the read lock, so that
+ * a stream of writers cannot starve it, and from then on it waits for
+ * each writer like a plain read-write lock would. Readers therefore still
+ * block under sustained writes: with half the operations writing, they
+ * mostly queue behind the writers. The tree suits read-mostly loads; a
+ * write-heavy one is better served by a ConcurrentSkipListMap.
+ *
+ * An optimistic walk can see the tree halfway through a rotation, so it
+ * only reads fields into locals, never follows more links than the tree
+ * can be high, and throws its result away unless the stamp is still
+ * valid. Node keys are final, so a node never changes its key under a
+ * reader; a removal that takes the predecessor replaces the node instead.
+ * That is why the tree has its own nodes and rotations rather than
+ * reusing AVLNode, whose data a removal overwrites in place.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class ConcurrentAVL<T extends Comparable<? super T>> {
+    /**
+     * An upper bound on the height of any tree with fewer than 2^31 nodes,
+     * which also bounds the length of an optimistic walk.
+     */
+    private static final int MAX_HEIGHT = 46;
+
+    /**
+     * The number of optimistic walks a reader tries before it locks.
+     */
+    private static final int OPTIMISTIC_ATTEMPTS = 4;
+
+    private final StampedLock lock = new StampedLock();
+    @SuppressWarnings("unchecked")
+    private final Node<T>[] path = (Node<T>[]) new Node<?>[MAX_HEIGHT + 2];
+    private Node<T> root;
+    private volatile int size;
+
+    /**
+     * Initializes an empty tree.
+     */
+    public ConcurrentAVL() {
+    }
+
+    /**
+     * Initializes the tree with the data in the Collection. The data is
+     * added in the same order it is in the Collection.
+     *
+     * @param data the data to add to the tree
+     * @throws IllegalArgumentException if data or any element in data is null
+     */
+    public ConcurrentAVL(Collection<T> data) {
+        if (data == null) {
+            throw new IllegalArgumentException("The collection is empty!");
+        }
+        for (T t : data) {
+            if (t == null) {
+                throw new IllegalArgumentException("Null data in collection.");
+            }
+            add(t);
+        }
+    }
+
+    /**
+     * Add the data as a leaf to the tree. If the data is already in the
+     * tree, then nothing is done.
+     *
+     * @throws java.lang.IllegalArgumentException if the data is null
+     * @param data the data to be added
+     */
+    public void add(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data about to add is null!");
+        }
+        long stamp = lock.writeLock();
+        try {
+            int depth = 0;
+            int cmp = 0;
+            Node<T> node = root;
+            while (node != null) {
+                cmp = data.compareTo(node.key);
+                if (cmp == 0) {
+                    Arrays.fill(path, 0, depth, null);
+                    return;
+                }
+                path[depth++] = node;
+                node = cmp < 0 ? node.left : node.right;
+            }
+            Node<T> added = new Node<T>(data);
+            if (depth == 0) {
+                root = added;
+            } else if (cmp < 0) {
+                path[depth - 1].left = added;
+            } else {
+                path[depth - 1].right = added;
+            }
+            size++;
+            rebalance(depth);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the data from the tree, replacing a node with two children by
+     * its predecessor.
+     *
+     * @throws java.lang.IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not in the tree
+     * @param data data to remove from the tree
+     * @return the data removed from the tree
+     */
+    public T remove(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Cannot remove null data!");
+        }
+        long stamp = lock.writeLock();
+        try {
+            int depth = 0;
+            Node<T> node = root;
+            while (node != null) {
+                int cmp = data.compareTo(node.key);
+                if (cmp == 0) {
+                    break;
+                }
+                path[depth++] = node;
+                node = cmp < 0 ? node.left : node.right;
+            }
+            if (node == null) {
+                Arrays.fill(path, 0, depth, null);
+                throw new NoSuchElementException("There is no such element");
+            }
+            Node<T> parent = depth == 0 ? null : path[depth - 1];
+            if (node.left == null || node.right == null) {
+                relink(parent, node,
+                        node.left == null ? node.right : node.left);
+            } else {
+                int nodeDepth = depth;
+                path[depth++] = node;
+                Node<T> pred = node.left;
+                while (pred.right != null) {
+                    path[depth++] = pred;
+                    pred = pred.right;
+                }
+                Node<T> predParent = path[depth - 1];
+                if (predParent == node) {
+                    predParent.left = pred.left;
+                } else {
+                    predParent.right = pred.left;
+                }
+                Node<T> replacement = new Node<T>(pred.key);
+                replacement.left = node.left;
+                replacement.right = node.right;
+                replacement.height = node.height;
+                path[nodeDepth] = replacement;
+                relink(parent, node, replacement);
+            }
+            size--;
+            rebalance(depth);
+            return node.key;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the data in the tree matching the parameter passed in.
+     *
+     * @throws java.lang.IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @param data data to get in the tree
+     * @return the data in the tree equal to the parameter
+     */
+    public T get(T data) {
+        T found = getOrDefault(data, null);
+        if (found == null) {
+            throw new NoSuchElementException("No such data in the AVL.");
+        }
+        return found;
+    }
+
+    /**
+     * Returns the data in the tree matching the parameter passed in, or a
+     * default if there is none. Does not block unless writers keep
+     * invalidating the optimistic walk; after OPTIMISTIC_ATTEMPTS failed
+     * walks it takes the read lock and waits for the current writer.
+     *
+     * @throws java.lang.IllegalArgumentException if the data is null
+     * @param data data to get in the tree
+     * @param defaultValue the value to return if data is not in the tree
+     * @return the data in the tree equal to the parameter, or defaultValue
+     */
+    public T getOrDefault(T data, T defaultValue) {
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null!");
+        }
+        for (int attempt = 0; attempt < OPTIMISTIC_ATTEMPTS; attempt++) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0) {
+                Node<T> node = search(data);
+                if (lock.validate(stamp)) {
+                    return node == null ? defaultValue : node.key;
+                }
+            }
+            Thread.onSpinWait();
+        }
+        long stamp = lock.readLock();
+        try {
+            Node<T> node = search(data);
+            return node == null ? defaultValue : node.key;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns whether or not the parameter is contained within the tree.
+     *
+     * @throws java.lang.IllegalArgumentException if the data is null
+     * @param data data to find in the tree
+     * @return whether or not the parameter is contained within the tree
+     */
+    public boolean contains(T data) {
+        return getOrDefault(data, null) != null;
+    }
+
+    /**
+     * Get the number of elements in the tree.
+     *
+     * @return the number of elements in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the height of the root of the tree. Reads the root
+     * optimistically once, and if a writer interferes takes the read lock
+     * and waits for it.
+     *
+     * @return the height of the root of the tree, -1 if the tree is empty
+     */
+    public int height() {
+        long stamp = lock.tryOptimisticRead();
+        Node<T> node = root;
+        int height = node == null ? -1 : node.height;
+        if (lock.validate(stamp)) {
+            return height;
+        }
+        stamp = lock.readLock();
+        try {
+            return root == null ? -1 : root.height;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Get a snapshot of the data in ascending order, taken under the read
+     * lock.
+     *
+     * @return the data in ascending order
+     */
+    public List<T> inorder() {
+        long stamp = lock.readLock();
+        try {
+            List<T> list = new ArrayList<T>(size);
+            Node<T>[] stack = newStack();
+            int top = 0;
+            Node<T> node = root;
+            while (node != null || top > 0) {
+                while (node != null) {
+                    stack[top++] = node;
+                    node = node.left;
+                }
+                node = stack[--top];
+                list.add(node.key);
+                node = node.right;
+            }
+            return list;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Clear the tree.
+     */
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            root = null;
+            size = 0;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Searches for data without assuming the tree is consistent: the walk
+     * ends after MAX_HEIGHT + 1 links whatever it sees. The result only
+     * means something if the caller validates its stamp afterwards, or
+     * holds a lock.
+     * @param data the data to look for
+     * @return the node holding data, or null if it was not found
+     */
+    private Node<T> search(T data) {
+        Node<T> node = root;
+        for (int steps = 0; node != null && steps <= MAX_HEIGHT; steps++) {
+            int cmp = data.compareTo(node.key);
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Allocates a stack deep enough for any root-to-leaf walk.
+     * @return an empty stack
+     */
+    @SuppressWarnings("unchecked")
+    private Node<T>[] newStack() {
+        return (Node<T>[]) new Node<?>[MAX_HEIGHT + 1];
+    }
+
+    /**
+     * Walks back up the path fixing heights and rotating where needed.
+     * Stops at the first subtree whose height did not change.
+     * @param depth the number of nodes in the path
+     */
+    private void rebalance(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            Node<T> node = path[i];
+            path[i] = null;
+            int oldHeight = node.height;
+            heightSetter(node);
+            Node<T> rotated = rebuild(node);
+            if (rotated != node) {
+                relink(i == 0 ? null : path[i - 1], node, rotated);
+            }
+            if (rotated.height == oldHeight) {
+                for (int j = i - 1; j >= 0; j--) {
+                    path[j] = null;
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replaces a child of parent, or the root if parent is null.
+     * @param parent the parent node, null if oldChild is the root
+     * @param oldChild the child being replaced
+     * @param newChild the node taking its place
+     */
+    private void relink(Node<T> parent, Node<T> oldChild, Node<T> newChild) {
+        if (parent == null) {
+            root = newChild;
+        } else if (parent.left == oldChild) {
+            parent.left = newChild;
+        } else {
+            parent.right = newChild;
+        }
+    }
+
+    /**
+     * Returns the height of a subtree.
+     * @param node the subtree root, may be null
+     * @return the height, -1 for an empty subtree
+     */
+    private static int height(Node<?> node) {
+        return node == null ? -1 : node.height;
+    }
+
+    /**
+     * Recalculates the height of a node from its children.
+     * @param node the node needing height recalculation
+     */
+    private void heightSetter(Node<T> node) {
+        node.height = Math.max(height(node.left), height(node.right)) + 1;
+    }
+
+    /**
+     * Calculates the balance factor of a node from its children.
+     * @param node the node
+     * @return the balance factor of the node
+     */
+    private int balanceFactor(Node<T> node) {
+        return height(node.left) - height(node.right);
+    }
+
+    /**
+     * Rebuild the subtree by testing which rotation should be operated.
+     * @param node current subtree root
+     * @return new subtree root after rotation
+     */
+    private Node<T> rebuild(Node<T> node) {
+        int bf = balanceFactor(node);
+        if (bf > 1) {
+            if (balanceFactor(node.left) < 0) {
+                node.left = rotateL(node.left);
+            }
+            return rotateR(node);
+        } else if (bf < -1) {
+            if (balanceFactor(node.right) > 0) {
+                node.right = rotateR(node.right);
+            }
+            return rotateL(node);
+        }
+        return node;
+    }
+
+    /**
+     * Single left rotation.
+     * @param node current root to be rotated to left
+     * @return the middle node, also the new root
+     */
+    private Node<T> rotateL(Node<T> node) {
+        Node<T> rotated = node.right;
+        node.right = rotated.left;
+        rotated.left = node;
+        heightSetter(node);
+        heightSetter(rotated);
+        return rotated;
+    }
+
+    /**
+     * Single right rotation.
+     * @param node current root to be rotated to right
+     * @return the middle node, also the new root
+     */
+    private Node<T> rotateR(Node<T> node) {
+        Node<T> rotated = node.left;
+        node.left = rotated.right;
+        rotated.right = node;
+        heightSetter(node);
+        heightSetter(rotated);
+        return rotated;
+    }
+
+    /**
+     * A node of the tree. The key is final so that an optimistic reader
+     * never sees it change.
+     * @param <T> the type of the data
+     */
+    private static final class Node<T> {
+        private final T key;
+        private Node<T> left;
+        private Node<T> right;
+        private int height;
+
+        /**
+         * Creates a leaf.
+         * @param key the data of the leaf
+         */
+        private Node(T key) {
+            this.key = key;
+        }
+    }
+}
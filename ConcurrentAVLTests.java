@@ -0,0 +1,151 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for ConcurrentAVL, single threaded against AVL and under
+ * concurrent readers and writers.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class ConcurrentAVLTests {
+    private static final int TIMEOUT = 200;
+    private static final int STRESS_TIMEOUT = 10000;
+    private ConcurrentAVL<Integer> avlTree;
+
+    @Before
+    public void setup() {
+        avlTree = new ConcurrentAVL<>(Arrays.asList(
+                10, 6, 7, 4, 12, 5, 1, 13, 11, 15, 17, 19, 22, 24, 14));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testBasics() {
+        assertEquals(15, avlTree.size());
+        assertEquals(4, avlTree.height());
+        assertEquals((Integer) 13, avlTree.get(13));
+        assertTrue(avlTree.contains(24));
+        assertFalse(avlTree.contains(2));
+        assertNull(avlTree.getOrDefault(2, null));
+        assertEquals((Integer) 10, avlTree.remove(10));
+        assertFalse(avlTree.contains(10));
+        assertEquals(14, avlTree.size());
+        avlTree.clear();
+        assertEquals(0, avlTree.size());
+        assertEquals(-1, avlTree.height());
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testRemoveMissing() {
+        avlTree.remove(2);
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testGetMissing() {
+        avlTree.get(2);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testAddNull() {
+        avlTree.add(null);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMatchesAVL() {
+        Random random = new Random(1332);
+        AVL<Integer> expected = new AVL<>();
+        avlTree.clear();
+        for (int i = 0; i < 5000; i++) {
+            int data = random.nextInt(700);
+            if (random.nextInt(3) == 0 && expected.contains(data)) {
+                assertEquals(expected.remove(data), avlTree.remove(data));
+            } else {
+                expected.add(data);
+                avlTree.add(data);
+            }
+            assertEquals(expected.size(), avlTree.size());
+            assertEquals(expected.height(), avlTree.height());
+        }
+        assertEquals(expected.inorder(), avlTree.inorder());
+    }
+
+    @Test(timeout = STRESS_TIMEOUT)
+    public void testConcurrentReadersAndWriters() throws InterruptedException {
+        avlTree.clear();
+        for (int i = 0; i < 2000; i += 2) {
+            avlTree.add(i);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < 2; w++) {
+            int offset = 2 * w + 1;
+            threads.add(new Thread(() -> {
+                Random random = new Random(offset);
+                for (int round = 0; round < 200; round++) {
+                    for (int i = offset; i < 2000; i += 4) {
+                        avlTree.add(i);
+                    }
+                    for (int i = offset; i < 2000; i += 4) {
+                        if (random.nextBoolean()) {
+                            avlTree.remove(i);
+                        }
+                    }
+                    for (int i = offset; i < 2000; i += 4) {
+                        if (avlTree.contains(i)) {
+                            avlTree.remove(i);
+                        }
+                    }
+                }
+            }));
+        }
+        for (int r = 0; r < 3; r++) {
+            int seed = r;
+            threads.add(new Thread(() -> {
+                Random random = new Random(seed);
+                while (!done.get()) {
+                    int even = 2 * random.nextInt(1000);
+                    if (!avlTree.contains(even)
+                            || avlTree.get(even) != even) {
+                        failure.set(new AssertionError("Lost " + even));
+                    }
+                    if (avlTree.contains(2000 + random.nextInt(1000))) {
+                        failure.set(new AssertionError("Found a key that"
+                                + " was never added"));
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((t, e) -> failure.set(e));
+            thread.start();
+        }
+        threads.get(0).join();
+        threads.get(1).join();
+        done.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure.get() != null) {
+            throw new AssertionError(failure.get());
+        }
+        assertEquals(1000, avlTree.size());
+        List<Integer> evens = new ArrayList<>();
+        for (int i = 0; i < 2000; i += 2) {
+            evens.add(i);
+        }
+        assertEquals(evens, avlTree.inorder());
+    }
+}
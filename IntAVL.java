@@ -0,0 +1,503 @@
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * An AVL tree of primitive ints.
+ *
+ * Offers the operations of {@link AVLInterface} without boxing: keys are
+ * compared with the primitive operators and the nodes are rows of parallel
+ * arrays instead of objects, so a node costs 13 bytes (key, left, right and
+ * height) where an {@code AVL<Integer>} pays 48 for the node and the
+ * Integer it points to. Slot 0 is the null node; its height is -1 so that
+ * heights can be read without null checks. Removed slots are kept on a free
+ * list, threaded through the left array, and reused by later adds.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class IntAVL {
+    /**
+     * The index of the null node.
+     */
+    private static final int NIL = 0;
+
+    /**
+     * An upper bound on the height of any tree with fewer than 2^31 nodes.
+     */
+    private static final int MAX_HEIGHT = 46;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] keys;
+    private int[] left;
+    private int[] right;
+    private byte[] height;
+    private final int[] path = new int[MAX_HEIGHT + 2];
+    private int root;
+    private int size;
+    private int used;
+    private int free;
+
+    /**
+     * Initializes an empty tree.
+     */
+    public IntAVL() {
+        clear();
+    }
+
+    /**
+     * Initializes the tree with the data in the array. The data is added in
+     * the same order it is in the array.
+     *
+     * @param data the data to add to the tree
+     * @throws IllegalArgumentException if data is null
+     */
+    public IntAVL(int[] data) {
+        this();
+        if (data == null) {
+            throw new IllegalArgumentException("The array is null!");
+        }
+        for (int d : data) {
+            add(d);
+        }
+    }
+
+    /**
+     * Add the data as a leaf to the tree. If the data is already in the
+     * tree, then nothing is done.
+     *
+     * @param data the data to be added
+     */
+    public void add(int data) {
+        int depth = 0;
+        int node = root;
+        boolean toLeft = false;
+        while (node != NIL) {
+            int key = keys[node];
+            if (data == key) {
+                return;
+            }
+            path[depth++] = node;
+            toLeft = data < key;
+            node = toLeft ? left[node] : right[node];
+        }
+        int added = allocate(data);
+        if (depth == 0) {
+            root = added;
+        } else if (toLeft) {
+            left[path[depth - 1]] = added;
+        } else {
+            right[path[depth - 1]] = added;
+        }
+        size++;
+        rebalance(depth);
+    }
+
+    /**
+     * Removes the data from the tree, replacing a node with two children by
+     * its predecessor.
+     *
+     * @throws java.util.NoSuchElementException if the data is not in the tree
+     * @param data data to remove from the tree
+     * @return the data removed from the tree
+     */
+    public int remove(int data) {
+        int depth = 0;
+        int node = root;
+        while (node != NIL && keys[node] != data) {
+            path[depth++] = node;
+            node = data < keys[node] ? left[node] : right[node];
+        }
+        if (node == NIL) {
+            throw new NoSuchElementException("There is no such element");
+        }
+        int removed = keys[node];
+        int replacement;
+        if (left[node] == NIL) {
+            replacement = right[node];
+        } else if (right[node] == NIL) {
+            replacement = left[node];
+        } else {
+            path[depth++] = node;
+            int pred = left[node];
+            while (right[pred] != NIL) {
+                path[depth++] = pred;
+                pred = right[pred];
+            }
+            keys[node] = keys[pred];
+            int parent = path[depth - 1];
+            if (parent == node) {
+                left[parent] = left[pred];
+            } else {
+                right[parent] = left[pred];
+            }
+            release(pred);
+            size--;
+            rebalance(depth);
+            return removed;
+        }
+        relink(depth == 0 ? NIL : path[depth - 1], node, replacement);
+        release(node);
+        size--;
+        rebalance(depth);
+        return removed;
+    }
+
+    /**
+     * Returns the data in the tree matching the parameter passed in.
+     *
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @param data data to get in the tree
+     * @return the data in the tree equal to the parameter
+     */
+    public int get(int data) {
+        if (find(data) == NIL) {
+            throw new NoSuchElementException("No such data in the AVL.");
+        }
+        return data;
+    }
+
+    /**
+     * Returns whether or not the parameter is contained within the tree.
+     *
+     * @param data data to find in the tree
+     * @return whether or not the parameter is contained within the tree
+     */
+    public boolean contains(int data) {
+        return find(data) != NIL;
+    }
+
+    /**
+     * Get the number of elements in the tree.
+     *
+     * @return the number of elements in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get the preorder traversal of the tree.
+     *
+     * @return a preorder traversal of the tree, or an empty array
+     */
+    public int[] preorder() {
+        int[] list = new int[size];
+        int[] stack = new int[height() + 2];
+        int top = 0;
+        int count = 0;
+        if (root != NIL) {
+            stack[top++] = root;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            list[count++] = keys[node];
+            if (right[node] != NIL) {
+                stack[top++] = right[node];
+            }
+            if (left[node] != NIL) {
+                stack[top++] = left[node];
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Get the postorder traversal of the tree.
+     *
+     * @return a postorder traversal of the tree, or an empty array
+     */
+    public int[] postorder() {
+        int[] list = new int[size];
+        int[] stack = new int[height() + 1];
+        int top = 0;
+        int count = 0;
+        int node = root;
+        int last = NIL;
+        while (node != NIL || top > 0) {
+            if (node != NIL) {
+                stack[top++] = node;
+                node = left[node];
+            } else {
+                int peek = stack[top - 1];
+                if (right[peek] != NIL && right[peek] != last) {
+                    node = right[peek];
+                } else {
+                    list[count++] = keys[peek];
+                    last = peek;
+                    top--;
+                }
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Get the inorder traversal of the tree.
+     *
+     * @return an inorder traversal of the tree, or an empty array
+     */
+    public int[] inorder() {
+        int[] list = new int[size];
+        int[] stack = new int[height() + 1];
+        int top = 0;
+        int count = 0;
+        int node = root;
+        while (node != NIL || top > 0) {
+            while (node != NIL) {
+                stack[top++] = node;
+                node = left[node];
+            }
+            node = stack[--top];
+            list[count++] = keys[node];
+            node = right[node];
+        }
+        return list;
+    }
+
+    /**
+     * Get the level order traversal of the tree.
+     *
+     * @return a level order traversal of the tree, or an empty array
+     */
+    public int[] levelorder() {
+        int[] list = new int[size];
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        if (root != NIL) {
+            queue[tail++] = root;
+        }
+        while (head < tail) {
+            int node = queue[head];
+            list[head++] = keys[node];
+            if (left[node] != NIL) {
+                queue[tail++] = left[node];
+            }
+            if (right[node] != NIL) {
+                queue[tail++] = right[node];
+            }
+        }
+        return list;
+    }
+
+    /**
+     * Creates an array of all leaf nodes present in the tree in descending
+     * order.
+     *
+     * @return an array of all leaf nodes in descending order
+     */
+    public int[] listLeavesDescending() {
+        int[] list = new int[(size + 1) / 2];
+        int[] stack = new int[height() + 1];
+        int top = 0;
+        int count = 0;
+        int node = root;
+        while (node != NIL || top > 0) {
+            while (node != NIL) {
+                stack[top++] = node;
+                node = right[node];
+            }
+            node = stack[--top];
+            if (left[node] == NIL && right[node] == NIL) {
+                list[count++] = keys[node];
+            }
+            node = left[node];
+        }
+        return Arrays.copyOf(list, count);
+    }
+
+    /**
+     * Clear the tree and release its storage.
+     */
+    public void clear() {
+        keys = new int[INITIAL_CAPACITY];
+        left = new int[INITIAL_CAPACITY];
+        right = new int[INITIAL_CAPACITY];
+        height = new byte[INITIAL_CAPACITY];
+        height[NIL] = -1;
+        root = NIL;
+        size = 0;
+        used = 1;
+        free = NIL;
+    }
+
+    /**
+     * Return the height of the root of the tree.
+     *
+     * @return the height of the root of the tree, -1 if the tree is empty
+     */
+    public int height() {
+        return height[root];
+    }
+
+    /**
+     * Iterative lookup, one comparison per level.
+     * @param data the data to look for
+     * @return the slot holding data, or NIL if it is not in the tree
+     */
+    private int find(int data) {
+        int node = root;
+        while (node != NIL) {
+            int key = keys[node];
+            if (data == key) {
+                return node;
+            }
+            node = data < key ? left[node] : right[node];
+        }
+        return NIL;
+    }
+
+    /**
+     * Walks back up the path fixing heights and rotating where needed.
+     * Stops at the first subtree whose height did not change.
+     * @param depth the number of slots in the path
+     */
+    private void rebalance(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = path[i];
+            int oldHeight = height[node];
+            heightSetter(node);
+            int rotated = rebuild(node);
+            if (rotated != node) {
+                relink(i == 0 ? NIL : path[i - 1], node, rotated);
+            }
+            if (height[rotated] == oldHeight) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replaces a child of parent, or the root if parent is NIL.
+     * @param parent the parent slot, NIL if oldChild is the root
+     * @param oldChild the child being replaced
+     * @param newChild the slot taking its place
+     */
+    private void relink(int parent, int oldChild, int newChild) {
+        if (parent == NIL) {
+            root = newChild;
+        } else if (left[parent] == oldChild) {
+            left[parent] = newChild;
+        } else {
+            right[parent] = newChild;
+        }
+    }
+
+    /**
+     * Recalculates the height of a node from its children.
+     * @param node the node needing height recalculation
+     */
+    private void heightSetter(int node) {
+        height[node] = (byte) (Math.max(height[left[node]],
+                height[right[node]]) + 1);
+    }
+
+    /**
+     * Calculates the balance factor of a node from its children.
+     * @param node the node
+     * @return the balance factor of the node
+     */
+    private int balanceFactor(int node) {
+        return height[left[node]] - height[right[node]];
+    }
+
+    /**
+     * Rebuild the subtree by testing which rotation should be operated.
+     * @param node current subtree root
+     * @return new subtree root after rotation
+     */
+    private int rebuild(int node) {
+        int bf = balanceFactor(node);
+        if (bf > 1) {
+            if (balanceFactor(left[node]) < 0) {
+                left[node] = rotateL(left[node]);
+            }
+            return rotateR(node);
+        } else if (bf < -1) {
+            if (balanceFactor(right[node]) > 0) {
+                right[node] = rotateR(right[node]);
+            }
+            return rotateL(node);
+        }
+        return node;
+    }
+
+    /**
+     * Single left rotation.
+     * @param node current root to be rotated to left
+     * @return the middle node, also the new root
+     */
+    private int rotateL(int node) {
+        int rotated = right[node];
+        right[node] = left[rotated];
+        left[rotated] = node;
+        heightSetter(node);
+        heightSetter(rotated);
+        return rotated;
+    }
+
+    /**
+     * Single right rotation.
+     * @param node current root to be rotated to right
+     * @return the middle node, also the new root
+     */
+    private int rotateR(int node) {
+        int rotated = left[node];
+        left[node] = right[rotated];
+        right[rotated] = node;
+        heightSetter(node);
+        heightSetter(rotated);
+        return rotated;
+    }
+
+    /**
+     * Takes a slot from the free list, or a fresh one from the end of the
+     * arrays, and fills it with a new leaf.
+     * @param data the data of the new leaf
+     * @return the slot of the new leaf
+     */
+    private int allocate(int data) {
+        int node = free;
+        if (node != NIL) {
+            free = left[node];
+        } else {
+            if (used == keys.length) {
+                grow();
+            }
+            node = used++;
+        }
+        keys[node] = data;
+        left[node] = NIL;
+        right[node] = NIL;
+        height[node] = 0;
+        return node;
+    }
+
+    /**
+     * Puts a slot on the free list.
+     * @param node the slot no longer in the tree
+     */
+    private void release(int node) {
+        left[node] = free;
+        right[node] = NIL;
+        free = node;
+    }
+
+    /**
+     * Grows every array by half.
+     */
+    private void grow() {
+        int capacity = keys.length + (keys.length >> 1);
+        if (capacity < 0) {
+            capacity = Integer.MAX_VALUE - 8;
+        }
+        if (capacity <= keys.length) {
+            throw new IllegalStateException("The tree is full.");
+        }
+        keys = Arrays.copyOf(keys, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        height = Arrays.copyOf(height, capacity);
+    }
+}
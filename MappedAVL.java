@@ -0,0 +1,853 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.zip.CRC32;
+
+/**
+ * A persistent AVL tree of long keys stored in a memory-mapped file.
+ *
+ * The file starts with two headers followed by the node records, mapped
+ * in chunks of CHUNK_RECORDS records. A header names the root, the size,
+ * the free list and a sequence number, and carries a checksum; the valid
+ * header with the higher sequence number is the current one. Reopening a
+ * file only reads the headers and maps the chunks, so the tree is usable
+ * right away whatever its size.
+ *
+ * Changes are copy-on-write. A node that belongs to the last committed
+ * tree is never written to: the path to a change is copied into fresh
+ * records, and the replaced records are only freed once the next commit
+ * is on disk. commit forces the records, then writes the other header and
+ * forces it, so a crash at any point leaves the last committed tree
+ * intact. After a crash the free list may be stale; it is then rebuilt
+ * from the reachable records when the file is opened, which is O(n) but
+ * never touches the tree itself.
+ *
+ * With auto-commit every add and remove is committed before it returns.
+ * Otherwise changes are grouped until commit or close. The tree is not
+ * thread safe, and must not be used after it is closed.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class MappedAVL implements AutoCloseable {
+    /**
+     * The slot of the null node.
+     */
+    private static final int NIL = 0;
+
+    private static final long MAGIC = 0x41564C4D41505631L;
+    private static final int HEADER_SIZE = 64;
+    private static final int HEADERS_BYTES = 4096;
+    private static final int H_MAGIC = 0;
+    private static final int H_SEQUENCE = 8;
+    private static final int H_ROOT = 16;
+    private static final int H_SIZE = 20;
+    private static final int H_USED = 24;
+    private static final int H_FREE = 28;
+    private static final int H_CLEAN = 32;
+    private static final int H_CHECKSUM = 36;
+
+    private static final int RECORD = 24;
+    private static final int KEY = 0;
+    private static final int LEFT = 8;
+    private static final int RIGHT = 12;
+    private static final int HEIGHT = 16;
+    private static final int STAMP = 20;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+
+    private final FileChannel channel;
+    private final boolean autoCommit;
+    private final MappedByteBuffer headers;
+    private MappedByteBuffer[] chunks = new MappedByteBuffer[4];
+    private boolean[] dirty = new boolean[4];
+    private int chunkCount;
+
+    private long sequence;
+    private int root;
+    private int size;
+    private int used;
+    private int free;
+    private int stamp;
+    private boolean pending;
+    private boolean cleanOnDisk;
+    private int[] retired = new int[16];
+    private int retiredCount;
+
+    private long removedKey;
+    private int modCount;
+    private boolean closed;
+
+    /**
+     * Opens or creates the file.
+     *
+     * @param file the file holding the tree
+     * @param autoCommit whether every change is committed right away
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    private MappedAVL(Path file, boolean autoCommit) throws IOException {
+        this.autoCommit = autoCommit;
+        channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            boolean fresh = channel.size() == 0;
+            headers = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+                    HEADERS_BYTES);
+            headers.order(ByteOrder.LITTLE_ENDIAN);
+            if (fresh) {
+                used = 1;
+                root = NIL;
+                free = NIL;
+                mapChunk();
+                setHeight(NIL, -1);
+                writeHeader(true);
+            } else {
+                readHeader();
+                while (chunkCount << CHUNK_SHIFT < used) {
+                    mapChunk();
+                }
+                if (!cleanOnDisk) {
+                    rebuildFreeList();
+                }
+            }
+            stamp = (int) sequence + 1;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the tree stored in the file, or creates an empty one if the
+     * file does not exist or is empty. Every change is committed before it
+     * returns.
+     *
+     * @param file the file holding the tree
+     * @return the opened tree
+     * @throws IOException if the file cannot be opened, mapped or is not a
+     * tree file
+     */
+    public static MappedAVL open(Path file) throws IOException {
+        return open(file, true);
+    }
+
+    /**
+     * Opens the tree stored in the file, or creates an empty one if the
+     * file does not exist or is empty.
+     *
+     * @param file the file holding the tree
+     * @param autoCommit whether every change is committed before it returns;
+     * if false, changes are only durable after commit or close
+     * @return the opened tree
+     * @throws IOException if the file cannot be opened, mapped or is not a
+     * tree file
+     */
+    public static MappedAVL open(Path file, boolean autoCommit)
+            throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("The file is null!");
+        }
+        return new MappedAVL(file, autoCommit);
+    }
+
+    /**
+     * Add the key as a leaf to the tree. If the key is already in the tree,
+     * then nothing is done.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @throws java.io.UncheckedIOException if the change cannot be written
+     * @param data the key to be added
+     */
+    public void add(long data) {
+        checkOpen();
+        if (contains(data)) {
+            return;
+        }
+        beginChange();
+        root = insert(root, data);
+        size++;
+        endChange();
+    }
+
+    /**
+     * Removes the key from the tree, replacing a node with two children by
+     * its predecessor.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @throws java.util.NoSuchElementException if the key is not in the tree
+     * @throws java.io.UncheckedIOException if the change cannot be written
+     * @param data the key to remove from the tree
+     * @return the key removed from the tree
+     */
+    public long remove(long data) {
+        checkOpen();
+        if (!contains(data)) {
+            throw new NoSuchElementException("There is no such element");
+        }
+        beginChange();
+        root = delete(root, data);
+        size--;
+        endChange();
+        return data;
+    }
+
+    /**
+     * Returns the key in the tree matching the parameter passed in.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @throws java.util.NoSuchElementException if the key is not found
+     * @param data the key to get
+     * @return the key in the tree equal to the parameter
+     */
+    public long get(long data) {
+        if (!contains(data)) {
+            throw new NoSuchElementException("No such data in the AVL.");
+        }
+        return data;
+    }
+
+    /**
+     * Returns whether or not the key is contained within the tree.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @param data the key to find
+     * @return whether or not the key is contained within the tree
+     */
+    public boolean contains(long data) {
+        checkOpen();
+        int node = root;
+        while (node != NIL) {
+            long key = key(node);
+            if (data == key) {
+                return true;
+            }
+            node = data < key ? left(node) : right(node);
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of keys in the tree, committed or not.
+     *
+     * @return the number of keys in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the height of the root of the tree.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @return the height of the root of the tree, -1 if the tree is empty
+     */
+    public int height() {
+        checkOpen();
+        return height(root);
+    }
+
+    /**
+     * Returns an iterator over the keys in ascending order. It fails fast if
+     * the tree is changed while iterating.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @return an in-order iterator over the keys
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        checkOpen();
+        return new InorderIterator();
+    }
+
+    /**
+     * Makes every change so far durable. Does nothing if there is nothing
+     * to commit.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @throws java.io.UncheckedIOException if the change cannot be written
+     */
+    public void commit() {
+        checkOpen();
+        if (pending) {
+            forceChunks();
+            writeHeader(false);
+            pending = false;
+            stamp = (int) sequence + 1;
+            for (int i = 0; i < retiredCount; i++) {
+                release(retired[i]);
+            }
+            retiredCount = 0;
+        }
+    }
+
+    /**
+     * Commits any pending change, marks the file as cleanly closed and
+     * unmaps it. Closing it again does nothing.
+     *
+     * @throws java.io.UncheckedIOException if the file cannot be written
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        try {
+            commit();
+            forceChunks();
+            writeHeader(true);
+        } finally {
+            closed = true;
+            modCount++;
+            for (int i = 0; i < chunkCount; i++) {
+                DirectBuffers.free(chunks[i]);
+                chunks[i] = null;
+            }
+            DirectBuffers.free(headers);
+            try {
+                channel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Throws if the tree was closed.
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The tree is closed.");
+        }
+    }
+
+    /**
+     * Marks the file as not cleanly closed before the first change after
+     * opening, so a crash makes the next open rebuild the free list.
+     */
+    private void beginChange() {
+        if (cleanOnDisk) {
+            writeHeader(false);
+            stamp = (int) sequence + 1;
+        }
+    }
+
+    /**
+     * Finishes a change, committing it in auto-commit mode.
+     */
+    private void endChange() {
+        pending = true;
+        modCount++;
+        if (autoCommit) {
+            commit();
+        }
+    }
+
+    /**
+     * Copy-on-write recursive insert.
+     * @param node current subtree root
+     * @param data the key to insert, known not to be in the tree
+     * @return the new subtree root
+     */
+    private int insert(int node, long data) {
+        if (node == NIL) {
+            return allocate(data);
+        }
+        int copy = writable(node);
+        if (data < key(copy)) {
+            setLeft(copy, insert(left(copy), data));
+        } else {
+            setRight(copy, insert(right(copy), data));
+        }
+        return rebuild(copy);
+    }
+
+    /**
+     * Copy-on-write recursive delete.
+     * @param node current subtree root
+     * @param data the key to delete, known to be in the tree
+     * @return the new subtree root
+     */
+    private int delete(int node, long data) {
+        long key = key(node);
+        if (data == key) {
+            if (left(node) == NIL || right(node) == NIL) {
+                int child = left(node) == NIL ? right(node) : left(node);
+                retire(node);
+                return child;
+            }
+            int copy = writable(node);
+            setLeft(copy, deleteMax(left(copy)));
+            setKey(copy, removedKey);
+            return rebuild(copy);
+        }
+        int copy = writable(node);
+        if (data < key) {
+            setLeft(copy, delete(left(copy), data));
+        } else {
+            setRight(copy, delete(right(copy), data));
+        }
+        return rebuild(copy);
+    }
+
+    /**
+     * Removes the largest key of a subtree, leaving it in removedKey.
+     * @param node current subtree root
+     * @return the new subtree root
+     */
+    private int deleteMax(int node) {
+        if (right(node) == NIL) {
+            removedKey = key(node);
+            int child = left(node);
+            retire(node);
+            return child;
+        }
+        int copy = writable(node);
+        setRight(copy, deleteMax(right(copy)));
+        return rebuild(copy);
+    }
+
+    /**
+     * Returns a record that may be written to: the node itself if it was
+     * written since the last commit, otherwise a fresh copy of it.
+     * @param node the node about to change
+     * @return the node or its copy
+     */
+    private int writable(int node) {
+        if (stamp(node) == stamp) {
+            return node;
+        }
+        int copy = allocate(key(node));
+        setLeft(copy, left(node));
+        setRight(copy, right(node));
+        setHeight(copy, height(node));
+        retire(node);
+        return copy;
+    }
+
+    /**
+     * Drops a node from the working tree. A node written since the last
+     * commit is freed right away; one of the committed tree is only freed
+     * after the next commit.
+     * @param node the node leaving the tree
+     */
+    private void retire(int node) {
+        if (stamp(node) == stamp) {
+            release(node);
+            return;
+        }
+        if (retiredCount == retired.length) {
+            retired = Arrays.copyOf(retired, retiredCount * 2);
+        }
+        retired[retiredCount++] = node;
+    }
+
+    /**
+     * Recalculates the height of a writable node and rotates it if needed.
+     * Children are copied before a rotation changes them.
+     * @param node current subtree root, writable
+     * @return new subtree root
+     */
+    private int rebuild(int node) {
+        heightSetter(node);
+        int bf = balanceFactor(node);
+        if (bf > 1) {
+            int child = writable(left(node));
+            setLeft(node, child);
+            if (balanceFactor(child) < 0) {
+                setLeft(node, rotateL(child));
+            }
+            return rotateR(node);
+        } else if (bf < -1) {
+            int child = writable(right(node));
+            setRight(node, child);
+            if (balanceFactor(child) > 0) {
+                setRight(node, rotateR(child));
+            }
+            return rotateL(node);
+        }
+        return node;
+    }
+
+    /**
+     * Single left rotation of a writable node with a writable right child.
+     * @param node current root to be rotated to left
+     * @return the middle node, also the new root
+     */
+    private int rotateL(int node) {
+        int rotated = right(node);
+        if (stamp(rotated) != stamp) {
+            rotated = writable(rotated);
+        }
+        setRight(node, left(rotated));
+        setLeft(rotated, node);
+        heightSetter(node);
+        heightSetter(rotated);
+        return rotated;
+    }
+
+    /**
+     * Single right rotation of a writable node with a writable left child.
+     * @param node current root to be rotated to right
+     * @return the middle node, also the new root
+     */
+    private int rotateR(int node) {
+        int rotated = left(node);
+        if (stamp(rotated) != stamp) {
+            rotated = writable(rotated);
+        }
+        setLeft(node, right(rotated));
+        setRight(rotated, node);
+        heightSetter(node);
+        heightSetter(rotated);
+        return rotated;
+    }
+
+    /**
+     * Recalculates the height of a node from its children.
+     * @param node the node needing height recalculation
+     */
+    private void heightSetter(int node) {
+        setHeight(node, Math.max(height(left(node)),
+                height(right(node))) + 1);
+    }
+
+    /**
+     * Calculates the balance factor of a node from its children.
+     * @param node the node
+     * @return the balance factor of the node
+     */
+    private int balanceFactor(int node) {
+        return height(left(node)) - height(right(node));
+    }
+
+    /**
+     * Takes a slot from the free list, or a fresh one from the end of the
+     * file, and fills it with a new leaf written in this commit.
+     * @param data the key of the new leaf
+     * @return the slot of the new leaf
+     */
+    private int allocate(long data) {
+        int node = free;
+        if (node != NIL) {
+            free = left(node);
+        } else {
+            if (used == chunkCount << CHUNK_SHIFT) {
+                mapChunk();
+            }
+            node = used++;
+        }
+        setKey(node, data);
+        setLeft(node, NIL);
+        setRight(node, NIL);
+        setHeight(node, 0);
+        setStamp(node, stamp);
+        return node;
+    }
+
+    /**
+     * Puts a slot that no committed tree uses on the free list.
+     * @param node the slot to free
+     */
+    private void release(int node) {
+        setLeft(node, free);
+        setStamp(node, 0);
+        free = node;
+    }
+
+    /**
+     * Rebuilds the free list from the slots not reachable from the root.
+     */
+    private void rebuildFreeList() {
+        BitSet reachable = new BitSet(used);
+        reachable.set(NIL);
+        int[] stack = new int[height(root) + 2];
+        int top = 0;
+        if (root != NIL) {
+            stack[top++] = root;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            reachable.set(node);
+            if (left(node) != NIL) {
+                stack[top++] = left(node);
+            }
+            if (right(node) != NIL) {
+                stack[top++] = right(node);
+            }
+        }
+        free = NIL;
+        for (int node = reachable.nextClearBit(1); node < used;
+             node = reachable.nextClearBit(node + 1)) {
+            release(node);
+        }
+    }
+
+    /**
+     * Reads the current header: the valid one with the higher sequence.
+     * @throws IOException if neither header is valid
+     */
+    private void readHeader() throws IOException {
+        int best = -1;
+        long bestSequence = -1;
+        for (int i = 0; i < 2; i++) {
+            int base = i * HEADER_SIZE;
+            if (headers.getLong(base + H_MAGIC) == MAGIC
+                    && headers.getLong(base + H_CHECKSUM) == checksum(base)
+                    && headers.getLong(base + H_SEQUENCE) > bestSequence) {
+                best = base;
+                bestSequence = headers.getLong(base + H_SEQUENCE);
+            }
+        }
+        if (best < 0) {
+            throw new IOException("Not an AVL file, or both headers are"
+                    + " damaged.");
+        }
+        sequence = bestSequence;
+        root = headers.getInt(best + H_ROOT);
+        size = headers.getInt(best + H_SIZE);
+        used = headers.getInt(best + H_USED);
+        free = headers.getInt(best + H_FREE);
+        cleanOnDisk = headers.getInt(best + H_CLEAN) != 0;
+    }
+
+    /**
+     * Writes the working state to the older header and forces it. The
+     * records it points to must already be on disk.
+     * @param clean whether the file is being closed
+     */
+    private void writeHeader(boolean clean) {
+        sequence++;
+        int base = (int) (sequence & 1) * HEADER_SIZE;
+        headers.putLong(base + H_MAGIC, MAGIC);
+        headers.putLong(base + H_SEQUENCE, sequence);
+        headers.putInt(base + H_ROOT, root);
+        headers.putInt(base + H_SIZE, size);
+        headers.putInt(base + H_USED, used);
+        headers.putInt(base + H_FREE, free);
+        headers.putInt(base + H_CLEAN, clean ? 1 : 0);
+        headers.putLong(base + H_CHECKSUM, checksum(base));
+        headers.force();
+        cleanOnDisk = clean;
+    }
+
+    /**
+     * Computes the checksum of a header.
+     * @param base the offset of the header
+     * @return the checksum of every field before the checksum itself
+     */
+    private long checksum(int base) {
+        CRC32 crc = new CRC32();
+        for (int i = 0; i < H_CHECKSUM; i++) {
+            crc.update(headers.get(base + i));
+        }
+        return crc.getValue();
+    }
+
+    /**
+     * Maps the next chunk of records, growing the file if needed.
+     */
+    private void mapChunk() {
+        if (chunkCount == Integer.MAX_VALUE >>> CHUNK_SHIFT) {
+            throw new IllegalStateException("The tree is full.");
+        }
+        if (chunkCount == chunks.length) {
+            chunks = Arrays.copyOf(chunks, chunkCount * 2);
+            dirty = Arrays.copyOf(dirty, chunkCount * 2);
+        }
+        long position = HEADERS_BYTES
+                + (long) chunkCount * CHUNK_RECORDS * RECORD;
+        try {
+            MappedByteBuffer chunk = channel.map(FileChannel.MapMode.READ_WRITE,
+                    position, (long) CHUNK_RECORDS * RECORD);
+            chunk.order(ByteOrder.LITTLE_ENDIAN);
+            chunks[chunkCount++] = chunk;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Forces every chunk written since the last force.
+     */
+    private void forceChunks() {
+        for (int i = 0; i < chunkCount; i++) {
+            if (dirty[i]) {
+                chunks[i].force();
+                dirty[i] = false;
+            }
+        }
+    }
+
+    /**
+     * Returns the chunk holding a slot.
+     * @param node the slot
+     * @return the chunk
+     */
+    private MappedByteBuffer chunk(int node) {
+        return chunks[node >>> CHUNK_SHIFT];
+    }
+
+    /**
+     * Returns the chunk holding a slot, marking it as needing a force.
+     * @param node the slot
+     * @return the chunk
+     */
+    private MappedByteBuffer dirtyChunk(int node) {
+        dirty[node >>> CHUNK_SHIFT] = true;
+        return chunks[node >>> CHUNK_SHIFT];
+    }
+
+    /**
+     * Returns the offset of a slot in its chunk.
+     * @param node the slot
+     * @return the byte offset of the record
+     */
+    private static int offset(int node) {
+        return (node & CHUNK_MASK) * RECORD;
+    }
+
+    /**
+     * Reads the key of a slot.
+     * @param node the slot
+     * @return the key
+     */
+    private long key(int node) {
+        return chunk(node).getLong(offset(node) + KEY);
+    }
+
+    /**
+     * Reads the left child of a slot.
+     * @param node the slot
+     * @return the left child slot
+     */
+    private int left(int node) {
+        return chunk(node).getInt(offset(node) + LEFT);
+    }
+
+    /**
+     * Reads the right child of a slot.
+     * @param node the slot
+     * @return the right child slot
+     */
+    private int right(int node) {
+        return chunk(node).getInt(offset(node) + RIGHT);
+    }
+
+    /**
+     * Reads the height of a slot.
+     * @param node the slot
+     * @return the height, -1 for NIL
+     */
+    private int height(int node) {
+        return chunk(node).getInt(offset(node) + HEIGHT);
+    }
+
+    /**
+     * Reads the commit stamp of a slot.
+     * @param node the slot
+     * @return the stamp of the commit the slot was written in
+     */
+    private int stamp(int node) {
+        return chunk(node).getInt(offset(node) + STAMP);
+    }
+
+    /**
+     * Writes the key of a slot.
+     * @param node the slot
+     * @param key the key
+     */
+    private void setKey(int node, long key) {
+        dirtyChunk(node).putLong(offset(node) + KEY, key);
+    }
+
+    /**
+     * Writes the left child of a slot.
+     * @param node the slot
+     * @param left the left child slot
+     */
+    private void setLeft(int node, int left) {
+        dirtyChunk(node).putInt(offset(node) + LEFT, left);
+    }
+
+    /**
+     * Writes the right child of a slot.
+     * @param node the slot
+     * @param right the right child slot
+     */
+    private void setRight(int node, int right) {
+        dirtyChunk(node).putInt(offset(node) + RIGHT, right);
+    }
+
+    /**
+     * Writes the height of a slot.
+     * @param node the slot
+     * @param height the height
+     */
+    private void setHeight(int node, int height) {
+        dirtyChunk(node).putInt(offset(node) + HEIGHT, height);
+    }
+
+    /**
+     * Writes the commit stamp of a slot.
+     * @param node the slot
+     * @param stamp the stamp
+     */
+    private void setStamp(int node, int stamp) {
+        dirtyChunk(node).putInt(offset(node) + STAMP, stamp);
+    }
+
+    /**
+     * In-order iterator driven by an explicit stack of slots.
+     */
+    private final class InorderIterator implements PrimitiveIterator.OfLong {
+        private final int[] stack = new int[height(root) + 1];
+        private final int expectedModCount = modCount;
+        private int top;
+
+        /**
+         * Starts at the smallest key.
+         */
+        private InorderIterator() {
+            pushLeft(root);
+        }
+
+        /**
+         * Pushes a node and its chain of left children.
+         * @param node the node to start from
+         */
+        private void pushLeft(int node) {
+            while (node != NIL) {
+                stack[top++] = node;
+                node = left(node);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return top > 0;
+        }
+
+        @Override
+        public long nextLong() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (top == 0) {
+                throw new NoSuchElementException("No more keys.");
+            }
+            int node = stack[--top];
+            pushLeft(right(node));
+            return key(node);
+        }
+    }
+}
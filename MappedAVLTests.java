@@ -0,0 +1,153 @@
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for MappedAVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class MappedAVLTests {
+    private static final int TIMEOUT = 10000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = TIMEOUT)
+    public void testReopen() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("tree.avl");
+        try (MappedAVL avlTree = MappedAVL.open(file, false)) {
+            for (long i = 0; i < 100000; i++) {
+                avlTree.add(i * 7);
+            }
+            avlTree.remove(70);
+        }
+        try (MappedAVL avlTree = MappedAVL.open(file)) {
+            assertEquals(99999, avlTree.size());
+            assertEquals(16, avlTree.height());
+            assertTrue(avlTree.contains(77));
+            assertFalse(avlTree.contains(70));
+            assertFalse(avlTree.contains(78));
+            PrimitiveIterator.OfLong it = avlTree.iterator();
+            long previous = -1;
+            int count = 0;
+            while (it.hasNext()) {
+                long data = it.nextLong();
+                assertTrue(data > previous);
+                previous = data;
+                count++;
+            }
+            assertEquals(99999, count);
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testAutoCommit() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("tree.avl");
+        MappedAVL crashed = MappedAVL.open(file);
+        for (long i = 0; i < 50; i++) {
+            crashed.add(i);
+        }
+        crashed.remove(10);
+        // never closed, as if the process died here
+        try (MappedAVL avlTree = MappedAVL.open(file)) {
+            assertEquals(49, avlTree.size());
+            assertFalse(avlTree.contains(10));
+            assertTrue(avlTree.contains(49));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCrashKeepsLastCommit() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("tree.avl");
+        MappedAVL crashed = MappedAVL.open(file, false);
+        for (long i = 0; i < 1000; i++) {
+            crashed.add(i);
+        }
+        crashed.commit();
+        for (long i = 0; i < 500; i++) {
+            crashed.remove(i * 2);
+        }
+        for (long i = 1000; i < 3000; i++) {
+            crashed.add(i);
+        }
+        // the uncommitted changes were written to the mapped records
+        // but the headers still point at the committed tree
+        try (MappedAVL avlTree = MappedAVL.open(file, false)) {
+            assertEquals(1000, avlTree.size());
+            for (long i = 0; i < 1000; i++) {
+                assertTrue(avlTree.contains(i));
+            }
+            assertFalse(avlTree.contains(1000));
+            // the free list was rebuilt, so new records do not clobber
+            // the tree
+            for (long i = 5000; i < 8000; i++) {
+                avlTree.add(i);
+            }
+            assertEquals(4000, avlTree.size());
+            assertTrue(avlTree.contains(999));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMatchesTreeSet() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("tree.avl");
+        Random random = new Random(1332);
+        TreeSet<Long> expected = new TreeSet<>();
+        MappedAVL avlTree = MappedAVL.open(file, false);
+        for (int i = 0; i < 20000; i++) {
+            long data = random.nextInt(5000);
+            if (random.nextInt(3) == 0 && expected.contains(data)) {
+                assertEquals(data, avlTree.remove(data));
+                expected.remove(data);
+            } else {
+                avlTree.add(data);
+                expected.add(data);
+            }
+            if (i % 1000 == 0) {
+                avlTree.commit();
+            }
+            if (i % 5000 == 0) {
+                avlTree.close();
+                avlTree = MappedAVL.open(file, false);
+            }
+        }
+        assertEquals(expected.size(), avlTree.size());
+        Iterator<Long> it = expected.iterator();
+        PrimitiveIterator.OfLong actual = avlTree.iterator();
+        while (it.hasNext()) {
+            assertEquals((long) it.next(), actual.nextLong());
+        }
+        assertFalse(actual.hasNext());
+        avlTree.close();
+        assertTrue(Files.size(file) < 4096 + 24 * (1 << 17));
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testRemoveMissing() throws IOException {
+        try (MappedAVL avlTree = MappedAVL.open(
+                folder.getRoot().toPath().resolve("tree.avl"))) {
+            avlTree.remove(1);
+        }
+    }
+
+    @Test(timeout = TIMEOUT, expected = IOException.class)
+    public void testNotATreeFile() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("garbage");
+        Files.write(file, new byte[] {1, 2, 3, 4});
+        MappedAVL.open(file);
+    }
+}
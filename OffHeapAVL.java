@@ -0,0 +1,568 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * An AVL tree of long keys whose nodes live outside the Java heap.
+ *
+ * Every node is a 20 byte record (key, left, right, height) in a direct
+ * ByteBuffer, so the garbage collector sees a handful of buffers however
+ * big the tree gets. Records are addressed by slot; the buffers are chunks
+ * of CHUNK_RECORDS records each, allocated as the tree grows, which keeps
+ * every chunk well below the 2 GB limit of a single buffer. Slot 0 is the
+ * null node with height -1. Removed slots are kept on a free list,
+ * threaded through the left field, and reused by later adds.
+ *
+ * The memory is given back to the operating system on clear and close,
+ * without waiting for the buffers to be collected. The tree is not thread
+ * safe, and must not be used after it is closed.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class OffHeapAVL implements AutoCloseable {
+    /**
+     * The slot of the null node.
+     */
+    private static final int NIL = 0;
+
+    /**
+     * An upper bound on the height of any tree with fewer than 2^31 nodes.
+     */
+    private static final int MAX_HEIGHT = 46;
+
+    private static final int RECORD = 20;
+    private static final int KEY = 0;
+    private static final int LEFT = 8;
+    private static final int RIGHT = 12;
+    private static final int HEIGHT = 16;
+
+    private static final int CHUNK_SHIFT = 16;
+    private static final int CHUNK_RECORDS = 1 << CHUNK_SHIFT;
+    private static final int CHUNK_MASK = CHUNK_RECORDS - 1;
+
+    private ByteBuffer[] chunks;
+    private final int[] path = new int[MAX_HEIGHT + 2];
+    private int chunkCount;
+    private int root;
+    private int size;
+    private int used;
+    private int free;
+    private int modCount;
+    private boolean closed;
+
+    /**
+     * Initializes an empty tree.
+     */
+    public OffHeapAVL() {
+        init();
+    }
+
+    /**
+     * Add the key as a leaf to the tree. If the key is already in the tree,
+     * then nothing is done.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @param data the key to be added
+     */
+    public void add(long data) {
+        checkOpen();
+        int depth = 0;
+        int node = root;
+        boolean toLeft = false;
+        while (node != NIL) {
+            long key = key(node);
+            if (data == key) {
+                return;
+            }
+            path[depth++] = node;
+            toLeft = data < key;
+            node = toLeft ? left(node) : right(node);
+        }
+        int added = allocate(data);
+        if (depth == 0) {
+            root = added;
+        } else if (toLeft) {
+            setLeft(path[depth - 1], added);
+        } else {
+            setRight(path[depth - 1], added);
+        }
+        size++;
+        modCount++;
+        rebalance(depth);
+    }
+
+    /**
+     * Removes the key from the tree, replacing a node with two children by
+     * its predecessor.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @throws java.util.NoSuchElementException if the key is not in the tree
+     * @param data the key to remove from the tree
+     * @return the key removed from the tree
+     */
+    public long remove(long data) {
+        checkOpen();
+        int depth = 0;
+        int node = root;
+        while (node != NIL && key(node) != data) {
+            path[depth++] = node;
+            node = data < key(node) ? left(node) : right(node);
+        }
+        if (node == NIL) {
+            throw new NoSuchElementException("There is no such element");
+        }
+        long removed = key(node);
+        if (left(node) != NIL && right(node) != NIL) {
+            path[depth++] = node;
+            int pred = left(node);
+            while (right(pred) != NIL) {
+                path[depth++] = pred;
+                pred = right(pred);
+            }
+            setKey(node, key(pred));
+            int parent = path[depth - 1];
+            if (parent == node) {
+                setLeft(parent, left(pred));
+            } else {
+                setRight(parent, left(pred));
+            }
+            node = pred;
+        } else {
+            relink(depth == 0 ? NIL : path[depth - 1], node,
+                    left(node) == NIL ? right(node) : left(node));
+        }
+        release(node);
+        size--;
+        modCount++;
+        rebalance(depth);
+        return removed;
+    }
+
+    /**
+     * Returns the key in the tree matching the parameter passed in.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @throws java.util.NoSuchElementException if the key is not found
+     * @param data the key to get
+     * @return the key in the tree equal to the parameter
+     */
+    public long get(long data) {
+        if (!contains(data)) {
+            throw new NoSuchElementException("No such data in the AVL.");
+        }
+        return data;
+    }
+
+    /**
+     * Returns whether or not the key is contained within the tree.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @param data the key to find
+     * @return whether or not the key is contained within the tree
+     */
+    public boolean contains(long data) {
+        checkOpen();
+        int node = root;
+        while (node != NIL) {
+            long key = key(node);
+            if (data == key) {
+                return true;
+            }
+            node = data < key ? left(node) : right(node);
+        }
+        return false;
+    }
+
+    /**
+     * Get the number of keys in the tree.
+     *
+     * @return the number of keys in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the height of the root of the tree.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @return the height of the root of the tree, -1 if the tree is empty
+     */
+    public int height() {
+        checkOpen();
+        return height(root);
+    }
+
+    /**
+     * Returns the number of bytes of native memory held by the tree.
+     *
+     * @return the off-heap footprint in bytes
+     */
+    public long offHeapBytes() {
+        return (long) chunkCount * CHUNK_RECORDS * RECORD;
+    }
+
+    /**
+     * Returns an iterator over the keys in ascending order. It holds a
+     * stack of at most the height of the tree and fails fast if the tree
+     * is changed while iterating.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     * @return an in-order iterator over the keys
+     */
+    public PrimitiveIterator.OfLong iterator() {
+        checkOpen();
+        return new InorderIterator();
+    }
+
+    /**
+     * Clear the tree and give its native memory back.
+     *
+     * @throws java.lang.IllegalStateException if the tree is closed
+     */
+    public void clear() {
+        checkOpen();
+        freeChunks();
+        init();
+    }
+
+    /**
+     * Gives the native memory back. The tree cannot be used afterwards;
+     * closing it again does nothing.
+     */
+    @Override
+    public void close() {
+        if (!closed) {
+            freeChunks();
+            closed = true;
+            root = NIL;
+            size = 0;
+            modCount++;
+        }
+    }
+
+    /**
+     * Sets up an empty tree with a single chunk.
+     */
+    private void init() {
+        chunks = new ByteBuffer[4];
+        chunkCount = 0;
+        addChunk();
+        setHeight(NIL, -1);
+        root = NIL;
+        size = 0;
+        used = 1;
+        free = NIL;
+        modCount++;
+    }
+
+    /**
+     * Throws if the tree was closed.
+     */
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The tree is closed.");
+        }
+    }
+
+    /**
+     * Walks back up the path fixing heights and rotating where needed.
+     * Stops at the first subtree whose height did not change.
+     * @param depth the number of slots in the path
+     */
+    private void rebalance(int depth) {
+        for (int i = depth - 1; i >= 0; i--) {
+            int node = path[i];
+            int oldHeight = height(node);
+            heightSetter(node);
+            int rotated = rebuild(node);
+            if (rotated != node) {
+                relink(i == 0 ? NIL : path[i - 1], node, rotated);
+            }
+            if (height(rotated) == oldHeight) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replaces a child of parent, or the root if parent is NIL.
+     * @param parent the parent slot, NIL if oldChild is the root
+     * @param oldChild the child being replaced
+     * @param newChild the slot taking its place
+     */
+    private void relink(int parent, int oldChild, int newChild) {
+        if (parent == NIL) {
+            root = newChild;
+        } else if (left(parent) == oldChild) {
+            setLeft(parent, newChild);
+        } else {
+            setRight(parent, newChild);
+        }
+    }
+
+    /**
+     * Recalculates the height of a node from its children.
+     * @param node the node needing height recalculation
+     */
+    private void heightSetter(int node) {
+        setHeight(node, Math.max(height(left(node)),
+                height(right(node))) + 1);
+    }
+
+    /**
+     * Calculates the balance factor of a node from its children.
+     * @param node the node
+     * @return the balance factor of the node
+     */
+    private int balanceFactor(int node) {
+        return height(left(node)) - height(right(node));
+    }
+
+    /**
+     * Rebuild the subtree by testing which rotation should be operated.
+     * @param node current subtree root
+     * @return new subtree root after rotation
+     */
+    private int rebuild(int node) {
+        int bf = balanceFactor(node);
+        if (bf > 1) {
+            if (balanceFactor(left(node)) < 0) {
+                setLeft(node, rotateL(left(node)));
+            }
+            return rotateR(node);
+        } else if (bf < -1) {
+            if (balanceFactor(right(node)) > 0) {
+                setRight(node, rotateR(right(node)));
+            }
+            return rotateL(node);
+        }
+        return node;
+    }
+
+    /**
+     * Single left rotation.
+     * @param node current root to be rotated to left
+     * @return the middle node, also the new root
+     */
+    private int rotateL(int node) {
+        int rotated = right(node);
+        setRight(node, left(rotated));
+        setLeft(rotated, node);
+        heightSetter(node);
+        heightSetter(rotated);
+        return rotated;
+    }
+
+    /**
+     * Single right rotation.
+     * @param node current root to be rotated to right
+     * @return the middle node, also the new root
+     */
+    private int rotateR(int node) {
+        int rotated = left(node);
+        setLeft(node, right(rotated));
+        setRight(rotated, node);
+        heightSetter(node);
+        heightSetter(rotated);
+        return rotated;
+    }
+
+    /**
+     * Takes a slot from the free list, or a fresh one from the end of the
+     * last chunk, and fills it with a new leaf.
+     * @param data the key of the new leaf
+     * @return the slot of the new leaf
+     */
+    private int allocate(long data) {
+        int node = free;
+        if (node != NIL) {
+            free = left(node);
+        } else {
+            if (used == chunkCount << CHUNK_SHIFT) {
+                addChunk();
+            }
+            node = used++;
+        }
+        setKey(node, data);
+        setLeft(node, NIL);
+        setRight(node, NIL);
+        setHeight(node, 0);
+        return node;
+    }
+
+    /**
+     * Puts a slot on the free list.
+     * @param node the slot no longer in the tree
+     */
+    private void release(int node) {
+        setLeft(node, free);
+        free = node;
+    }
+
+    /**
+     * Allocates one more chunk of records.
+     */
+    private void addChunk() {
+        if (chunkCount == Integer.MAX_VALUE >>> CHUNK_SHIFT) {
+            throw new IllegalStateException("The tree is full.");
+        }
+        if (chunkCount == chunks.length) {
+            ByteBuffer[] grown = new ByteBuffer[chunks.length * 2];
+            System.arraycopy(chunks, 0, grown, 0, chunkCount);
+            chunks = grown;
+        }
+        chunks[chunkCount++] = ByteBuffer
+                .allocateDirect(CHUNK_RECORDS * RECORD)
+                .order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Frees every chunk right away.
+     */
+    private void freeChunks() {
+        for (int i = 0; i < chunkCount; i++) {
+            DirectBuffers.free(chunks[i]);
+            chunks[i] = null;
+        }
+        chunkCount = 0;
+    }
+
+    /**
+     * Returns the chunk holding a slot.
+     * @param node the slot
+     * @return the chunk
+     */
+    private ByteBuffer chunk(int node) {
+        return chunks[node >>> CHUNK_SHIFT];
+    }
+
+    /**
+     * Returns the offset of a slot in its chunk.
+     * @param node the slot
+     * @return the byte offset of the record
+     */
+    private static int offset(int node) {
+        return (node & CHUNK_MASK) * RECORD;
+    }
+
+    /**
+     * Reads the key of a slot.
+     * @param node the slot
+     * @return the key
+     */
+    private long key(int node) {
+        return chunk(node).getLong(offset(node) + KEY);
+    }
+
+    /**
+     * Reads the left child of a slot.
+     * @param node the slot
+     * @return the left child slot
+     */
+    private int left(int node) {
+        return chunk(node).getInt(offset(node) + LEFT);
+    }
+
+    /**
+     * Reads the right child of a slot.
+     * @param node the slot
+     * @return the right child slot
+     */
+    private int right(int node) {
+        return chunk(node).getInt(offset(node) + RIGHT);
+    }
+
+    /**
+     * Reads the height of a slot.
+     * @param node the slot
+     * @return the height, -1 for NIL
+     */
+    private int height(int node) {
+        return chunk(node).getInt(offset(node) + HEIGHT);
+    }
+
+    /**
+     * Writes the key of a slot.
+     * @param node the slot
+     * @param key the key
+     */
+    private void setKey(int node, long key) {
+        chunk(node).putLong(offset(node) + KEY, key);
+    }
+
+    /**
+     * Writes the left child of a slot.
+     * @param node the slot
+     * @param left the left child slot
+     */
+    private void setLeft(int node, int left) {
+        chunk(node).putInt(offset(node) + LEFT, left);
+    }
+
+    /**
+     * Writes the right child of a slot.
+     * @param node the slot
+     * @param right the right child slot
+     */
+    private void setRight(int node, int right) {
+        chunk(node).putInt(offset(node) + RIGHT, right);
+    }
+
+    /**
+     * Writes the height of a slot.
+     * @param node the slot
+     * @param height the height
+     */
+    private void setHeight(int node, int height) {
+        chunk(node).putInt(offset(node) + HEIGHT, height);
+    }
+
+    /**
+     * In-order iterator driven by an explicit stack of slots.
+     */
+    private final class InorderIterator implements PrimitiveIterator.OfLong {
+        private final int[] stack = new int[height(root) + 1];
+        private final int expectedModCount = modCount;
+        private int top;
+
+        /**
+         * Starts at the smallest key.
+         */
+        private InorderIterator() {
+            pushLeft(root);
+        }
+
+        /**
+         * Pushes a node and its chain of left children.
+         * @param node the node to start from
+         */
+        private void pushLeft(int node) {
+            while (node != NIL) {
+                stack[top++] = node;
+                node = left(node);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return top > 0;
+        }
+
+        @Override
+        public long nextLong() {
+            if (expectedModCount != modCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (top == 0) {
+                throw new NoSuchElementException("No more keys.");
+            }
+            int node = stack[--top];
+            pushLeft(right(node));
+            return key(node);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for OffHeapAVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class OffHeapAVLTests {
+    private static final int TIMEOUT = 2000;
+    private OffHeapAVL avlTree;
+
+    @Before
+    public void setup() {
+        avlTree = new OffHeapAVL();
+    }
+
+    @After
+    public void tearDown() {
+        avlTree.close();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testAddRotations() {
+        avlTree.add(5);
+        avlTree.add(6);
+        avlTree.add(7);
+        avlTree.add(3);
+        avlTree.add(4);
+
+        assertEquals(5, avlTree.size());
+        assertEquals(2, avlTree.height());
+        assertInorder(new long[] {3, 4, 5, 6, 7});
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMatchesTreeSet() {
+        Random random = new Random(1332);
+        TreeSet<Long> expected = new TreeSet<>();
+        for (int i = 0; i < 200000; i++) {
+            long data = random.nextInt(50000) * 1000003L;
+            if (random.nextInt(3) == 0 && expected.contains(data)) {
+                assertEquals(data, avlTree.remove(data));
+                expected.remove(data);
+            } else {
+                avlTree.add(data);
+                expected.add(data);
+            }
+        }
+        assertEquals(expected.size(), avlTree.size());
+        assertTrue(avlTree.height() <= 1.45 * Math.log(expected.size() + 2)
+                / Math.log(2));
+        Iterator<Long> it = expected.iterator();
+        PrimitiveIterator.OfLong actual = avlTree.iterator();
+        while (it.hasNext()) {
+            assertEquals((long) it.next(), actual.nextLong());
+        }
+        assertFalse(actual.hasNext());
+        assertTrue(avlTree.offHeapBytes() > 0);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testGetAndContains() {
+        avlTree.add(Long.MIN_VALUE);
+        avlTree.add(Long.MAX_VALUE);
+        assertEquals(Long.MAX_VALUE, avlTree.get(Long.MAX_VALUE));
+        assertTrue(avlTree.contains(Long.MIN_VALUE));
+        assertFalse(avlTree.contains(0));
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testGetMissing() {
+        avlTree.add(1);
+        avlTree.get(2);
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testRemoveMissing() {
+        avlTree.remove(2);
+    }
+
+    @Test(timeout = TIMEOUT, expected = ConcurrentModificationException.class)
+    public void testIteratorFailsFast() {
+        avlTree.add(1);
+        avlTree.add(2);
+        PrimitiveIterator.OfLong it = avlTree.iterator();
+        it.nextLong();
+        avlTree.add(3);
+        it.nextLong();
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testClear() {
+        for (int i = 0; i < 100000; i++) {
+            avlTree.add(i);
+        }
+        avlTree.clear();
+        assertEquals(0, avlTree.size());
+        assertEquals(-1, avlTree.height());
+        assertFalse(avlTree.iterator().hasNext());
+        avlTree.add(7);
+        assertInorder(new long[] {7});
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalStateException.class)
+    public void testClosed() {
+        avlTree.add(1);
+        avlTree.close();
+        avlTree.close();
+        avlTree.contains(1);
+    }
+
+    /**
+     * Checks the keys returned by the iterator.
+     * @param expected the keys in ascending order
+     */
+    private void assertInorder(long[] expected) {
+        PrimitiveIterator.OfLong it = avlTree.iterator();
+        for (long data : expected) {
+            assertEquals(data, it.nextLong());
+        }
+        assertFalse(it.hasNext());
+    }
+}
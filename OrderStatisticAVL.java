@@ -0,0 +1,185 @@
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * An AVL tree whose nodes also store the size of their subtree, which
+ * answers rank and selection queries in O(log n).
+ *
+ * The sizes are kept up to date through the hooks of {@link AVL}: every
+ * height recomputation, and so every rotation, recounts the node from its
+ * children, and inserts recount the whole path up to the root. The nodes
+ * returned by {@link #getRoot()} are {@link SizedAVLNode}s.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class OrderStatisticAVL<T extends Comparable<? super T>> extends AVL<T> {
+    /**
+     * Initializes an empty tree.
+     */
+    public OrderStatisticAVL() {
+    }
+
+    /**
+     * Initializes the tree with the data in the Collection. The data is
+     * added in the same order it is in the Collection.
+     *
+     * @param data the data to add to the tree
+     * @throws IllegalArgumentException if data or any element in data is null
+     */
+    public OrderStatisticAVL(Collection<T> data) {
+        super(data);
+    }
+
+    /**
+     * Initializes an empty tree ordered by a comparator.
+     *
+     * @param comparator the ordering of the data, null for the natural
+     * ordering
+     */
+    public OrderStatisticAVL(Comparator<? super T> comparator) {
+        super(comparator);
+    }
+
+    /**
+     * Initializes the tree, ordered by a comparator, with the data in the
+     * Collection. The data is added in the same order it is in the
+     * Collection.
+     *
+     * @param data the data to add to the tree
+     * @param comparator the ordering of the data, null for the natural
+     * ordering
+     * @throws IllegalArgumentException if data or any element in data is null
+     */
+    public OrderStatisticAVL(Collection<T> data,
+                             Comparator<? super T> comparator) {
+        super(data, comparator);
+    }
+
+    /**
+     * Returns the number of elements in the tree that are smaller than the
+     * data. The data does not have to be in the tree; if it is, this is its
+     * index in {@link #inorder()}.
+     *
+     * @param data the data to rank
+     * @return the number of smaller elements
+     * @throws IllegalArgumentException if data is null
+     */
+    public int rank(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null!");
+        }
+        return countBelow(data, false);
+    }
+
+    /**
+     * Returns the element at the given index in ascending order, the
+     * element with exactly index smaller elements.
+     *
+     * @param index the index, from 0 to size - 1
+     * @return the element at that index
+     * @throws IllegalArgumentException if index is out of range
+     */
+    public T select(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IllegalArgumentException("Index " + index
+                    + " is out of range for size " + size() + ".");
+        }
+        AVLNode<T> node = getRoot();
+        while (true) {
+            int leftCount = count(node.getLeft());
+            if (index < leftCount) {
+                node = node.getLeft();
+            } else if (index == leftCount) {
+                return node.getData();
+            } else {
+                index -= leftCount + 1;
+                node = node.getRight();
+            }
+        }
+    }
+
+    /**
+     * Counts the elements between lo and hi, both included.
+     *
+     * @param lo the lower bound
+     * @param hi the upper bound
+     * @return the number of elements x with lo <= x <= hi
+     * @throws IllegalArgumentException if lo or hi is null, or lo is
+     * greater than hi
+     */
+    public int countInRange(T lo, T hi) {
+        if (lo == null || hi == null) {
+            throw new IllegalArgumentException("The bound is null!");
+        }
+        if (compare(lo, hi) > 0) {
+            throw new IllegalArgumentException("The lower bound is greater"
+                    + " than the upper bound.");
+        }
+        return countBelow(hi, true) - countBelow(lo, false);
+    }
+
+    /**
+     * Counts the elements below the data in one descent.
+     * @param data the bound
+     * @param inclusive whether an element equal to data is counted
+     * @return the number of elements below, or up to, data
+     */
+    private int countBelow(T data, boolean inclusive) {
+        int below = 0;
+        AVLNode<T> node = getRoot();
+        while (node != null) {
+            int cmp = compare(data, node.getData());
+            if (cmp < 0 || (cmp == 0 && !inclusive)) {
+                node = node.getLeft();
+            } else {
+                below += count(node.getLeft()) + 1;
+                if (cmp == 0) {
+                    return below;
+                }
+                node = node.getRight();
+            }
+        }
+        return below;
+    }
+
+    /**
+     * Returns the size of a subtree.
+     * @param node the subtree root, may be null
+     * @return the number of nodes in the subtree
+     */
+    private int count(AVLNode<T> node) {
+        return node == null ? 0 : ((SizedAVLNode<T>) node).getCount();
+    }
+
+    @Override
+    protected AVLNode<T> createNode(T data) {
+        return new SizedAVLNode<T>(data);
+    }
+
+    @Override
+    protected Class<?> nodeClass() {
+        return SizedAVLNode.class;
+    }
+
+    @Override
+    protected boolean isAugmented() {
+        return true;
+    }
+
+    @Override
+    protected void augment(AVLNode<T> node) {
+        ((SizedAVLNode<T>) node).setCount(count(node.getLeft())
+                + count(node.getRight()) + 1);
+    }
+
+    @Override
+    protected int subtreeSize(AVLNode<T> node) {
+        return count(node);
+    }
+
+    @Override
+    protected AVL<T> createTree() {
+        return new OrderStatisticAVL<T>(comparator());
+    }
+}
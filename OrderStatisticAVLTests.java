@@ -0,0 +1,119 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for rank, select and countInRange of OrderStatisticAVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class OrderStatisticAVLTests {
+    private static final int TIMEOUT = 200;
+    private OrderStatisticAVL<Integer> avlTree;
+
+    @Before
+    public void setup() {
+        avlTree = new OrderStatisticRotateRotate.CheckedTree();
+        for (int data : Arrays.asList(10, 6, 7, 4, 12, 5, 1, 13, 11, 15,
+                17, 19, 22, 24, 14)) {
+            avlTree.add(data);
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRank() {
+        List<Integer> inorder = avlTree.inorder();
+        for (int i = 0; i < inorder.size(); i++) {
+            assertEquals(i, avlTree.rank(inorder.get(i)));
+        }
+        assertEquals(0, avlTree.rank(0));
+        assertEquals(3, avlTree.rank(6));
+        assertEquals(4, avlTree.rank(7));
+        assertEquals(5, avlTree.rank(8));
+        assertEquals(15, avlTree.rank(100));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSelect() {
+        List<Integer> inorder = avlTree.inorder();
+        for (int i = 0; i < inorder.size(); i++) {
+            assertEquals(inorder.get(i), avlTree.select(i));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCountInRange() {
+        assertEquals(15, avlTree.countInRange(0, 100));
+        assertEquals(15, avlTree.countInRange(1, 24));
+        assertEquals(3, avlTree.countInRange(10, 12));
+        assertEquals(1, avlTree.countInRange(13, 13));
+        assertEquals(0, avlTree.countInRange(8, 9));
+        assertEquals(0, avlTree.countInRange(25, 30));
+        assertEquals(2, avlTree.countInRange(2, 5));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRandomAgainstInorder() {
+        Random random = new Random(1332);
+        avlTree.clear();
+        for (int i = 0; i < 1000; i++) {
+            int data = random.nextInt(300);
+            if (random.nextInt(3) == 0 && avlTree.contains(data)) {
+                avlTree.remove(data);
+            } else {
+                avlTree.add(data);
+            }
+        }
+        List<Integer> inorder = avlTree.inorder();
+        for (int i = 0; i < inorder.size(); i++) {
+            assertEquals(inorder.get(i), avlTree.select(i));
+        }
+        for (int lo = -5; lo < 310; lo += 7) {
+            int hi = lo + random.nextInt(50);
+            int expected = 0;
+            int below = 0;
+            for (int data : inorder) {
+                if (lo <= data && data <= hi) {
+                    expected++;
+                } else if (data < lo) {
+                    below++;
+                }
+            }
+            assertEquals(expected, avlTree.countInRange(lo, hi));
+            assertEquals(below, avlTree.rank(lo));
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testNodesAreSized() {
+        assertTrue(avlTree.getRoot() instanceof SizedAVLNode);
+        assertEquals(15, ((SizedAVLNode<Integer>) avlTree.getRoot())
+                .getCount());
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testSelectOutOfRange() {
+        avlTree.select(15);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testSelectNegative() {
+        avlTree.select(-1);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testRankNull() {
+        avlTree.rank(null);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testCountInRangeReversed() {
+        avlTree.countInRange(10, 5);
+    }
+}
@@ -0,0 +1,47 @@
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Runs the RotateRotate scenarios against OrderStatisticAVL, checking the
+ * subtree sizes of every node after every add and remove.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class OrderStatisticRotateRotate extends RotateRotate {
+    @Override
+    protected AVLInterface<Integer> createTree() {
+        return new CheckedTree();
+    }
+
+    /**
+     * Checks the subtree size of every node in a subtree.
+     * @param node the subtree root
+     * @return the size of the subtree
+     */
+    static int assertCounts(AVLNode<Integer> node) {
+        if (node == null) {
+            return 0;
+        }
+        int count = assertCounts(node.getLeft())
+                + assertCounts(node.getRight()) + 1;
+        assertEquals(count, ((SizedAVLNode<Integer>) node).getCount());
+        return count;
+    }
+
+    /**
+     * An OrderStatisticAVL that checks its sizes after every change.
+     */
+    static class CheckedTree extends OrderStatisticAVL<Integer> {
+        @Override
+        public void add(Integer data) {
+            super.add(data);
+            assertEquals(size(), assertCounts(getRoot()));
+        }
+
+        @Override
+        public Integer remove(Integer data) {
+            Integer removed = super.remove(data);
+            assertEquals(size(), assertCounts(getRoot()));
+            return removed;
+        }
+    }
+}
@@ -0,0 +1,278 @@
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An AVL tree whose nodes also link to their parents, which lets cursors
+ * step to the next or previous element without a stack.
+ *
+ * The links are kept up to date by the nodes themselves: every insert,
+ * removal and rotation attaches children through setLeft and setRight,
+ * which point the child back at its new parent. A node that becomes the
+ * root has its link cleared through {@link #rootChanged}, so a walk up
+ * the links always ends at the root. The nodes returned by
+ * {@link #getRoot()} are {@link ParentAVLNode}s.
+ *
+ * A {@link Cursor} sits between two elements and moves in either
+ * direction in O(1) amortized time without allocating. Unlike the
+ * iterators it survives changes to the tree: it remembers the element it
+ * last stepped over, and after a change it finds its place again with one
+ * O(log n) descent.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class ParentAVL<T extends Comparable<? super T>> extends AVL<T> {
+    /**
+     * Initializes an empty tree.
+     */
+    public ParentAVL() {
+    }
+
+    /**
+     * Initializes the tree with the data in the Collection. The data is
+     * added in the same order it is in the Collection.
+     *
+     * @param data the data to add to the tree
+     * @throws IllegalArgumentException if data or any element in data is null
+     */
+    public ParentAVL(Collection<T> data) {
+        super(data);
+    }
+
+    /**
+     * Initializes an empty tree ordered by a comparator.
+     *
+     * @param comparator the ordering of the data, null for the natural
+     * ordering
+     */
+    public ParentAVL(Comparator<? super T> comparator) {
+        super(comparator);
+    }
+
+    /**
+     * Initializes the tree, ordered by a comparator, with the data in the
+     * Collection. The data is added in the same order it is in the
+     * Collection.
+     *
+     * @param data the data to add to the tree
+     * @param comparator the ordering of the data, null for the natural
+     * ordering
+     * @throws IllegalArgumentException if data or any element in data is null
+     */
+    public ParentAVL(Collection<T> data, Comparator<? super T> comparator) {
+        super(data, comparator);
+    }
+
+    /**
+     * Returns a cursor before the smallest element.
+     *
+     * @return the new cursor
+     */
+    public Cursor cursor() {
+        return new Cursor(null, false);
+    }
+
+    /**
+     * Returns a cursor positioned at a bound, which need not be in the
+     * tree. Calling next on it returns the least element at or above the
+     * bound, and previous the greatest element below that. This is how a
+     * scan stopped at a known element is picked up again later.
+     *
+     * @param from the bound
+     * @param inclusive whether next may return an element equal to from
+     * @return the new cursor
+     * @throws IllegalArgumentException if from is null
+     */
+    public Cursor cursor(T from, boolean inclusive) {
+        if (from == null) {
+            throw new IllegalArgumentException("The bound is null!");
+        }
+        return new Cursor(from, !inclusive);
+    }
+
+    @Override
+    protected AVLNode<T> createNode(T data) {
+        return new ParentAVLNode<T>(data);
+    }
+
+    @Override
+    protected Class<?> nodeClass() {
+        return ParentAVLNode.class;
+    }
+
+    @Override
+    protected AVL<T> createTree() {
+        return new ParentAVL<T>(comparator());
+    }
+
+    @Override
+    protected void rootChanged(AVLNode<T> node) {
+        if (node != null) {
+            ((ParentAVLNode<T>) node).setParent(null);
+        }
+    }
+
+    /**
+     * Finds the node after a node in ascending order.
+     *
+     * @param node the node, must be in the tree
+     * @return the next node, or null if node is the largest
+     */
+    private static <T extends Comparable<? super T>> ParentAVLNode<T>
+            successor(ParentAVLNode<T> node) {
+        AVLNode<T> child = node.getRight();
+        if (child != null) {
+            while (child.getLeft() != null) {
+                child = child.getLeft();
+            }
+            return (ParentAVLNode<T>) child;
+        }
+        ParentAVLNode<T> parent = node.getParent();
+        while (parent != null && parent.getRight() == node) {
+            node = parent;
+            parent = node.getParent();
+        }
+        return parent;
+    }
+
+    /**
+     * Finds the node before a node in ascending order.
+     *
+     * @param node the node, must be in the tree
+     * @return the previous node, or null if node is the smallest
+     */
+    private static <T extends Comparable<? super T>> ParentAVLNode<T>
+            predecessor(ParentAVLNode<T> node) {
+        AVLNode<T> child = node.getLeft();
+        if (child != null) {
+            while (child.getRight() != null) {
+                child = child.getRight();
+            }
+            return (ParentAVLNode<T>) child;
+        }
+        ParentAVLNode<T> parent = node.getParent();
+        while (parent != null && parent.getLeft() == node) {
+            node = parent;
+            parent = node.getParent();
+        }
+        return parent;
+    }
+
+    /**
+     * A position between two elements of the tree, or before the first or
+     * after the last. The position is pinned to an element, the anchor:
+     * after next the cursor sits just above the element returned, after
+     * previous just below it. If the tree changes, the cursor finds the
+     * anchor's place again on its next move, so it neither fails nor skips
+     * elements that are still in the tree.
+     */
+    public final class Cursor implements Iterator<T> {
+        private ParentAVLNode<T> prev;
+        private ParentAVLNode<T> next;
+        private T anchor;
+        private boolean afterAnchor;
+        private T lastReturned;
+        private int expectedModCount;
+
+        /**
+         * Positions the cursor at an anchor.
+         *
+         * @param anchor the anchor, null for the start of the tree
+         * @param afterAnchor whether the anchor itself is before the cursor
+         */
+        private Cursor(T anchor, boolean afterAnchor) {
+            this.anchor = anchor;
+            this.afterAnchor = afterAnchor;
+            seek();
+        }
+
+        /**
+         * Finds the nodes around the anchor if the tree changed since the
+         * cursor last looked at it.
+         */
+        private void sync() {
+            if (expectedModCount != modCount()) {
+                seek();
+            }
+        }
+
+        /**
+         * Finds the nodes around the anchor with one descent.
+         */
+        private void seek() {
+            expectedModCount = modCount();
+            prev = anchor == null ? null
+                    : (ParentAVLNode<T>) floorNode(anchor, afterAnchor);
+            next = prev == null ? (ParentAVLNode<T>) firstNode()
+                    : successor(prev);
+        }
+
+        @Override
+        public boolean hasNext() {
+            sync();
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            sync();
+            if (next == null) {
+                throw new NoSuchElementException("The cursor is at the end.");
+            }
+            prev = next;
+            next = successor(next);
+            anchor = prev.getData();
+            afterAnchor = true;
+            lastReturned = anchor;
+            return anchor;
+        }
+
+        /**
+         * Returns whether there is an element before the cursor.
+         *
+         * @return true if previous would return an element
+         */
+        public boolean hasPrevious() {
+            sync();
+            return prev != null;
+        }
+
+        /**
+         * Moves the cursor back over the element before it.
+         *
+         * @return the element before the cursor
+         * @throws NoSuchElementException if the cursor is at the start
+         */
+        public T previous() {
+            sync();
+            if (prev == null) {
+                throw new NoSuchElementException("The cursor is at the"
+                        + " start.");
+            }
+            next = prev;
+            prev = predecessor(prev);
+            anchor = next.getData();
+            afterAnchor = false;
+            lastReturned = anchor;
+            return anchor;
+        }
+
+        /**
+         * Removes the element last returned by next or previous from the
+         * tree. The cursor stays where it was.
+         *
+         * @throws IllegalStateException if neither has been called since
+         * the last remove
+         */
+        @Override
+        public void remove() {
+            if (lastReturned == null) {
+                throw new IllegalStateException("Nothing to remove.");
+            }
+            ParentAVL.this.remove(lastReturned);
+            lastReturned = null;
+        }
+    }
+}
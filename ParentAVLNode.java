@@ -0,0 +1,57 @@
+/**
+ * An AVL node that also links to its parent, so that the tree can be
+ * walked upwards without a stack.
+ *
+ * The link is set whenever the node is attached as a child, which covers
+ * every insert, removal and rotation. {@link ParentAVL} clears the link
+ * of a node that becomes the root.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class ParentAVLNode<T extends Comparable<? super T>> extends AVLNode<T> {
+    private ParentAVLNode<T> parent;
+
+    /**
+     * Create a leaf with the specified data.
+     *
+     * @param data the data to be stored in this node
+     */
+    public ParentAVLNode(T data) {
+        super(data);
+    }
+
+    /**
+     * Get the parent of this node.
+     *
+     * @return the parent, or null for the root
+     */
+    public ParentAVLNode<T> getParent() {
+        return parent;
+    }
+
+    /**
+     * Set the parent of this node.
+     *
+     * @param parent the parent, null for the root
+     */
+    public void setParent(ParentAVLNode<T> parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public void setLeft(AVLNode<T> left) {
+        super.setLeft(left);
+        if (left != null) {
+            ((ParentAVLNode<T>) left).parent = this;
+        }
+    }
+
+    @Override
+    public void setRight(AVLNode<T> right) {
+        super.setRight(right);
+        if (right != null) {
+            ((ParentAVLNode<T>) right).parent = this;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for ParentAVL: parent links through rotations and the cursors.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class ParentAVLTests {
+    private static final int TIMEOUT = 200;
+    private ParentAVL<Integer> avlTree;
+
+    @Before
+    public void setup() {
+        avlTree = new ParentAVL<>();
+        for (int i = 1; i <= 10; i++) {
+            avlTree.add(i * 10);
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLinksAfterRandomChanges() {
+        Random random = new Random(1332);
+        for (int i = 0; i < 5000; i++) {
+            int data = random.nextInt(500);
+            if (random.nextInt(3) == 0 && avlTree.contains(data)) {
+                avlTree.remove(data);
+            } else {
+                avlTree.add(data);
+            }
+        }
+        assertNull(((ParentAVLNode<Integer>) avlTree.getRoot()).getParent());
+        assertLinks(avlTree.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCursorAcrossBatchesAndSplits() {
+        ParentAVL<Integer>.Cursor cursor = avlTree.cursor(60, true);
+        assertEquals(Integer.valueOf(60), cursor.next());
+        avlTree.addAll(Arrays.asList(65, 5, 95, 1, 2, 3));
+        assertRootUnlinked(avlTree);
+        assertEquals(Integer.valueOf(65), cursor.next());
+        AVL<Integer> upper = avlTree.split(80);
+        assertRootUnlinked(avlTree);
+        assertRootUnlinked(upper);
+        assertEquals(Integer.valueOf(70), cursor.next());
+        assertFalse(cursor.hasNext());
+        avlTree.union(upper);
+        assertRootUnlinked(avlTree);
+        assertLinks(avlTree.getRoot());
+        assertEquals(Arrays.asList(80, 90, 95, 100), drain(cursor));
+        assertEquals(Integer.valueOf(100), cursor.previous());
+        assertEquals(Integer.valueOf(95), cursor.previous());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSplitAndUnionKeepLinks() {
+        AVL<Integer> upper = avlTree.split(55);
+        assertTrue(upper instanceof ParentAVL);
+        assertLinks(avlTree.getRoot());
+        assertLinks(upper.getRoot());
+        assertEquals(Arrays.asList(60, 70, 80, 90, 100),
+                drain(((ParentAVL<Integer>) upper).cursor()));
+        avlTree.union(upper);
+        assertLinks(avlTree.getRoot());
+        assertEquals(avlTree.inorder(), drain(avlTree.cursor()));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCursorBothWays() {
+        ParentAVL<Integer>.Cursor cursor = avlTree.cursor();
+        assertFalse(cursor.hasPrevious());
+        assertEquals(Integer.valueOf(10), cursor.next());
+        assertEquals(Integer.valueOf(20), cursor.next());
+        assertEquals(Integer.valueOf(20), cursor.previous());
+        assertEquals(Integer.valueOf(10), cursor.previous());
+        assertFalse(cursor.hasPrevious());
+        List<Integer> all = drain(cursor);
+        assertEquals(avlTree.inorder(), all);
+        List<Integer> backwards = new ArrayList<>();
+        while (cursor.hasPrevious()) {
+            backwards.add(cursor.previous());
+        }
+        assertEquals(Arrays.asList(100, 90, 80, 70, 60, 50, 40, 30, 20, 10),
+                backwards);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCursorFromBound() {
+        assertEquals(Integer.valueOf(40), avlTree.cursor(40, true).next());
+        assertEquals(Integer.valueOf(50), avlTree.cursor(40, false).next());
+        assertEquals(Integer.valueOf(50), avlTree.cursor(45, true).next());
+        assertEquals(Integer.valueOf(30),
+                avlTree.cursor(40, true).previous());
+        assertEquals(Integer.valueOf(40),
+                avlTree.cursor(40, false).previous());
+        assertFalse(avlTree.cursor(100, false).hasNext());
+        assertFalse(avlTree.cursor(5, true).hasPrevious());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testPagination() {
+        for (int i = 0; i < 1000; i++) {
+            avlTree.add(i);
+        }
+        List<Integer> all = new ArrayList<>();
+        Integer last = null;
+        do {
+            ParentAVL<Integer>.Cursor cursor = last == null
+                    ? avlTree.cursor() : avlTree.cursor(last, false);
+            for (int i = 0; i < 64 && cursor.hasNext(); i++) {
+                last = cursor.next();
+                all.add(last);
+            }
+        } while (avlTree.cursor(last, false).hasNext());
+        assertEquals(avlTree.inorder(), all);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCursorSurvivesChanges() {
+        ParentAVL<Integer>.Cursor cursor = avlTree.cursor();
+        cursor.next();
+        assertEquals(Integer.valueOf(20), cursor.next());
+        avlTree.remove(20);
+        avlTree.remove(30);
+        avlTree.add(25);
+        avlTree.add(5);
+        assertEquals(Integer.valueOf(25), cursor.next());
+        assertEquals(Integer.valueOf(25), cursor.previous());
+        assertEquals(Integer.valueOf(10), cursor.previous());
+        avlTree.clear();
+        assertFalse(cursor.hasNext());
+        assertFalse(cursor.hasPrevious());
+        avlTree.add(1);
+        avlTree.add(99);
+        assertEquals(Integer.valueOf(99), cursor.next());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCursorAcrossUnchangedBatches() {
+        for (int i = 0; i < 300; i++) {
+            avlTree.add(i);
+        }
+        ParentAVL<Integer>.Cursor cursor = avlTree.cursor(290, true);
+        assertEquals(Integer.valueOf(290), cursor.next());
+        assertFalse(avlTree.addAll(Arrays.asList(0, 120, 295)));
+        assertFalse(avlTree.removeAll(Arrays.asList(-1, 500)));
+        assertLinks(avlTree.getRoot());
+        List<Integer> rest = drain(cursor);
+        assertEquals(Arrays.asList(291, 292, 293, 294, 295, 296, 297, 298,
+                299), rest);
+        assertFalse(cursor.hasNext());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testCursorRemove() {
+        ParentAVL<Integer>.Cursor cursor = avlTree.cursor();
+        while (cursor.hasNext()) {
+            if (cursor.next() % 20 == 0) {
+                cursor.remove();
+            }
+        }
+        assertEquals(Arrays.asList(10, 30, 50, 70, 90), avlTree.inorder());
+        assertEquals(Integer.valueOf(90), cursor.previous());
+        cursor.remove();
+        assertEquals(Integer.valueOf(70), cursor.previous());
+        assertEquals(Integer.valueOf(70), cursor.next());
+        assertFalse(cursor.hasNext());
+        assertLinks(avlTree.getRoot());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testRandomAgainstTreeSet() {
+        Random random = new Random(1332);
+        TreeSet<Integer> expected = new TreeSet<>(avlTree.inorder());
+        ParentAVL<Integer>.Cursor cursor = avlTree.cursor();
+        Integer anchor = null;
+        boolean after = false;
+        for (int i = 0; i < 20000; i++) {
+            int data = random.nextInt(300);
+            switch (random.nextInt(4)) {
+                case 0:
+                    expected.add(data);
+                    avlTree.add(data);
+                    break;
+                case 1:
+                    if (expected.remove(data)) {
+                        avlTree.remove(data);
+                    }
+                    break;
+                case 2:
+                    Integer higher = anchor == null ? (expected.isEmpty()
+                            ? null : expected.first())
+                            : after ? expected.higher(anchor)
+                            : expected.ceiling(anchor);
+                    assertEquals(higher != null, cursor.hasNext());
+                    if (higher != null) {
+                        assertEquals(higher, cursor.next());
+                        anchor = higher;
+                        after = true;
+                    }
+                    break;
+                default:
+                    Integer lower = anchor == null ? null
+                            : after ? expected.floor(anchor)
+                            : expected.lower(anchor);
+                    assertEquals(lower != null, cursor.hasPrevious());
+                    if (lower != null) {
+                        assertEquals(lower, cursor.previous());
+                        anchor = lower;
+                        after = false;
+                    }
+            }
+        }
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testNextAtEnd() {
+        new ParentAVL<Integer>().cursor().next();
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalStateException.class)
+    public void testRemoveTwice() {
+        ParentAVL<Integer>.Cursor cursor = avlTree.cursor();
+        cursor.next();
+        cursor.remove();
+        cursor.remove();
+    }
+
+    /**
+     * Steps a cursor to the end.
+     * @param cursor the cursor
+     * @return the elements it stepped over
+     */
+    private static List<Integer> drain(ParentAVL<Integer>.Cursor cursor) {
+        List<Integer> list = new ArrayList<>();
+        while (cursor.hasNext()) {
+            list.add(cursor.next());
+        }
+        return list;
+    }
+
+    /**
+     * Checks that the root of a tree has no parent link.
+     * @param tree the tree
+     */
+    private static void assertRootUnlinked(AVL<Integer> tree) {
+        assertNull(((ParentAVLNode<Integer>) tree.getRoot()).getParent());
+    }
+
+    /**
+     * Checks that every child in a subtree links back to its parent.
+     * @param node the subtree root
+     */
+    private static void assertLinks(AVLNode<Integer> node) {
+        for (AVLNode<Integer> child
+                : Arrays.asList(node.getLeft(), node.getRight())) {
+            if (child != null) {
+                assertSame(node, ((ParentAVLNode<Integer>) child).getParent());
+                assertLinks(child);
+            }
+        }
+    }
+}
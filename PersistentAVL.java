@@ -0,0 +1,384 @@
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * An immutable AVL tree. Adding or removing data leaves the tree alone and
+ * returns a new one that shares every subtree the change did not touch,
+ * so each update copies only the O(log n) nodes on its path, and keeping
+ * an old version around costs nothing until it is updated.
+ *
+ * That makes a snapshot free: holding on to a tree is the snapshot. A
+ * writer can publish each new version through a volatile field while
+ * readers keep walking whichever version they picked up, with no locking
+ * on either side. The nodes are never modified once the tree that holds
+ * them has been built, and the tree publishes them through a final field,
+ * so even a tree handed to another thread without synchronization is seen
+ * complete.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public final class PersistentAVL<T extends Comparable<? super T>>
+        implements Iterable<T> {
+    /**
+     * An upper bound on the height of any tree with fewer than 2^31 nodes.
+     */
+    private static final int MAX_HEIGHT = 46;
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentAVL EMPTY = new PersistentAVL<>(null, 0);
+
+    private final AVLNode<T> root;
+    private final int size;
+
+    /**
+     * Wraps a finished tree.
+     * @param root the root, null for the empty tree
+     * @param size the number of nodes
+     */
+    private PersistentAVL(AVLNode<T> root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty tree.
+     *
+     * @param <T> the type of the data
+     * @return the empty tree
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends Comparable<? super T>> PersistentAVL<T> empty() {
+        return (PersistentAVL<T>) EMPTY;
+    }
+
+    /**
+     * Builds a tree from the data in the Collection, added in the same
+     * order it is in the Collection.
+     *
+     * @param data the data to add to the tree
+     * @param <T> the type of the data
+     * @return the tree holding the data
+     * @throws IllegalArgumentException if data or any element in data is null
+     */
+    public static <T extends Comparable<? super T>> PersistentAVL<T> of(
+            Collection<T> data) {
+        if (data == null) {
+            throw new IllegalArgumentException("The collection is empty!");
+        }
+        PersistentAVL<T> tree = empty();
+        for (T t : data) {
+            if (t == null) {
+                throw new IllegalArgumentException("Null data in collection.");
+            }
+            tree = tree.add(t);
+        }
+        return tree;
+    }
+
+    /**
+     * Returns a tree that also holds the data. This tree is not changed.
+     *
+     * @throws java.lang.IllegalArgumentException if the data is null
+     * @param data the data to be added
+     * @return the new tree, or this tree if the data is already in it
+     */
+    public PersistentAVL<T> add(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Data about to add is null!");
+        }
+        AVLNode<T> added = addHelper(root, data);
+        return added == root ? this : new PersistentAVL<T>(added, size + 1);
+    }
+
+    /**
+     * Recursive helper method for add. Copies the nodes on the path and
+     * rebalances the copies; returns the same node if data is already in
+     * its subtree.
+     * @param node current subtree root node
+     * @param data the data to be added
+     * @return the root of the new subtree
+     */
+    private AVLNode<T> addHelper(AVLNode<T> node, T data) {
+        if (node == null) {
+            return node(data, null, null);
+        }
+        int cmp = data.compareTo(node.getData());
+        if (cmp == 0) {
+            return node;
+        } else if (cmp < 0) {
+            AVLNode<T> left = addHelper(node.getLeft(), data);
+            return left == node.getLeft() ? node
+                    : balance(node.getData(), left, node.getRight());
+        } else {
+            AVLNode<T> right = addHelper(node.getRight(), data);
+            return right == node.getRight() ? node
+                    : balance(node.getData(), node.getLeft(), right);
+        }
+    }
+
+    /**
+     * Returns a tree without the data, replacing a node with two children
+     * by its predecessor. This tree is not changed.
+     *
+     * @throws java.lang.IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not in the tree
+     * @param data data to remove from the tree
+     * @return the new tree
+     */
+    public PersistentAVL<T> remove(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("Cannot remove null data!");
+        }
+        return new PersistentAVL<T>(removeHelper(root, data), size - 1);
+    }
+
+    /**
+     * Recursive helper method for remove.
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @param node current subtree root node
+     * @param data the data to be removed
+     * @return the root of the new subtree
+     */
+    private AVLNode<T> removeHelper(AVLNode<T> node, T data) {
+        if (node == null) {
+            throw new NoSuchElementException("There is no such element");
+        }
+        int cmp = data.compareTo(node.getData());
+        if (cmp < 0) {
+            return balance(node.getData(), removeHelper(node.getLeft(), data),
+                    node.getRight());
+        } else if (cmp > 0) {
+            return balance(node.getData(), node.getLeft(),
+                    removeHelper(node.getRight(), data));
+        } else if (node.getLeft() == null) {
+            return node.getRight();
+        } else if (node.getRight() == null) {
+            return node.getLeft();
+        }
+        AVLNode<T> pred = node.getLeft();
+        while (pred.getRight() != null) {
+            pred = pred.getRight();
+        }
+        return balance(pred.getData(), removeLast(node.getLeft()),
+                node.getRight());
+    }
+
+    /**
+     * Recursive helper method removing the largest node of a subtree.
+     * @param node current subtree root node
+     * @return the root of the new subtree
+     */
+    private AVLNode<T> removeLast(AVLNode<T> node) {
+        if (node.getRight() == null) {
+            return node.getLeft();
+        }
+        return balance(node.getData(), node.getLeft(),
+                removeLast(node.getRight()));
+    }
+
+    /**
+     * Returns the data in the tree matching the parameter passed in.
+     *
+     * @throws java.lang.IllegalArgumentException if the data is null
+     * @throws java.util.NoSuchElementException if the data is not found
+     * @param data data to get in the tree
+     * @return the data in the tree equal to the parameter
+     */
+    public T get(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException("The data is null!");
+        }
+        AVLNode<T> node = findNode(data);
+        if (node == null) {
+            throw new NoSuchElementException("No such data in the AVL.");
+        }
+        return node.getData();
+    }
+
+    /**
+     * Returns whether or not the parameter is contained within the tree.
+     *
+     * @throws java.lang.IllegalArgumentException if the data is null
+     * @param data data to find in the tree
+     * @return whether or not the parameter is contained within the tree
+     */
+    public boolean contains(T data) {
+        if (data == null) {
+            throw new IllegalArgumentException(
+                    "Cannot check whether the AVL tree contains null data.");
+        }
+        return findNode(data) != null;
+    }
+
+    /**
+     * Iterative lookup, one comparison per level.
+     * @param data the data to look for
+     * @return the node holding data, or null if it is not in the tree
+     */
+    private AVLNode<T> findNode(T data) {
+        AVLNode<T> node = root;
+        while (node != null) {
+            int cmp = data.compareTo(node.getData());
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? node.getLeft() : node.getRight();
+        }
+        return null;
+    }
+
+    /**
+     * Get the number of elements in the tree.
+     *
+     * @return the number of elements in the tree
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Return the height of the root of the tree.
+     *
+     * @return the height of the root of the tree, -1 if the tree is empty
+     */
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * Get the inorder traversal of the tree.
+     *
+     * @return an inorder traversal of the tree
+     */
+    public List<T> inorder() {
+        List<T> list = new ArrayList<T>(size);
+        for (T data : this) {
+            list.add(data);
+        }
+        return list;
+    }
+
+    /**
+     * Returns an iterator over the data in ascending order. The tree never
+     * changes, so the iterator needs no modification check.
+     *
+     * @return an inorder iterator
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<T>() {
+            @SuppressWarnings("unchecked")
+            private final AVLNode<T>[] stack =
+                    (AVLNode<T>[]) new AVLNode<?>[MAX_HEIGHT + 1];
+            private int top = pushLeft(root, 0);
+
+            /**
+             * Pushes a node and its chain of left children.
+             * @param node the top of the chain
+             * @param from the current top of the stack
+             * @return the new top of the stack
+             */
+            private int pushLeft(AVLNode<T> node, int from) {
+                while (node != null) {
+                    stack[from++] = node;
+                    node = node.getLeft();
+                }
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return top > 0;
+            }
+
+            @Override
+            public T next() {
+                if (top == 0) {
+                    throw new NoSuchElementException("The traversal is"
+                            + " done.");
+                }
+                AVLNode<T> node = stack[--top];
+                top = pushLeft(node.getRight(), top);
+                return node.getData();
+            }
+        };
+    }
+
+    /**
+     * THIS METHOD IS ONLY FOR TESTING PURPOSES. The nodes are shared
+     * between versions and must not be modified.
+     *
+     * @return the root of the tree
+     */
+    public AVLNode<T> getRoot() {
+        return root;
+    }
+
+    /**
+     * Returns the height of a subtree.
+     * @param node the subtree root, may be null
+     * @return the height, -1 for an empty subtree
+     */
+    private static int height(AVLNode<?> node) {
+        return node == null ? -1 : node.getHeight();
+    }
+
+    /**
+     * Creates a node over two finished subtrees, with its height and
+     * balance factor set. The only place nodes are written.
+     * @param data the data of the node
+     * @param left the left subtree
+     * @param right the right subtree
+     * @return the new node
+     */
+    private AVLNode<T> node(T data, AVLNode<T> left, AVLNode<T> right) {
+        AVLNode<T> node = new AVLNode<T>(data);
+        node.setLeft(left);
+        node.setRight(right);
+        int lh = height(left);
+        int rh = height(right);
+        node.setHeight(Math.max(lh, rh) + 1);
+        node.setBalanceFactor(lh - rh);
+        return node;
+    }
+
+    /**
+     * Creates the root of a subtree from its data and two subtrees whose
+     * heights differ by at most two, rotating as the mutable tree would.
+     * The rotations build new nodes instead of relinking old ones, so the
+     * subtrees passed in are left as they are.
+     * @param data the data of the subtree root
+     * @param left the left subtree
+     * @param right the right subtree
+     * @return the root of the balanced subtree
+     */
+    private AVLNode<T> balance(T data, AVLNode<T> left, AVLNode<T> right) {
+        int bf = height(left) - height(right);
+        if (bf > 1) {
+            if (left.getBalanceFactor() < 0) {
+                AVLNode<T> middle = left.getRight();
+                return node(middle.getData(),
+                        node(left.getData(), left.getLeft(),
+                                middle.getLeft()),
+                        node(data, middle.getRight(), right));
+            }
+            return node(left.getData(), left.getLeft(),
+                    node(data, left.getRight(), right));
+        } else if (bf < -1) {
+            if (right.getBalanceFactor() > 0) {
+                AVLNode<T> middle = right.getLeft();
+                return node(middle.getData(),
+                        node(data, left, middle.getLeft()),
+                        node(right.getData(), middle.getRight(),
+                                right.getRight()));
+            }
+            return node(right.getData(),
+                    node(data, left, right.getLeft()), right.getRight());
+        }
+        return node(data, left, right);
+    }
+}
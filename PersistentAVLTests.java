@@ -0,0 +1,156 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for PersistentAVL.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class PersistentAVLTests {
+    private static final int TIMEOUT = 200;
+    private PersistentAVL<Integer> avlTree;
+
+    @Before
+    public void setup() {
+        avlTree = PersistentAVL.of(Arrays.asList(
+                10, 6, 7, 4, 12, 5, 1, 13, 11, 15, 17, 19, 22, 24, 14));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSameShapeAsAVL() {
+        AVL<Integer> expected = new AVL<>(Arrays.asList(
+                10, 6, 7, 4, 12, 5, 1, 13, 11, 15, 17, 19, 22, 24, 14));
+        assertEquals(expected.preorder(), preorder(avlTree.getRoot()));
+        assertEquals(15, avlTree.size());
+        assertEquals(4, avlTree.height());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testOldVersionsUnchanged() {
+        List<Integer> before = preorder(avlTree.getRoot());
+        PersistentAVL<Integer> added = avlTree.add(30);
+        PersistentAVL<Integer> removed = avlTree.remove(7);
+
+        assertEquals(before, preorder(avlTree.getRoot()));
+        assertEquals(15, avlTree.size());
+        assertTrue(added.contains(30));
+        assertFalse(avlTree.contains(30));
+        assertFalse(removed.contains(7));
+        assertTrue(avlTree.contains(7));
+        assertEquals(16, added.size());
+        assertEquals(14, removed.size());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testSharesUntouchedSubtrees() {
+        AVLNode<Integer> root = avlTree.getRoot();
+        PersistentAVL<Integer> added = avlTree.add(30);
+        assertSame(root.getLeft(), added.getRoot().getLeft());
+        PersistentAVL<Integer> removed = avlTree.remove(24);
+        assertSame(root.getLeft(), removed.getRoot().getLeft());
+        assertSame(root.getRight().getLeft(),
+                removed.getRoot().getRight().getLeft());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testAddDuplicateReturnsSameTree() {
+        assertSame(avlTree, avlTree.add(13));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMatchesAVL() {
+        Random random = new Random(1332);
+        AVL<Integer> expected = new AVL<>();
+        PersistentAVL<Integer> tree = PersistentAVL.empty();
+        List<PersistentAVL<Integer>> versions = new ArrayList<>();
+        List<List<Integer>> contents = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            int data = random.nextInt(500);
+            if (random.nextInt(3) == 0 && expected.contains(data)) {
+                expected.remove(data);
+                tree = tree.remove(data);
+            } else {
+                expected.add(data);
+                tree = tree.add(data);
+            }
+            assertEquals(expected.size(), tree.size());
+            if (i % 100 == 0) {
+                assertEquals(expected.preorder(), preorder(tree.getRoot()));
+                assertBalanced(tree.getRoot());
+                versions.add(tree);
+                contents.add(expected.inorder());
+            }
+        }
+        for (int i = 0; i < versions.size(); i++) {
+            assertEquals(contents.get(i), versions.get(i).inorder());
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testEmpty() {
+        PersistentAVL<Integer> empty = PersistentAVL.empty();
+        assertEquals(0, empty.size());
+        assertEquals(-1, empty.height());
+        assertFalse(empty.iterator().hasNext());
+        assertEquals(Arrays.asList(3), empty.add(3).inorder());
+        assertEquals(0, empty.size());
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testRemoveMissing() {
+        avlTree.remove(2);
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testGetMissing() {
+        avlTree.get(2);
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testAddNull() {
+        avlTree.add(null);
+    }
+
+    /**
+     * Lists a subtree in preorder.
+     * @param node the subtree root
+     * @return the data in preorder
+     */
+    private List<Integer> preorder(AVLNode<Integer> node) {
+        List<Integer> list = new ArrayList<>();
+        if (node != null) {
+            list.add(node.getData());
+            list.addAll(preorder(node.getLeft()));
+            list.addAll(preorder(node.getRight()));
+        }
+        return list;
+    }
+
+    /**
+     * Checks the heights and balance factors of a subtree.
+     * @param node the subtree root
+     * @return the height of the subtree
+     */
+    private int assertBalanced(AVLNode<Integer> node) {
+        if (node == null) {
+            return -1;
+        }
+        int lh = assertBalanced(node.getLeft());
+        int rh = assertBalanced(node.getRight());
+        assertEquals(Math.max(lh, rh) + 1, node.getHeight());
+        assertEquals(lh - rh, node.getBalanceFactor());
+        assertTrue(Math.abs(lh - rh) <= 1);
+        return node.getHeight();
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * An AVL node that also caches a prefix of its data, so that searches can
+ * compare most nodes with one primitive comparison.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class PrefixAVLNode<T extends Comparable<? super T>> extends AVLNode<T> {
+    private long prefix;
+
+    /**
+     * Create a leaf with the specified data and its prefix.
+     *
+     * @param data the data to be stored in this node
+     * @param prefix the prefix of the data
+     */
+    public PrefixAVLNode(T data, long prefix) {
+        super(data);
+        this.prefix = prefix;
+    }
+
+    /**
+     * Get the prefix of the data in this node.
+     *
+     * @return the prefix, compared unsigned
+     */
+    public long getPrefix() {
+        return prefix;
+    }
+
+    /**
+     * Set the prefix of the data in this node.
+     *
+     * @param prefix the prefix of the data
+     */
+    public void setPrefix(long prefix) {
+        this.prefix = prefix;
+    }
+}
@@ -0,0 +1,158 @@
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for IntAVL and LongAVL. The primitive trees must end up with the
+ * same shape as an AVL given the same operations.
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class PrimitiveAVLTests {
+    private static final int TIMEOUT = 200;
+    private int[] dataArray1 = {10, 6, 7, 4, 12, 5, 1, 13, 11, 15, 17, 19, 22, 24, 14};
+    private IntAVL intTree;
+    private LongAVL longTree;
+
+    @Before
+    public void setup() {
+        intTree = new IntAVL();
+        longTree = new LongAVL();
+    }
+
+    @Test(timeout = TIMEOUT, expected = IllegalArgumentException.class)
+    public void testConstructorIllegalArgumentException() {
+        intTree = new IntAVL(null);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testConstructor() {
+        intTree = new IntAVL(dataArray1);
+
+        int[] comparisonArray = {7, 5, 15, 4, 6, 12, 19, 1, 10, 13, 17, 22, 11, 14, 24};
+        assertArrayEquals(comparisonArray, intTree.levelorder());
+        assertEquals(15, intTree.size());
+        assertEquals(4, intTree.height());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testTraversals() {
+        intTree = new IntAVL(dataArray1);
+        AVL<Integer> avlTree = new AVL<>();
+        for (int data : dataArray1) {
+            avlTree.add(data);
+        }
+
+        assertArrayEquals(unbox(avlTree.preorder()), intTree.preorder());
+        assertArrayEquals(unbox(avlTree.inorder()), intTree.inorder());
+        assertArrayEquals(unbox(avlTree.postorder()), intTree.postorder());
+        assertArrayEquals(new int[] {24, 17, 14, 11, 6, 1},
+                intTree.listLeavesDescending());
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testEmpty() {
+        assertEquals(-1, intTree.height());
+        assertEquals(0, intTree.inorder().length);
+        assertEquals(0, intTree.levelorder().length);
+        assertEquals(0, intTree.listLeavesDescending().length);
+        assertFalse(intTree.contains(0));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testGetAndContains() {
+        intTree = new IntAVL(dataArray1);
+        assertEquals(13, intTree.get(13));
+        assertTrue(intTree.contains(24));
+        assertFalse(intTree.contains(2));
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testGetMissing() {
+        intTree = new IntAVL(dataArray1);
+        intTree.get(2);
+    }
+
+    @Test(timeout = TIMEOUT, expected = NoSuchElementException.class)
+    public void testRemoveMissing() {
+        intTree = new IntAVL(dataArray1);
+        intTree.remove(2);
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testMatchesAVL() {
+        Random random = new Random(1332);
+        AVL<Integer> avlTree = new AVL<>();
+        for (int i = 0; i < 2000; i++) {
+            int data = random.nextInt(500) - 250;
+            if (random.nextInt(3) == 0 && avlTree.contains(data)) {
+                assertEquals((int) avlTree.remove(data), intTree.remove(data));
+                assertEquals((long) data, longTree.remove(data));
+            } else {
+                avlTree.add(data);
+                intTree.add(data);
+                longTree.add(data);
+            }
+            assertEquals(avlTree.size(), intTree.size());
+            assertEquals(avlTree.height(), intTree.height());
+        }
+        assertArrayEquals(unbox(avlTree.levelorder()), intTree.levelorder());
+        assertArrayEquals(unbox(avlTree.postorder()), intTree.postorder());
+        long[] longs = longTree.levelorder();
+        assertEquals(avlTree.size(), longs.length);
+        for (int i = 0; i < longs.length; i++) {
+            assertEquals((long) avlTree.levelorder().get(i), longs[i]);
+        }
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testClearAndReuse() {
+        intTree = new IntAVL(dataArray1);
+        for (int data : dataArray1) {
+            intTree.remove(data);
+        }
+        assertEquals(0, intTree.size());
+        assertEquals(-1, intTree.height());
+        intTree.add(3);
+        intTree.clear();
+        assertEquals(0, intTree.size());
+        assertFalse(intTree.contains(3));
+    }
+
+    @Test(timeout = TIMEOUT)
+    public void testLongRange() {
+        List<Long> data = new ArrayList<>(Arrays.asList(
+                Long.MAX_VALUE, Long.MIN_VALUE, 0L, 1L << 40, -(1L << 40)));
+        for (long d : data) {
+            longTree.add(d);
+        }
+        assertArrayEquals(new long[] {Long.MIN_VALUE, -(1L << 40), 0L,
+            1L << 40, Long.MAX_VALUE}, longTree.inorder());
+        assertEquals(Long.MAX_VALUE, longTree.remove(Long.MAX_VALUE));
+        assertFalse(longTree.contains(Long.MAX_VALUE));
+        assertTrue(longTree.contains(Long.MIN_VALUE));
+    }
+
+    /**
+     * Unboxes a list.
+     * @param list the list to unbox
+     * @return the unboxed array
+     */
+    private int[] unbox(List<Integer> list) {
+        int[] array = new int[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+}
@@ -18,11 +18,21 @@ import static org.junit.Assert.assertSame;
  */
 public class RotateRotate {
     private static final int TIMEOUT = 200;
-    private AVL<Integer> avlTree;
+    private AVLInterface<Integer> avlTree;
 
     @Before
     public void setup() {
-        avlTree = new AVL<>();
+        avlTree = createTree();
+    }
+
+    /**
+     * Creates the empty tree under test. Override to run these tests
+     * against another AVLInterface implementation.
+     *
+     * @return an empty tree
+     */
+    protected AVLInterface<Integer> createTree() {
+        return new AVL<>();
     }
 
     @Test(timeout = TIMEOUT)
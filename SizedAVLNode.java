@@ -0,0 +1,36 @@
+/**
+ * An AVL node that also knows how many nodes are in its subtree.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public class SizedAVLNode<T extends Comparable<? super T>> extends AVLNode<T> {
+    private int count = 1;
+
+    /**
+     * Create a leaf with the specified data.
+     *
+     * @param data the data to be stored in this node
+     */
+    public SizedAVLNode(T data) {
+        super(data);
+    }
+
+    /**
+     * Get the number of nodes in the subtree rooted at this node.
+     *
+     * @return the size of this subtree, at least 1
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Set the number of nodes in the subtree rooted at this node.
+     *
+     * @param count the size of this subtree
+     */
+    public void setCount(int count) {
+        this.count = count;
+    }
+}
@@ -0,0 +1,28 @@
+/**
+ * The orders in which a tree can be walked.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public enum Traversal {
+    /**
+     * Each node before its left subtree, then its right subtree.
+     */
+    PREORDER,
+
+    /**
+     * The left subtree, then the node, then the right subtree; this is
+     * ascending order.
+     */
+    INORDER,
+
+    /**
+     * Both subtrees, left first, before the node.
+     */
+    POSTORDER,
+
+    /**
+     * Level by level from the root, left to right within a level.
+     */
+    LEVELORDER
+}
@@ -0,0 +1,226 @@
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Locale;
+
+/**
+ * A structural health report of an {@link AVL}: its size, its height
+ * against the best and worst heights possible for that size, how the
+ * balance factors of its nodes are distributed, how deep a search goes,
+ * and roughly how much memory the nodes retain.
+ *
+ * The memory figures are estimates of the node objects alone, not of the
+ * data they hold, for a 64-bit JVM with compressed oops and class
+ * pointers: a 12 byte header, 4 bytes per reference, the primitive fields
+ * at their own size, rounded up to 8 bytes.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public final class TreeHealth {
+    private static final int HEADER_BYTES = 12;
+    private static final int REFERENCE_BYTES = 4;
+    private static final int ALIGNMENT = 8;
+
+    private final int nodeCount;
+    private final int height;
+    private final long[] balanceFactors;
+    private final long unbalancedNodes;
+    private final long depthSum;
+    private final int maxDepth;
+    private final int bytesPerNode;
+
+    /**
+     * Creates a report from the totals of a pass over the tree.
+     * @param nodeCount the number of nodes
+     * @param height the height of the root, -1 if the tree is empty
+     * @param balanceFactors the number of nodes with balance factor -1, 0
+     * and 1, in that order
+     * @param unbalancedNodes the number of nodes with any other balance
+     * factor
+     * @param depthSum the sum of the depths of all nodes, the root being
+     * at depth 1
+     * @param maxDepth the depth of the deepest node
+     * @param bytesPerNode the estimated size of one node
+     */
+    TreeHealth(int nodeCount, int height, long[] balanceFactors,
+               long unbalancedNodes, long depthSum, int maxDepth,
+               int bytesPerNode) {
+        this.nodeCount = nodeCount;
+        this.height = height;
+        this.balanceFactors = balanceFactors.clone();
+        this.unbalancedNodes = unbalancedNodes;
+        this.depthSum = depthSum;
+        this.maxDepth = maxDepth;
+        this.bytesPerNode = bytesPerNode;
+    }
+
+    /**
+     * Returns the number of nodes counted by the pass.
+     *
+     * @return the number of nodes
+     */
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    /**
+     * Returns the height of the tree.
+     *
+     * @return the height of the root, -1 if the tree is empty
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Returns the height of a perfectly balanced tree of the same size,
+     * the lowest any binary search tree can have.
+     *
+     * @return the minimum height, -1 if the tree is empty
+     */
+    public int getMinHeight() {
+        return 31 - Integer.numberOfLeadingZeros(nodeCount);
+    }
+
+    /**
+     * Returns the greatest height an AVL tree of the same size can have,
+     * the height of the sparsest AVL tree that still fits: one whose
+     * subtrees are themselves the sparsest trees one level apart.
+     *
+     * @return the maximum height, -1 if the tree is empty
+     */
+    public int getMaxHeight() {
+        if (nodeCount == 0) {
+            return -1;
+        }
+        long lower = 1;
+        long sparsest = 2;
+        int max = 0;
+        while (sparsest <= nodeCount) {
+            long next = sparsest + lower + 1;
+            lower = sparsest;
+            sparsest = next;
+            max++;
+        }
+        return max;
+    }
+
+    /**
+     * Returns the number of nodes with a given balance factor.
+     *
+     * @param balanceFactor -1, 0 or 1
+     * @return the number of nodes with that balance factor
+     * @throws IllegalArgumentException if balanceFactor is not -1, 0 or 1
+     */
+    public long getBalanceFactorCount(int balanceFactor) {
+        if (balanceFactor < -1 || balanceFactor > 1) {
+            throw new IllegalArgumentException("Balance factor "
+                    + balanceFactor + " is not -1, 0 or 1.");
+        }
+        return balanceFactors[balanceFactor + 1];
+    }
+
+    /**
+     * Returns the number of nodes whose balance factor is outside of -1 to
+     * 1, which is 0 in any valid AVL tree.
+     *
+     * @return the number of unbalanced nodes
+     */
+    public long getUnbalancedNodes() {
+        return unbalancedNodes;
+    }
+
+    /**
+     * Returns the average number of nodes a successful search compares
+     * against, over every node in the tree.
+     *
+     * @return the mean depth, 0 if the tree is empty
+     */
+    public double getMeanDepth() {
+        return nodeCount == 0 ? 0 : (double) depthSum / nodeCount;
+    }
+
+    /**
+     * Returns the number of nodes the longest search compares against.
+     *
+     * @return the maximum depth, 0 if the tree is empty
+     */
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    /**
+     * Returns the estimated size of one node, without its data.
+     *
+     * @return the estimated bytes per node
+     */
+    public int getBytesPerNode() {
+        return bytesPerNode;
+    }
+
+    /**
+     * Returns the estimated size of all nodes, without their data.
+     *
+     * @return the estimated retained bytes
+     */
+    public long getRetainedBytes() {
+        return (long) bytesPerNode * nodeCount;
+    }
+
+    /**
+     * Writes the report as a JSON object.
+     *
+     * @return the report in JSON
+     */
+    public String toJson() {
+        return String.format(Locale.ROOT, "{\"nodeCount\":%d,\"height\":%d,"
+                + "\"minHeight\":%d,\"maxHeight\":%d,\"balanceFactors\":"
+                + "{\"-1\":%d,\"0\":%d,\"1\":%d},\"unbalancedNodes\":%d,"
+                + "\"meanDepth\":%.3f,\"maxDepth\":%d,\"bytesPerNode\":%d,"
+                + "\"retainedBytes\":%d}", nodeCount, height, getMinHeight(),
+                getMaxHeight(), balanceFactors[0], balanceFactors[1],
+                balanceFactors[2], unbalancedNodes, getMeanDepth(), maxDepth,
+                bytesPerNode, getRetainedBytes());
+    }
+
+    @Override
+    public String toString() {
+        return toJson();
+    }
+
+    /**
+     * Estimates the size of an object of a class from its instance fields,
+     * including the inherited ones.
+     * @param type the class
+     * @return the estimated size in bytes
+     */
+    static int estimateBytes(Class<?> type) {
+        int bytes = HEADER_BYTES;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    bytes += fieldBytes(field.getType());
+                }
+            }
+        }
+        return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    /**
+     * Returns the size of a field of a type.
+     * @param type the type of the field
+     * @return the size in bytes
+     */
+    private static int fieldBytes(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE_BYTES;
+    }
+}
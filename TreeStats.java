@@ -0,0 +1,157 @@
+import java.util.Arrays;
+
+/**
+ * An immutable snapshot of the counters of {@link AVLMetrics}: how many
+ * rotations of each kind the trees made, and how many comparisons their
+ * searches needed. Each search is also counted in a histogram by its
+ * depth, the number of nodes it compared against, which is exact because
+ * no search in a tree of fewer than 2^31 nodes goes deeper than 46.
+ *
+ * The counters are read one after the other while the trees keep
+ * running, so a snapshot taken under load is not atomic; the numbers
+ * may disagree by the operations in flight.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public final class TreeStats {
+    private final long[] rotations;
+    private final long comparisons;
+    private final long[] depths;
+
+    /**
+     * Creates a snapshot. The arrays are copied.
+     * @param rotations the number of rotations, indexed by the ordinal of
+     * {@link AVLMetrics.Rotation}
+     * @param comparisons the number of comparisons made by searches
+     * @param depths the number of searches, indexed by depth
+     */
+    TreeStats(long[] rotations, long comparisons, long[] depths) {
+        this.rotations = rotations.clone();
+        this.comparisons = comparisons;
+        this.depths = depths.clone();
+    }
+
+    /**
+     * Returns the number of rotations of one kind.
+     *
+     * @param kind the kind of rotation
+     * @return the number of rotations of that kind
+     */
+    public long getRotations(AVLMetrics.Rotation kind) {
+        return rotations[kind.ordinal()];
+    }
+
+    /**
+     * Returns the number of rebalancing operations, a double rotation
+     * counting as one.
+     *
+     * @return the number of rotations of any kind
+     */
+    public long getRotations() {
+        long total = 0;
+        for (long count : rotations) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of compareTo calls made by the searches.
+     *
+     * @return the number of comparisons
+     */
+    public long getComparisons() {
+        return comparisons;
+    }
+
+    /**
+     * Returns the number of searches: lookups and the descents of add.
+     *
+     * @return the number of searches
+     */
+    public long getSearches() {
+        long total = 0;
+        for (long count : depths) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the number of searches that went to a given depth.
+     *
+     * @param depth the number of nodes compared against
+     * @return the number of searches of that depth, 0 if out of range
+     */
+    public long getSearches(int depth) {
+        return depth < 0 || depth >= depths.length ? 0 : depths[depth];
+    }
+
+    /**
+     * Returns the average depth of a search.
+     *
+     * @return the mean depth, 0 if there were no searches
+     */
+    public double getMeanDepth() {
+        long searches = getSearches();
+        return searches == 0 ? 0 : (double) comparisons / searches;
+    }
+
+    /**
+     * Returns the smallest depth that at least the given share of the
+     * searches did not exceed.
+     *
+     * @param percentile the share, from 0 to 100
+     * @return the depth at that percentile, 0 if there were no searches
+     * @throws IllegalArgumentException if percentile is out of range
+     */
+    public int getDepthPercentile(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile " + percentile
+                    + " is not between 0 and 100.");
+        }
+        long searches = getSearches();
+        long target = (long) Math.ceil(searches * percentile / 100);
+        long seen = 0;
+        for (int depth = 0; depth < depths.length; depth++) {
+            seen += depths[depth];
+            if (seen > 0 && seen >= target) {
+                return depth;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the deepest search.
+     *
+     * @return the maximum depth, 0 if there were no searches
+     */
+    public int getMaxDepth() {
+        for (int depth = depths.length - 1; depth > 0; depth--) {
+            if (depths[depth] != 0) {
+                return depth;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the search counts indexed by depth.
+     *
+     * @return a copy of the depth histogram
+     */
+    public long[] getDepthHistogram() {
+        return depths.clone();
+    }
+
+    @Override
+    public String toString() {
+        return "TreeStats{rotations=" + Arrays.toString(rotations)
+                + ", comparisons=" + comparisons
+                + ", searches=" + getSearches()
+                + ", meanDepth=" + getMeanDepth()
+                + ", maxDepth=" + getMaxDepth() + "}";
+    }
+}
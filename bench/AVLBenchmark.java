@@ -0,0 +1,264 @@
+package bench;
+
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * JMH benchmarks comparing the AVL implementations against
+ * {@link java.util.TreeMap}.
+ *
+ * Lookups report both throughput and sampled latency, so the percentiles
+ * show up next to the averages. Run {@link #main(String[])} to get the
+ * allocation rate from the GC profiler as well, or narrow the matrix from
+ * the command line, for example
+ * {@code -p impl=AVL,TREE_MAP -p size=1000000 -p order=RANDOM}.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class AVLBenchmark {
+    /**
+     * The number of probe keys cycled through by the lookup benchmarks.
+     */
+    private static final int PROBES = 1 << 16;
+
+    /**
+     * The implementations being compared.
+     */
+    public enum Impl {
+        AVL {
+            @Override
+            public Target create() {
+                return Target.load("avl");
+            }
+        },
+        ARRAY_AVL {
+            @Override
+            public Target create() {
+                return Target.load("arrayAvl");
+            }
+        },
+        AVL_SAMPLE {
+            @Override
+            public Target create() {
+                return Target.load("avlSample");
+            }
+        },
+        TREE_MAP {
+            @Override
+            public Target create() {
+                return new TreeMapTarget();
+            }
+        };
+
+        /**
+         * Creates an empty tree of this implementation.
+         *
+         * @return the empty tree
+         */
+        public abstract Target create();
+    }
+
+    @Param({"AVL", "ARRAY_AVL", "AVL_SAMPLE", "TREE_MAP"})
+    private Impl impl;
+
+    @Param({"1000", "10000", "100000", "1000000", "10000000"})
+    private int size;
+
+    @Param({"SEQUENTIAL", "RANDOM", "ZIPF", "ADVERSARIAL"})
+    private BenchmarkWorkloads.Order order;
+
+    @Param({"50"})
+    private int missPercent;
+
+    @Param({"90"})
+    private int readPercent;
+
+    private Integer[] keys;
+    private Integer[] probes;
+    private Integer[] writes;
+    private boolean[] reads;
+    private Target tree;
+    private int cursor;
+    private Integer pendingRemove;
+
+    /**
+     * Builds the tree once per trial, outside of the measurement.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        keys = BenchmarkWorkloads.boxed(
+                BenchmarkWorkloads.keys(order, size, BenchmarkWorkloads.SEED));
+        probes = BenchmarkWorkloads.boxed(BenchmarkWorkloads.probes(order,
+                size, PROBES, missPercent, BenchmarkWorkloads.SEED));
+        writes = BenchmarkWorkloads.boxed(BenchmarkWorkloads.probes(order,
+                size, PROBES, 100, BenchmarkWorkloads.SEED + 1));
+        reads = new boolean[PROBES];
+        Random random = new Random(BenchmarkWorkloads.SEED);
+        for (int i = 0; i < PROBES; i++) {
+            reads[i] = random.nextInt(100) < readPercent;
+        }
+        tree = impl.create();
+        for (Integer key : keys) {
+            tree.add(key);
+        }
+        pendingRemove = null;
+    }
+
+    /**
+     * Returns the next probe key.
+     *
+     * @return the probe key
+     */
+    private Integer nextProbe() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return probes[cursor];
+    }
+
+    /**
+     * Exact-match lookup with the configured share of misses.
+     *
+     * @return the looked up key, or null on a miss
+     */
+    @Benchmark
+    public Integer get() {
+        return tree.get(nextProbe());
+    }
+
+    /**
+     * Membership check with the configured share of misses.
+     *
+     * @return whether the probe was found
+     */
+    @Benchmark
+    public boolean contains() {
+        return tree.contains(nextProbe());
+    }
+
+    /**
+     * Mixed workload. Reads are {@link #contains()}; writes alternately add
+     * and remove keys that are not part of the initial tree, so its size
+     * stays stable for the whole trial.
+     *
+     * @param blackhole sink for the results
+     */
+    @Benchmark
+    public void mixed(Blackhole blackhole) {
+        Integer probe = nextProbe();
+        if (reads[cursor]) {
+            blackhole.consume(tree.contains(probe));
+        } else if (pendingRemove == null) {
+            pendingRemove = writes[cursor];
+            tree.add(pendingRemove);
+        } else {
+            blackhole.consume(tree.remove(pendingRemove));
+            pendingRemove = null;
+        }
+    }
+
+    /**
+     * Delete-heavy workload. Removes a key of the initial tree and adds it
+     * straight back, so the removal walks a full-size tree every time. Run
+     * through {@link #main(String[])} to see the allocation per operation,
+     * which for the AVL is the re-added node alone.
+     *
+     * @return the removed key
+     */
+    @Benchmark
+    public Integer churn() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        Integer key = keys[cursor % keys.length];
+        Integer removed = tree.remove(key);
+        tree.add(key);
+        return removed;
+    }
+
+    /**
+     * Builds a whole tree from the workload keys.
+     *
+     * @return the built tree
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    public Target build() {
+        Target built = impl.create();
+        for (Integer key : keys) {
+            built.add(key);
+        }
+        return built;
+    }
+
+    /**
+     * Adapts a {@link TreeMap} to the benchmark target. A map is used rather
+     * than a set so that {@code get} returns the stored key like the AVL.
+     */
+    private static final class TreeMapTarget implements Target {
+        private final TreeMap<Integer, Integer> map = new TreeMap<>();
+
+        @Override
+        public void add(Integer key) {
+            map.putIfAbsent(key, key);
+        }
+
+        @Override
+        public Integer remove(Integer key) {
+            return map.remove(key);
+        }
+
+        @Override
+        public Integer get(Integer key) {
+            return map.get(key);
+        }
+
+        @Override
+        public boolean contains(Integer key) {
+            return map.containsKey(key);
+        }
+    }
+
+    /**
+     * Runs the whole suite with the GC profiler attached, which adds the
+     * allocation rate per operation to the report. Extra arguments are
+     * passed through as an include pattern.
+     *
+     * @param args optional benchmark include pattern
+     * @throws RunnerException if JMH fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+                .include(args.length > 0 ? args[0]
+                        : AVLBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build();
+        new Runner(options).run();
+    }
+}
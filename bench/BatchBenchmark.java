@@ -0,0 +1,90 @@
+package bench;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares applying a batch of keys to {@code AVL} one key at a time with
+ * the batch operations. Each operation adds a batch of new keys and then
+ * removes it again, so the tree is the same size at the start of every
+ * operation; divide the score by twice the batch size for the time per
+ * key.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BatchBenchmark {
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"10000", "100000"})
+    private int batch;
+
+    @Param({"RANDOM", "SEQUENTIAL"})
+    private BenchmarkWorkloads.Order order;
+
+    private List<Integer> keys;
+    private Target tree;
+
+    /**
+     * Builds the tree and draws the batch once per trial, outside of the
+     * measurement. The batch keys are distinct misses, so both benchmarks
+     * really add and remove every one of them, and do the same work.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        tree = Target.load("avl");
+        for (int key : BenchmarkWorkloads.keys(BenchmarkWorkloads.Order.RANDOM,
+                size, BenchmarkWorkloads.SEED)) {
+            tree.add(key);
+        }
+        int[] misses = BenchmarkWorkloads.distinctMisses(size, batch,
+                BenchmarkWorkloads.SEED + 1);
+        if (order == BenchmarkWorkloads.Order.SEQUENTIAL) {
+            Arrays.sort(misses);
+        }
+        keys = Arrays.asList(BenchmarkWorkloads.boxed(misses));
+    }
+
+    /**
+     * Adds and removes the batch with one call per key.
+     */
+    @Benchmark
+    public void perKey() {
+        for (Integer key : keys) {
+            tree.add(key);
+        }
+        for (Integer key : keys) {
+            tree.remove(key);
+        }
+    }
+
+    /**
+     * Adds and removes the batch with the batch operations.
+     */
+    @Benchmark
+    public void batch() {
+        tree.addAll(keys);
+        tree.removeAll(keys);
+    }
+}
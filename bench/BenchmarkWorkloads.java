@@ -0,0 +1,229 @@
+package bench;
+
+import java.util.Random;
+
+/**
+ * Key generators shared by the JMH benchmarks.
+ *
+ * Every generator is deterministic for a given seed so that the same
+ * workload is replayed against every implementation being compared.
+ * Generated keys are even numbers, which leaves every odd number free to
+ * be used as a guaranteed miss.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public final class BenchmarkWorkloads {
+    /**
+     * The seed used when a benchmark does not ask for a specific one.
+     */
+    public static final long SEED = 0x5EED_AB1EL;
+
+    /**
+     * The skew of the Zipf generator. Values just below 1 model the
+     * access pattern of a typical hot-key cache.
+     */
+    public static final double ZIPF_SKEW = 0.99;
+
+    /**
+     * The insertion orders a workload can be generated in.
+     */
+    public enum Order {
+        /**
+         * Ascending keys, the case that triggers a rotation on almost
+         * every insert.
+         */
+        SEQUENTIAL,
+        /**
+         * A uniform random permutation of the keys.
+         */
+        RANDOM,
+        /**
+         * Keys drawn from a Zipf distribution over the key ranks, so a few
+         * keys are inserted over and over again (duplicates included).
+         */
+        ZIPF,
+        /**
+         * Keys taken alternately from both ends of the range, which keeps
+         * forcing double rotations at the fringe of the tree.
+         */
+        ADVERSARIAL
+    }
+
+    /**
+     * Utility class, do not instantiate.
+     */
+    private BenchmarkWorkloads() {
+    }
+
+    /**
+     * Generates {@code size} keys in the given order.
+     *
+     * @param order the insertion order
+     * @param size the number of keys to generate
+     * @param seed the seed of the random generator
+     * @return the keys in insertion order
+     */
+    public static int[] keys(Order order, int size, long seed) {
+        if (size < 0) {
+            throw new IllegalArgumentException("Size cannot be negative.");
+        }
+        int[] keys = new int[size];
+        switch (order) {
+        case SEQUENTIAL:
+            for (int i = 0; i < size; i++) {
+                keys[i] = key(i);
+            }
+            break;
+        case RANDOM:
+            for (int i = 0; i < size; i++) {
+                keys[i] = key(i);
+            }
+            shuffle(keys, new Random(seed));
+            break;
+        case ZIPF:
+            Random random = new Random(seed);
+            for (int i = 0; i < size; i++) {
+                keys[i] = key(zipfRank(random, size));
+            }
+            break;
+        case ADVERSARIAL:
+            int lo = 0;
+            int hi = size - 1;
+            for (int i = 0; i < size; i++) {
+                keys[i] = key((i & 1) == 0 ? lo++ : hi--);
+            }
+            break;
+        default:
+            throw new IllegalArgumentException("Unknown order " + order);
+        }
+        return keys;
+    }
+
+    /**
+     * Generates {@code count} lookup keys against a tree holding the keys of
+     * {@link #keys(Order, int, long)}. Roughly {@code missPercent} percent of
+     * them are guaranteed misses; the hits follow the Zipf distribution when
+     * the order is {@link Order#ZIPF} and are uniform otherwise.
+     *
+     * @param order the order the tree was built in
+     * @param size the number of keys in the tree
+     * @param count the number of probes to generate
+     * @param missPercent the share of misses, from 0 to 100
+     * @param seed the seed of the random generator
+     * @return the probe keys
+     */
+    public static int[] probes(Order order, int size, int count,
+                               int missPercent, long seed) {
+        if (missPercent < 0 || missPercent > 100) {
+            throw new IllegalArgumentException("The miss percentage must be"
+                    + " between 0 and 100.");
+        }
+        Random random = new Random(seed ^ 0x9E3779B97F4A7C15L);
+        int[] probes = new int[count];
+        for (int i = 0; i < count; i++) {
+            int rank = order == Order.ZIPF
+                    ? zipfRank(random, size) : random.nextInt(size);
+            probes[i] = random.nextInt(100) < missPercent
+                    ? key(rank) + 1 : key(rank);
+        }
+        return probes;
+    }
+
+    /**
+     * Draws {@code count} distinct keys that all miss a tree holding the
+     * keys of {@link #keys(Order, int, long)}, in random order. Each one
+     * is the odd key right above a distinct stored key.
+     *
+     * @param size the number of keys in the tree
+     * @param count the number of misses to draw, at most size
+     * @param seed the seed of the random generator
+     * @return the distinct misses
+     */
+    public static int[] distinctMisses(int size, int count, long seed) {
+        if (count < 0 || count > size) {
+            throw new IllegalArgumentException("Cannot draw " + count
+                    + " distinct misses from " + size + " keys.");
+        }
+        int[] ranks = new int[size];
+        for (int i = 0; i < size; i++) {
+            ranks[i] = i;
+        }
+        Random random = new Random(seed);
+        int[] misses = new int[count];
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(size - i);
+            int rank = ranks[j];
+            ranks[j] = ranks[i];
+            misses[i] = key(rank) + 1;
+        }
+        return misses;
+    }
+
+    /**
+     * Boxes the keys once, outside of the measured code.
+     *
+     * @param keys the keys to box
+     * @return the boxed keys
+     */
+    public static Integer[] boxed(int[] keys) {
+        Integer[] boxed = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            boxed[i] = keys[i];
+        }
+        return boxed;
+    }
+
+    /**
+     * A little arithmetic per element for the scan benchmarks, so that
+     * they do not measure memory bandwidth alone.
+     *
+     * @param key the key to mix
+     * @return the mixed key
+     */
+    public static long mix(Integer key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 29);
+    }
+
+    /**
+     * Maps a rank to its key.
+     *
+     * @param rank the rank of the key
+     * @return the key stored at that rank
+     */
+    private static int key(int rank) {
+        return rank << 1;
+    }
+
+    /**
+     * Draws a rank from an approximate Zipf distribution by inverting the
+     * continuous power law, which is cheap enough for ten million draws.
+     *
+     * @param random the random generator
+     * @param size the number of ranks
+     * @return a rank between 0 and size - 1
+     */
+    private static int zipfRank(Random random, int size) {
+        double exponent = 1 - ZIPF_SKEW;
+        double max = Math.pow(size + 1, exponent);
+        double rank = Math.pow((max - 1) * random.nextDouble() + 1,
+                1 / exponent);
+        return Math.min(size - 1, (int) rank - 1);
+    }
+
+    /**
+     * Fisher-Yates shuffle.
+     *
+     * @param keys the keys to shuffle in place
+     * @param random the random generator
+     */
+    private static void shuffle(int[] keys, Random random) {
+        for (int i = keys.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = keys[i];
+            keys[i] = keys[j];
+            keys[j] = temp;
+        }
+    }
+}
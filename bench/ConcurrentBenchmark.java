@@ -0,0 +1,209 @@
+package bench;
+
+import java.util.Random;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Mixed read/write throughput of {@code ConcurrentAVL} under several
+ * threads, against an {@code AVL} behind one lock and
+ * {@link ConcurrentSkipListMap}. Every thread runs the same mix on its own
+ * keys; {@link #main(String[])} repeats the run for 1 to 64 threads, or
+ * pass {@code -t} on the command line for a single thread count.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@Threads(4)
+public class ConcurrentBenchmark {
+    /**
+     * The number of probe keys cycled through by each thread.
+     */
+    private static final int PROBES = 1 << 16;
+
+    /**
+     * The thread counts run by {@link #main(String[])}.
+     */
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64};
+
+    /**
+     * The implementations being compared.
+     */
+    public enum Impl {
+        CONCURRENT_AVL {
+            @Override
+            public Target create() {
+                return Target.load("concurrentAvl");
+            }
+        },
+        SYNCHRONIZED_AVL {
+            @Override
+            public Target create() {
+                return Target.load("synchronizedAvl");
+            }
+        },
+        SKIP_LIST {
+            @Override
+            public Target create() {
+                return new SkipListTarget();
+            }
+        };
+
+        /**
+         * Creates an empty tree of this implementation.
+         *
+         * @return the empty tree
+         */
+        public abstract Target create();
+    }
+
+    @Param({"CONCURRENT_AVL", "SYNCHRONIZED_AVL", "SKIP_LIST"})
+    private Impl impl;
+
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"90", "50"})
+    private int readPercent;
+
+    private Target tree;
+
+    /**
+     * Builds the shared tree once per trial, outside of the measurement.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        tree = impl.create();
+        for (int key : BenchmarkWorkloads.keys(BenchmarkWorkloads.Order.RANDOM,
+                size, BenchmarkWorkloads.SEED)) {
+            tree.add(key);
+        }
+    }
+
+    /**
+     * The probes and write keys of one thread. Threads draw from different
+     * seeds, so their writes mostly touch different keys.
+     */
+    @State(Scope.Thread)
+    public static class Worker {
+        private Integer[] probes;
+        private Integer[] writes;
+        private boolean[] reads;
+        private int cursor;
+        private Integer pendingRemove;
+
+        /**
+         * Draws the keys of this thread.
+         *
+         * @param bench the benchmark parameters
+         * @param thread the index of this thread
+         */
+        @Setup(Level.Trial)
+        public void setup(ConcurrentBenchmark bench, ThreadParams thread) {
+            long seed = BenchmarkWorkloads.SEED + thread.getThreadIndex();
+            BenchmarkWorkloads.Order order = BenchmarkWorkloads.Order.RANDOM;
+            probes = BenchmarkWorkloads.boxed(BenchmarkWorkloads.probes(order,
+                    bench.size, PROBES, 50, seed));
+            writes = BenchmarkWorkloads.boxed(BenchmarkWorkloads.probes(order,
+                    bench.size, PROBES, 100, seed + 1000));
+            reads = new boolean[PROBES];
+            Random random = new Random(seed);
+            for (int i = 0; i < PROBES; i++) {
+                reads[i] = random.nextInt(100) < bench.readPercent;
+            }
+        }
+    }
+
+    /**
+     * One operation of the mix. Reads are lookups with half of them
+     * missing; writes alternately add and remove a key that is not part of
+     * the initial tree, so its size stays stable for the whole trial.
+     *
+     * @param worker the state of this thread
+     * @param blackhole sink for the results
+     */
+    @Benchmark
+    public void mixed(Worker worker, Blackhole blackhole) {
+        int cursor = (worker.cursor + 1) & (PROBES - 1);
+        worker.cursor = cursor;
+        if (worker.reads[cursor]) {
+            blackhole.consume(tree.get(worker.probes[cursor]));
+        } else if (worker.pendingRemove == null) {
+            worker.pendingRemove = worker.writes[cursor];
+            tree.add(worker.pendingRemove);
+        } else {
+            blackhole.consume(tree.remove(worker.pendingRemove));
+            worker.pendingRemove = null;
+        }
+    }
+
+    /**
+     * Adapts a {@link ConcurrentSkipListMap} to the benchmark target.
+     */
+    private static final class SkipListTarget implements Target {
+        private final ConcurrentSkipListMap<Integer, Integer> map =
+                new ConcurrentSkipListMap<>();
+
+        @Override
+        public void add(Integer key) {
+            map.putIfAbsent(key, key);
+        }
+
+        @Override
+        public Integer remove(Integer key) {
+            return map.remove(key);
+        }
+
+        @Override
+        public Integer get(Integer key) {
+            return map.get(key);
+        }
+
+        @Override
+        public boolean contains(Integer key) {
+            return map.containsKey(key);
+        }
+    }
+
+    /**
+     * Runs the benchmark once for every thread count from 1 to 64.
+     *
+     * @param args ignored
+     * @throws RunnerException if JMH fails to run
+     */
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREADS) {
+            Options options = new OptionsBuilder()
+                    .include(ConcurrentBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package bench;
+
+import java.util.Random;
+
+import org.openjdk.jol.info.GraphLayout;
+
+/**
+ * Prints the measured memory per key of the string trees, keys included,
+ * for URL-like keys that share long prefixes: a handful of hosts, a few
+ * hundred paths below each, and a numbered item below each path. The raw
+ * UTF-8 size of the keys is printed for comparison.
+ *
+ * Run with {@code java -cp ... bench.KeyMemoryReport [size]}.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public final class KeyMemoryReport {
+    /**
+     * The trees measured, by factory name in {@code BenchmarkTargets}.
+     */
+    private static final String[] TARGETS = {"avlStrings", "byteKeyAvl"};
+
+    private static final String[] HOSTS = {"https://www.example.com/",
+        "https://shop.example.com/", "https://static.example.net/",
+        "http://legacy.example.org/"};
+
+    /**
+     * Utility class, do not instantiate.
+     */
+    private KeyMemoryReport() {
+    }
+
+    /**
+     * Prints the report.
+     *
+     * @param args the number of keys, 1000000 if not given
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        String[] keys = urls(size, BenchmarkWorkloads.SEED);
+        long utf8 = 0;
+        for (String key : keys) {
+            utf8 += key.length();
+        }
+        System.out.printf("%-12s %,d keys: %.2f bytes per key%n", "utf8",
+                size, (double) utf8 / size);
+        for (String factory : TARGETS) {
+            StringTarget tree = Targets.load(factory, StringTarget.class);
+            for (String key : keys) {
+                tree.add(key);
+            }
+            long bytes = GraphLayout.parseInstance(tree).totalSize();
+            System.out.printf("%-12s %,d keys: %,d bytes, %.2f bytes per"
+                    + " key%n", factory, size, bytes, (double) bytes / size);
+        }
+    }
+
+    /**
+     * Generates distinct URL-like keys in random order.
+     *
+     * @param size the number of keys
+     * @param seed the seed of the random generator
+     * @return the keys
+     */
+    static String[] urls(int size, long seed) {
+        Random random = new Random(seed);
+        String[] keys = new String[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = HOSTS[random.nextInt(HOSTS.length)] + "catalog/"
+                    + "section-" + random.nextInt(300) + "/item/" + i;
+        }
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+        return keys;
+    }
+}
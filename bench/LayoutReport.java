@@ -0,0 +1,63 @@
+package bench;
+
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.GraphLayout;
+import org.openjdk.jol.vm.VM;
+
+/**
+ * Prints the JOL memory layout of the tree nodes and the measured bytes
+ * per element of each tree, not counting the keys themselves. The array
+ * pool of {@code ArrayAVL} grows by half, so its figure includes up to a
+ * third of spare capacity; compare with a size just below a growth step
+ * for the dense cost of a slot.
+ *
+ * Run with {@code java -cp ... bench.LayoutReport [size]}, and again with
+ * {@code -XX:+UseCompactObjectHeaders} on a JDK that has it to see the
+ * smaller headers.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public final class LayoutReport {
+    /**
+     * The trees measured, by factory name in {@code BenchmarkTargets}.
+     */
+    private static final String[] TARGETS = {"avl", "arrayAvl",
+        "avlSample"};
+
+    /**
+     * Utility class, do not instantiate.
+     */
+    private LayoutReport() {
+    }
+
+    /**
+     * Prints the report.
+     *
+     * @param args the number of elements, 1000000 if not given
+     * @throws ClassNotFoundException if the node classes are missing
+     */
+    public static void main(String[] args) throws ClassNotFoundException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        System.out.println(VM.current().details());
+        for (String node : new String[] {"AVLNode", "SizedAVLNode"}) {
+            System.out.println(ClassLayout.parseClass(Class.forName(node))
+                    .toPrintable());
+        }
+        Integer[] keys = BenchmarkWorkloads.boxed(BenchmarkWorkloads.keys(
+                BenchmarkWorkloads.Order.RANDOM, size,
+                BenchmarkWorkloads.SEED));
+        GraphLayout keyLayout = GraphLayout.parseInstance((Object) keys);
+        for (String factory : TARGETS) {
+            Target tree = Target.load(factory);
+            for (Integer key : keys) {
+                tree.add(key);
+            }
+            GraphLayout layout = GraphLayout.parseInstance(tree, keys)
+                    .subtract(keyLayout);
+            System.out.printf("%-10s %,d elements: %,d bytes, %.2f bytes"
+                    + " per element%n", factory, size, layout.totalSize(),
+                    (double) layout.totalSize() / size);
+        }
+    }
+}
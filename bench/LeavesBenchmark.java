@@ -0,0 +1,87 @@
+package bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares listing the leaves of {@code AVL} in descending order with
+ * streaming them. {@link #shardPoints()} takes only the first few leaves,
+ * which is where the lazy stream pays off; run with {@code -prof gc} to
+ * see the list allocation.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class LeavesBenchmark {
+    /**
+     * The number of leaves taken by {@link #shardPoints()}.
+     */
+    private static final int SHARDS = 64;
+
+    @Param({"1000000", "10000000"})
+    private int size;
+
+    private ScanTarget tree;
+
+    /**
+     * Builds the tree once per trial, outside of the measurement.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        tree = Targets.load("avlScan", ScanTarget.class);
+        tree.load(BenchmarkWorkloads.boxed(BenchmarkWorkloads.keys(
+                BenchmarkWorkloads.Order.SEQUENTIAL, size,
+                BenchmarkWorkloads.SEED)));
+    }
+
+    /**
+     * Lists every leaf.
+     *
+     * @return the leaves
+     */
+    @Benchmark
+    public List<Integer> list() {
+        return tree.listLeavesDescending();
+    }
+
+    /**
+     * Streams every leaf.
+     *
+     * @return the number of leaves
+     */
+    @Benchmark
+    public long stream() {
+        return tree.leafStream().count();
+    }
+
+    /**
+     * Takes the largest few leaves from the stream.
+     *
+     * @return the sum of the leaves taken
+     */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long shardPoints() {
+        return tree.leafStream().limit(SHARDS).mapToLong(Integer::longValue)
+                .sum();
+    }
+}
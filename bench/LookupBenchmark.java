@@ -0,0 +1,96 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the iterative lookup of {@code AVL} against the original
+ * recursive one, which throws an exception on every miss. The miss share
+ * is a parameter because the two paths only really diverge on misses;
+ * run with {@code -prof gc} to see the allocation of the exception path.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class LookupBenchmark {
+    /**
+     * The number of probe keys cycled through by the benchmarks.
+     */
+    private static final int PROBES = 1 << 16;
+
+    @Param({"avl", "avlRecursiveLookup"})
+    private String impl;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    @Param({"0", "70", "100"})
+    private int missPercent;
+
+    private Integer[] probes;
+    private Target tree;
+    private int cursor;
+
+    /**
+     * Builds the tree once per trial, outside of the measurement.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkWorkloads.Order order = BenchmarkWorkloads.Order.RANDOM;
+        tree = Target.load(impl);
+        for (int key : BenchmarkWorkloads.keys(order, size,
+                BenchmarkWorkloads.SEED)) {
+            tree.add(key);
+        }
+        probes = BenchmarkWorkloads.boxed(BenchmarkWorkloads.probes(order,
+                size, PROBES, missPercent, BenchmarkWorkloads.SEED));
+    }
+
+    /**
+     * Returns the next probe key.
+     *
+     * @return the probe key
+     */
+    private Integer nextProbe() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return probes[cursor];
+    }
+
+    /**
+     * Exact-match lookup, null on a miss.
+     *
+     * @return the looked up key, or null on a miss
+     */
+    @Benchmark
+    public Integer get() {
+        return tree.get(nextProbe());
+    }
+
+    /**
+     * Membership check.
+     *
+     * @return whether the probe was found
+     */
+    @Benchmark
+    public boolean contains() {
+        return tree.contains(nextProbe());
+    }
+}
@@ -0,0 +1,31 @@
+package bench;
+
+/**
+ * A map from keys to counts, handed to the map benchmarks by
+ * {@code BenchmarkTargets}.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public interface MapTarget {
+    /**
+     * Adds one to the count of the key, mapping it to one if it is new.
+     *
+     * @param key the key to count
+     * @return the new count of the key
+     */
+    int increment(Integer key);
+
+    /**
+     * Looks up the count of the key.
+     *
+     * @param key the key to look up
+     * @return the count, or 0 if the key is not in the map
+     */
+    int count(Integer key);
+
+    /**
+     * Removes every key.
+     */
+    void clear();
+}
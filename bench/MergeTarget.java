@@ -0,0 +1,48 @@
+package bench;
+
+/**
+ * A pair of trees that can be merged, handed to the merge benchmarks by
+ * {@code BenchmarkTargets}. Every merge consumes the pair; load a new one
+ * before the next.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public interface MergeTarget {
+    /**
+     * Replaces both trees.
+     *
+     * @param tree the keys of the tree merged into, in strictly ascending
+     * order
+     * @param other the keys of the other tree, in strictly ascending order
+     */
+    void load(Integer[] tree, Integer[] other);
+
+    /**
+     * Merges the other tree in by walking it and adding each key.
+     *
+     * @return the size of the merged tree
+     */
+    int addEach();
+
+    /**
+     * Merges the other tree in with the join-based union.
+     *
+     * @return the size of the merged tree
+     */
+    int union();
+
+    /**
+     * Keeps the keys that are also in the other tree.
+     *
+     * @return the size of the remaining tree
+     */
+    int intersection();
+
+    /**
+     * Removes the keys of the other tree.
+     *
+     * @return the size of the remaining tree
+     */
+    int difference();
+}
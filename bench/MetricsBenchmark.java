@@ -0,0 +1,152 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures what the {@code AVLMetrics} instrumentation costs {@code AVL}.
+ * Every benchmark comes in a pair forked with the metrics off and on; the
+ * off variant should match an uninstrumented build, since the JIT drops
+ * the disabled counters. The lookups also run on several threads, where
+ * the striped counters have to keep the shared metrics from contending.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MetricsBenchmark {
+    /**
+     * The number of probe keys cycled through by the benchmarks.
+     */
+    private static final int PROBES = 1 << 16;
+
+    private static final String OFF = "-Davl.metrics=false";
+    private static final String ON = "-Davl.metrics=true";
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private Integer[] probes;
+    private Integer[] writes;
+    private Target tree;
+    private int cursor;
+
+    /**
+     * Builds the tree once per trial, outside of the measurement.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkWorkloads.Order order = BenchmarkWorkloads.Order.RANDOM;
+        tree = Target.load("avl");
+        for (int key : BenchmarkWorkloads.keys(order, size,
+                BenchmarkWorkloads.SEED)) {
+            tree.add(key);
+        }
+        probes = BenchmarkWorkloads.boxed(BenchmarkWorkloads.probes(order,
+                size, PROBES, 50, BenchmarkWorkloads.SEED));
+        writes = BenchmarkWorkloads.boxed(BenchmarkWorkloads.probes(order,
+                size, PROBES, 100, BenchmarkWorkloads.SEED + 1));
+    }
+
+    /**
+     * Returns the next index into the probe arrays. Racy when shared by
+     * threads, which only shuffles the probes.
+     *
+     * @return the index
+     */
+    private int next() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return cursor;
+    }
+
+    /**
+     * Membership check, half of them misses, metrics off.
+     *
+     * @return whether the probe was found
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", OFF})
+    public boolean containsOff() {
+        return tree.contains(probes[next()]);
+    }
+
+    /**
+     * Membership check, half of them misses, metrics on.
+     *
+     * @return whether the probe was found
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", ON})
+    public boolean containsOn() {
+        return tree.contains(probes[next()]);
+    }
+
+    /**
+     * Membership check on four threads, metrics off.
+     *
+     * @return whether the probe was found
+     */
+    @Benchmark
+    @Threads(4)
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", OFF})
+    public boolean containsSharedOff() {
+        return tree.contains(probes[next()]);
+    }
+
+    /**
+     * Membership check on four threads, metrics on.
+     *
+     * @return whether the probe was found
+     */
+    @Benchmark
+    @Threads(4)
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", ON})
+    public boolean containsSharedOn() {
+        return tree.contains(probes[next()]);
+    }
+
+    /**
+     * Adds a new key and removes it again, rotating on the way, metrics
+     * off.
+     *
+     * @return the removed key
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", OFF})
+    public Integer addRemoveOff() {
+        Integer key = writes[next()];
+        tree.add(key);
+        return tree.remove(key);
+    }
+
+    /**
+     * Adds a new key and removes it again, rotating on the way, metrics
+     * on.
+     *
+     * @return the removed key
+     */
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g", ON})
+    public Integer addRemoveOn() {
+        Integer key = writes[next()];
+        tree.add(key);
+        return tree.remove(key);
+    }
+}
@@ -0,0 +1,36 @@
+package bench;
+
+/**
+ * A tree read one page at a time, handed to the pagination benchmarks by
+ * {@code BenchmarkTargets}.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public interface PageTarget {
+    /**
+     * Adds a key to the tree.
+     *
+     * @param key the key to add
+     */
+    void add(Integer key);
+
+    /**
+     * Reads the page of keys following a key, starting over for every
+     * call the way a stateless paging API does.
+     *
+     * @param after the last key of the previous page
+     * @param limit the page size
+     * @return the sum of the keys on the page
+     */
+    int pageAfter(Integer after, int limit);
+
+    /**
+     * Reads the next page of a scan that is kept open between calls,
+     * wrapping around to the smallest key at the end.
+     *
+     * @param limit the page size
+     * @return the sum of the keys on the page
+     */
+    int nextPage(int limit);
+}
@@ -0,0 +1,87 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares paging through an {@code AVL}, whose range iterators descend
+ * and fill a stack for every page, against the cursors of
+ * {@code ParentAVL}, which step along the parent links. Run with
+ * {@code -prof gc} to see the allocation per page.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PaginationBenchmark {
+    /**
+     * The number of probe keys cycled through by the benchmarks.
+     */
+    private static final int PROBES = 1 << 16;
+
+    @Param({"avlPages", "parentAvlPages"})
+    private String impl;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    @Param({"20"})
+    private int limit;
+
+    private Integer[] probes;
+    private PageTarget tree;
+    private int cursor;
+
+    /**
+     * Builds the tree once per trial, outside of the measurement.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkWorkloads.Order order = BenchmarkWorkloads.Order.RANDOM;
+        tree = Targets.load(impl, PageTarget.class);
+        for (int key : BenchmarkWorkloads.keys(order, size,
+                BenchmarkWorkloads.SEED)) {
+            tree.add(key);
+        }
+        probes = BenchmarkWorkloads.boxed(BenchmarkWorkloads.probes(order,
+                size, PROBES, 0, BenchmarkWorkloads.SEED));
+    }
+
+    /**
+     * Reads the page after a random key, resuming from the key alone.
+     *
+     * @return the sum of the page
+     */
+    @Benchmark
+    public int pageAfter() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return tree.pageAfter(probes[cursor], limit);
+    }
+
+    /**
+     * Reads the next page of an open scan.
+     *
+     * @return the sum of the page
+     */
+    @Benchmark
+    public int nextPage() {
+        return tree.nextPage(limit);
+    }
+}
@@ -0,0 +1,96 @@
+package bench;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how a full scan of {@code AVL} scales with the number of
+ * threads. {@link #scan()} streams straight from the tree with the subtree
+ * spliterator; {@link #copyThenScan()} is the old way, copying the tree
+ * with inorder and streaming the list. Both run in a fork-join pool of the
+ * given parallelism, so parallelism 1 is the single-threaded baseline.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms6g", "-Xmx6g"})
+public class ParallelScanBenchmark {
+    @Param({"10000000"})
+    private int size;
+
+    @Param({"1", "2", "4", "8", "16"})
+    private int parallelism;
+
+    private ScanTarget tree;
+    private ForkJoinPool pool;
+
+    /**
+     * Builds the tree once per trial, outside of the measurement.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        Integer[] keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = 2 * i;
+        }
+        tree = Targets.load("avlScan", ScanTarget.class);
+        tree.load(keys);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Shuts the pool down.
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Sums the keys with a parallel stream over the tree.
+     *
+     * @return the sum of the keys
+     * @throws InterruptedException if the benchmark thread is interrupted
+     * @throws ExecutionException if the scan fails
+     */
+    @Benchmark
+    public long scan() throws InterruptedException, ExecutionException {
+        return pool.submit(() -> tree.stream().parallel()
+                .mapToLong(BenchmarkWorkloads::mix).sum()).get();
+    }
+
+    /**
+     * Copies the tree into a list and sums the keys with a parallel stream
+     * over the list.
+     *
+     * @return the sum of the keys
+     * @throws InterruptedException if the benchmark thread is interrupted
+     * @throws ExecutionException if the scan fails
+     */
+    @Benchmark
+    public long copyThenScan() throws InterruptedException,
+            ExecutionException {
+        return pool.submit(() -> tree.inorder().parallelStream()
+                .mapToLong(BenchmarkWorkloads::mix).sum()).get();
+    }
+}
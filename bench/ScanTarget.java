@@ -0,0 +1,48 @@
+package bench;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * A tree that can be scanned in ascending order, handed to the scan
+ * benchmarks by {@code BenchmarkTargets}.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public interface ScanTarget {
+    /**
+     * Replaces the contents of the tree.
+     *
+     * @param sorted the keys in strictly ascending order
+     */
+    void load(Integer[] sorted);
+
+    /**
+     * Streams the keys in ascending order straight from the tree.
+     *
+     * @return a sequential stream of the keys
+     */
+    Stream<Integer> stream();
+
+    /**
+     * Copies the keys into a list in ascending order.
+     *
+     * @return the keys in ascending order
+     */
+    List<Integer> inorder();
+
+    /**
+     * Copies the leaves into a list in descending order.
+     *
+     * @return the leaves, largest first
+     */
+    List<Integer> listLeavesDescending();
+
+    /**
+     * Streams the leaves in descending order straight from the tree.
+     *
+     * @return a sequential stream of the leaves, largest first
+     */
+    Stream<Integer> leafStream();
+}
@@ -0,0 +1,114 @@
+package bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares merging one {@code AVL} into another by walking it and adding
+ * each key with the join-based union, and measures the join-based
+ * intersection and difference. The tree holds the even keys below twice
+ * its size and the other tree a random sample of all keys in that range,
+ * so about half of its keys are already in the tree.
+ *
+ * The set operations consume both trees, so the pair is rebuilt before
+ * every invocation, outside of the measurement. The parallel part runs
+ * in the common fork-join pool; set
+ * {@code -Djava.util.concurrent.ForkJoinPool.common.parallelism} to
+ * compare thread counts.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SetOperationBenchmark {
+    @Param({"1000000"})
+    private int size;
+
+    @Param({"10000", "1000000"})
+    private int otherSize;
+
+    private Integer[] keys;
+    private Integer[] otherKeys;
+    private MergeTarget trees;
+
+    /**
+     * Draws the keys of both trees once per trial.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        keys = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = 2 * i;
+        }
+        Random random = new Random(BenchmarkWorkloads.SEED);
+        otherKeys = BenchmarkWorkloads.boxed(random.ints(0, 2 * size)
+                .distinct().limit(otherSize).sorted().toArray());
+        trees = Targets.load("avlMerge", MergeTarget.class);
+    }
+
+    /**
+     * Rebuilds the pair of trees the last invocation consumed.
+     */
+    @Setup(Level.Invocation)
+    public void load() {
+        trees.load(keys, otherKeys);
+    }
+
+    /**
+     * Merges by adding every key of the other tree.
+     *
+     * @return the size of the merged tree
+     */
+    @Benchmark
+    public int addEach() {
+        return trees.addEach();
+    }
+
+    /**
+     * Merges with the join-based union.
+     *
+     * @return the size of the merged tree
+     */
+    @Benchmark
+    public int union() {
+        return trees.union();
+    }
+
+    /**
+     * Intersects with the join-based intersection.
+     *
+     * @return the size of the intersection
+     */
+    @Benchmark
+    public int intersection() {
+        return trees.intersection();
+    }
+
+    /**
+     * Subtracts with the join-based difference.
+     *
+     * @return the size of the difference
+     */
+    @Benchmark
+    public int difference() {
+        return trees.difference();
+    }
+}
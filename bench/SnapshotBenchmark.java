@@ -0,0 +1,116 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares snapshots of {@code PersistentAVL}, which are free, with inorder
+ * copies of an {@code AVL} taken under a lock, and measures what the
+ * persistent tree pays for them on every write.
+ *
+ * Run with {@code -prof gc}: for {@link #write()} the normalized
+ * allocation rate is the size of one new version, the path copied by one
+ * write, and {@link #writeRetaining()} keeps the last RETAINED versions
+ * alive, as readers holding snapshots would, so its GC time shows the cost
+ * of keeping old versions around.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SnapshotBenchmark {
+    /**
+     * The number of write keys cycled through.
+     */
+    private static final int PROBES = 1 << 16;
+
+    /**
+     * The number of snapshots {@link #writeRetaining()} keeps alive.
+     */
+    private static final int RETAINED = 1024;
+
+    @Param({"persistentAvl", "lockedAvl"})
+    private String impl;
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private Integer[] writes;
+    private Object[] retained;
+    private SnapshotTarget tree;
+    private int cursor;
+    private Integer pendingRemove;
+
+    /**
+     * Builds the tree once per trial, outside of the measurement.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkWorkloads.Order order = BenchmarkWorkloads.Order.RANDOM;
+        tree = Targets.load(impl, SnapshotTarget.class);
+        for (int key : BenchmarkWorkloads.keys(order, size,
+                BenchmarkWorkloads.SEED)) {
+            tree.add(key);
+        }
+        writes = BenchmarkWorkloads.boxed(BenchmarkWorkloads.probes(order,
+                size, PROBES, 100, BenchmarkWorkloads.SEED));
+        retained = new Object[RETAINED];
+        pendingRemove = null;
+    }
+
+    /**
+     * Takes a snapshot.
+     *
+     * @return the snapshot
+     */
+    @Benchmark
+    public Object snapshot() {
+        return tree.snapshot();
+    }
+
+    /**
+     * Alternately adds and removes a key that is not part of the initial
+     * tree, so its size stays stable for the whole trial.
+     */
+    @Benchmark
+    public void write() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        if (pendingRemove == null) {
+            pendingRemove = writes[cursor];
+            tree.add(pendingRemove);
+        } else {
+            tree.remove(pendingRemove);
+            pendingRemove = null;
+        }
+    }
+
+    /**
+     * Same as {@link #write()}, but keeps a snapshot of each of the last
+     * RETAINED versions. Only meaningful for the persistent tree; the
+     * locked tree would copy itself on every write.
+     */
+    @Benchmark
+    public void writeRetaining() {
+        write();
+        if ("persistentAvl".equals(impl)) {
+            retained[cursor & (RETAINED - 1)] = tree.snapshot();
+        }
+    }
+}
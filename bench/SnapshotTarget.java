@@ -0,0 +1,33 @@
+package bench;
+
+/**
+ * A tree that can hand out a consistent snapshot of itself while it keeps
+ * taking writes, handed to the snapshot benchmarks by
+ * {@code BenchmarkTargets}.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public interface SnapshotTarget {
+    /**
+     * Adds the key, ignoring duplicates.
+     *
+     * @param key the key to add
+     */
+    void add(Integer key);
+
+    /**
+     * Removes the key.
+     *
+     * @param key the key to remove
+     * @return the key stored in the tree, or null if it was not there
+     */
+    Integer remove(Integer key);
+
+    /**
+     * Takes a snapshot that later writes do not change.
+     *
+     * @return the snapshot
+     */
+    Object snapshot();
+}
@@ -0,0 +1,93 @@
+package bench;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares looking up string keys in an {@code AVL} in natural order,
+ * through a comparator, and in normalized-key mode, where most levels
+ * compare the prefix cached in the node instead of following the node to
+ * its string. The keys are composite, a random hexadecimal part followed
+ * by a sequence number, so the first four characters rarely tie.
+ * {@code ByteKeyAVL} is included for reference; its lookups include the
+ * UTF-8 encoding of the probe.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class StringLookupBenchmark {
+    /**
+     * The number of probe keys cycled through by the benchmarks.
+     */
+    private static final int PROBES = 1 << 16;
+
+    @Param({"avlStrings", "avlStringsComparator", "avlStringsPrefix",
+        "byteKeyAvl"})
+    private String impl;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private String[] probes;
+    private StringTarget tree;
+    private int cursor;
+
+    /**
+     * Builds the tree once per trial, outside of the measurement. The
+     * probes are fresh copies of keys in the tree, so that a lookup never
+     * finds its probe by identity.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(BenchmarkWorkloads.SEED);
+        String[] keys = new String[size];
+        tree = Targets.load(impl, StringTarget.class);
+        for (int i = 0; i < size; i++) {
+            keys[i] = Long.toHexString(random.nextLong()) + "/" + i;
+            tree.add(keys[i]);
+        }
+        probes = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            probes[i] = new String(keys[random.nextInt(size)]);
+        }
+    }
+
+    /**
+     * Returns the next probe key.
+     *
+     * @return the probe key
+     */
+    private String nextProbe() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return probes[cursor];
+    }
+
+    /**
+     * Membership check of a key in the tree.
+     *
+     * @return whether the probe was found
+     */
+    @Benchmark
+    public boolean contains() {
+        return tree.contains(nextProbe());
+    }
+}
@@ -0,0 +1,25 @@
+package bench;
+
+/**
+ * A set of string keys, handed to the string benchmarks by
+ * {@code BenchmarkTargets}.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public interface StringTarget {
+    /**
+     * Adds the key, ignoring duplicates.
+     *
+     * @param key the key to add
+     */
+    void add(String key);
+
+    /**
+     * Checks whether the key is in the set.
+     *
+     * @param key the key to look up
+     * @return whether the key is in the set
+     */
+    boolean contains(String key);
+}
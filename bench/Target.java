@@ -0,0 +1,82 @@
+package bench;
+
+import java.util.List;
+
+/**
+ * The operations every benchmarked tree has to support.
+ *
+ * The trees live in the default package, which a named package cannot
+ * import, so they are handed to the benchmarks through this interface by
+ * {@code BenchmarkTargets}. The lookup happens once per trial; the measured
+ * code only ever makes interface calls.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+public interface Target {
+    /**
+     * Adds the key, ignoring duplicates.
+     *
+     * @param key the key to add
+     */
+    void add(Integer key);
+
+    /**
+     * Removes the key.
+     *
+     * @param key the key to remove
+     * @return the key stored in the tree, or null if it was not there
+     */
+    Integer remove(Integer key);
+
+    /**
+     * Looks up the key.
+     *
+     * @param key the key to look up
+     * @return the key stored in the tree, or null if it was not there
+     */
+    Integer get(Integer key);
+
+    /**
+     * Checks whether the key is in the tree.
+     *
+     * @param key the key to look up
+     * @return whether the key is in the tree
+     */
+    boolean contains(Integer key);
+
+    /**
+     * Adds every key of a batch. Trees without a batch operation add the
+     * keys one at a time.
+     *
+     * @param keys the keys to add
+     */
+    default void addAll(List<Integer> keys) {
+        for (Integer key : keys) {
+            add(key);
+        }
+    }
+
+    /**
+     * Removes every key of a batch that is in the tree. Trees without a
+     * batch operation remove the keys one at a time.
+     *
+     * @param keys the keys to remove
+     */
+    default void removeAll(List<Integer> keys) {
+        for (Integer key : keys) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Creates a target from a static no-argument factory method of the
+     * default-package {@code BenchmarkTargets} class.
+     *
+     * @param factory the name of the factory method
+     * @return the target created by the factory
+     */
+    static Target load(String factory) {
+        return Targets.load(factory, Target.class);
+    }
+}
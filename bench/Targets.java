@@ -0,0 +1,34 @@
+package bench;
+
+/**
+ * Looks up the factories of the default-package {@code BenchmarkTargets}
+ * class by name.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+final class Targets {
+    /**
+     * Utility class, do not instantiate.
+     */
+    private Targets() {
+    }
+
+    /**
+     * Calls a static no-argument factory method of {@code BenchmarkTargets}.
+     *
+     * @param factory the name of the factory method
+     * @param type the type the factory returns
+     * @param <F> the type the factory returns
+     * @return the object created by the factory
+     */
+    static <F> F load(String factory, Class<F> type) {
+        try {
+            return type.cast(Class.forName("BenchmarkTargets")
+                    .getMethod(factory).invoke(null));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create the benchmark"
+                    + " target " + factory, e);
+        }
+    }
+}
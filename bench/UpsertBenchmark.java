@@ -0,0 +1,94 @@
+package bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares counting keys in {@code AVLMap}, whose merge updates the value
+ * in place after one descent, against an {@code AVL} of key/count pairs,
+ * which has to look the old pair up, remove it and add a new one, with
+ * {@code TreeMap} as the reference. Every key is counted once before the
+ * measurement, so the measured updates never change the structure.
+ *
+ * @author YIFAN SHEN
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class UpsertBenchmark {
+    /**
+     * The number of probe keys cycled through by the benchmarks.
+     */
+    private static final int PROBES = 1 << 16;
+
+    @Param({"avlMap", "avlPairs", "treeMap"})
+    private String impl;
+
+    @Param({"1000", "1000000"})
+    private int size;
+
+    private Integer[] probes;
+    private MapTarget map;
+    private int cursor;
+
+    /**
+     * Counts every key once per trial, outside of the measurement.
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkWorkloads.Order order = BenchmarkWorkloads.Order.RANDOM;
+        map = Targets.load(impl, MapTarget.class);
+        for (int key : BenchmarkWorkloads.keys(order, size,
+                BenchmarkWorkloads.SEED)) {
+            map.increment(key);
+        }
+        probes = BenchmarkWorkloads.boxed(BenchmarkWorkloads.probes(order,
+                size, PROBES, 0, BenchmarkWorkloads.SEED));
+    }
+
+    /**
+     * Returns the next probe key.
+     *
+     * @return the probe key
+     */
+    private Integer nextProbe() {
+        cursor = (cursor + 1) & (PROBES - 1);
+        return probes[cursor];
+    }
+
+    /**
+     * Adds one to the count of a key already in the map.
+     *
+     * @return the new count
+     */
+    @Benchmark
+    public int increment() {
+        return map.increment(nextProbe());
+    }
+
+    /**
+     * Reads the count of a key, for the cost of the descent alone.
+     *
+     * @return the count
+     */
+    @Benchmark
+    public int count() {
+        return map.count(nextProbe());
+    }
+}